@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.cloud.scheduler.spi.local.LocalScheduler;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * The schedules the benchmarks operate on.  Benchmarks of the SPI and its decorators
+ * use a {@link LocalScheduler} whose launcher does nothing, so they measure the cost of
+ * a real scheduler without a platform round trip.
+ *
+ * @author agent
+ */
+final class BenchmarkSchedules {
+
+	static final String RESOURCE_URI = "file:/opt/tasks/timestamp-task.jar";
+
+	static final Resource RESOURCE = new FileSystemResource("/opt/tasks/timestamp-task.jar");
+
+	static final String CRON_EXPRESSION = "0 0 1 1 *";
+
+	private BenchmarkSchedules() {
+	}
+
+	/**
+	 * Creates a scheduler populated with the specified number of schedules spread evenly
+	 * across a number of task definitions.  The scheduler is to be closed once the
+	 * benchmark completes.
+	 *
+	 * @param scheduleCount the number of schedules.
+	 * @param taskDefinitionCount the number of task definitions.
+	 * @return the populated scheduler.
+	 */
+	static LocalScheduler populatedScheduler(int scheduleCount, int taskDefinitionCount) {
+		LocalScheduler scheduler = new LocalScheduler(scheduleRequest -> { });
+		for (int i = 0; i < scheduleCount; i++) {
+			scheduler.schedule(newScheduleRequest("schedule-" + i, "task-" + (i % taskDefinitionCount)));
+		}
+		return scheduler;
+	}
+
+	static ScheduleRequest newScheduleRequest(String scheduleName, String taskDefinitionName) {
+		Map<String, String> appProperties = new HashMap<>();
+		appProperties.put("spring.datasource.url", "jdbc:h2:mem:benchmark");
+		Map<String, String> schedulerProperties = new HashMap<>();
+		schedulerProperties.put(SchedulerPropertyKeys.CRON_EXPRESSION, CRON_EXPRESSION);
+		Map<String, String> deploymentProperties = new HashMap<>();
+		deploymentProperties.put("spring.cloud.deployer.memory", "1024m");
+		return new ScheduleRequest(new AppDefinition(taskDefinitionName, appProperties), schedulerProperties,
+				deploymentProperties, scheduleName, RESOURCE);
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.benchmarks;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.scheduler.spi.core.CronExpression;
+
+/**
+ * Measures the computation of the next fire time of {@link CronExpression}s that fire
+ * frequently, on weekdays and rarely.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CronExpressionBenchmarks {
+
+	/**
+	 * The span, one year, over which the start times of the computations are spread.
+	 */
+	private static final long START_TIME_SPAN_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+	/**
+	 * The step between consecutive start times, chosen not to align with any field.
+	 */
+	private static final long START_TIME_STEP_MILLIS = 7_919_113L;
+
+	@Param({"*/5 * * * *", "0 30 9 ? * MON-FRI", "0 0 1 1 *", "0 0 0 29 2 *"})
+	private String expression;
+
+	private CronExpression cronExpression;
+
+	private ZoneId zone;
+
+	private long origin;
+
+	private long offset;
+
+	@Setup
+	public void setup() {
+		this.cronExpression = CronExpression.compile(this.expression);
+		this.zone = ZoneId.of("America/New_York");
+		this.origin = Instant.parse("2019-01-01T00:00:00Z").toEpochMilli();
+	}
+
+	@Benchmark
+	public long nextFireTimeUtc() {
+		return this.cronExpression.nextFireTime(nextStartTime());
+	}
+
+	@Benchmark
+	public long nextFireTimeWithZone() {
+		return this.cronExpression.nextFireTime(nextStartTime(), this.zone);
+	}
+
+	@Benchmark
+	public ZonedDateTime nextZonedDateTime() {
+		return this.cronExpression.next(Instant.ofEpochMilli(nextStartTime()).atZone(this.zone));
+	}
+
+	@Benchmark
+	public CronExpression compileCached() {
+		return CronExpression.compile(this.expression);
+	}
+
+	private long nextStartTime() {
+		this.offset = (this.offset + START_TIME_STEP_MILLIS) % START_TIME_SPAN_MILLIS;
+		return this.origin + this.offset;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.benchmarks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.local.LocalScheduler;
+import org.springframework.cloud.scheduler.spi.support.CachingScheduler;
+import org.springframework.cloud.scheduler.spi.support.InstrumentedScheduler;
+
+/**
+ * Measures the overhead the {@link Scheduler} decorators add to a
+ * {@link LocalScheduler}.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoratorBenchmarks {
+
+	@Param({"direct", "caching", "instrumented"})
+	private String decorator;
+
+	@Param("10000")
+	private int scheduleCount;
+
+	private LocalScheduler delegate;
+
+	private Scheduler scheduler;
+
+	private ScheduleRequest scheduleRequest;
+
+	@Setup
+	public void setup() {
+		LocalScheduler delegate = BenchmarkSchedules.populatedScheduler(this.scheduleCount, 100);
+		this.delegate = delegate;
+		switch (this.decorator) {
+			case "caching":
+				this.scheduler = new CachingScheduler(delegate, Duration.ofMinutes(5), 1000);
+				break;
+			case "instrumented":
+				this.scheduler = new InstrumentedScheduler(delegate, new SimpleMeterRegistry());
+				break;
+			default:
+				this.scheduler = delegate;
+		}
+		this.scheduleRequest = BenchmarkSchedules.newScheduleRequest("schedule-benchmark", "task-1");
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.delegate.close();
+	}
+
+	@Benchmark
+	public List<ScheduleInfo> listByTaskDefinition() {
+		return this.scheduler.list("task-1");
+	}
+
+	@Benchmark
+	public void scheduleAndUnschedule() {
+		this.scheduler.schedule(this.scheduleRequest);
+		this.scheduler.unschedule(this.scheduleRequest.getScheduleName());
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleFilter;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.SchedulePage;
+import org.springframework.cloud.scheduler.spi.local.LocalScheduler;
+
+/**
+ * Measures listing and filtering the schedules of a {@link LocalScheduler} holding
+ * between ten thousand and a million schedules.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ListBenchmarks {
+
+	@Param({"10000", "100000", "1000000"})
+	private int scheduleCount;
+
+	@Param("100")
+	private int taskDefinitionCount;
+
+	private LocalScheduler scheduler;
+
+	private ScheduleFilter prefixFilter;
+
+	@Setup
+	public void setup() {
+		this.scheduler = BenchmarkSchedules.populatedScheduler(this.scheduleCount, this.taskDefinitionCount);
+		this.prefixFilter = ScheduleFilter.builder().scheduleNamePrefix("schedule-1").build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.scheduler.close();
+	}
+
+	@Benchmark
+	public List<ScheduleInfo> listAll() {
+		return this.scheduler.list();
+	}
+
+	@Benchmark
+	public List<ScheduleInfo> listByTaskDefinition() {
+		return this.scheduler.list("task-1");
+	}
+
+	@Benchmark
+	public long streamFiltered() {
+		return this.scheduler.stream(this.prefixFilter).count();
+	}
+
+	@Benchmark
+	public SchedulePage listFirstPage() {
+		return this.scheduler.list(ScheduleFilter.all(), null, 100);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.benchmarks;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.support.ScheduleCodec;
+
+/**
+ * Compares encoding and decoding {@link ScheduleRequest}s with the
+ * {@link ScheduleCodec} against JSON.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleCodecBenchmarks {
+
+	private final ScheduleCodec codec = new ScheduleCodec();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private ScheduleRequest scheduleRequest;
+
+	private byte[] encoded;
+
+	private byte[] json;
+
+	@Setup
+	public void setup() throws IOException {
+		this.scheduleRequest = BenchmarkSchedules.newScheduleRequest("schedule-benchmark", "task-benchmark");
+		this.encoded = this.codec.encode(this.scheduleRequest);
+		this.json = this.objectMapper.writeValueAsBytes(toJson(this.scheduleRequest));
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		return this.codec.encode(this.scheduleRequest);
+	}
+
+	@Benchmark
+	public ScheduleRequest decode() {
+		return this.codec.decodeScheduleRequest(this.encoded);
+	}
+
+	@Benchmark
+	public byte[] encodeJson() throws IOException {
+		return this.objectMapper.writeValueAsBytes(toJson(this.scheduleRequest));
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public ScheduleRequest decodeJson() throws IOException {
+		Map<String, Object> json = this.objectMapper.readValue(this.json, Map.class);
+		return new ScheduleRequest(
+				new AppDefinition((String) json.get("taskDefinitionName"),
+						(Map<String, String>) json.get("appProperties")),
+				(Map<String, String>) json.get("schedulerProperties"),
+				(Map<String, String>) json.get("deploymentProperties"),
+				(List<String>) json.get("commandlineArguments"),
+				(String) json.get("scheduleName"),
+				BenchmarkSchedules.RESOURCE);
+	}
+
+	private static Map<String, Object> toJson(ScheduleRequest scheduleRequest) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("scheduleName", scheduleRequest.getScheduleName());
+		json.put("taskDefinitionName", scheduleRequest.getDefinition().getName());
+		json.put("appProperties", scheduleRequest.getDefinition().getProperties());
+		json.put("schedulerProperties", scheduleRequest.getSchedulerProperties());
+		json.put("deploymentProperties", scheduleRequest.getDeploymentProperties());
+		json.put("commandlineArguments", scheduleRequest.getCommandlineArguments());
+		json.put("resource", BenchmarkSchedules.RESOURCE_URI);
+		return json;
+	}
+}
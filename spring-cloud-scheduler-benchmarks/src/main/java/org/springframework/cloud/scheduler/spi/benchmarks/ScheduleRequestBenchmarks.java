@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+
+/**
+ * Measures the construction of {@link ScheduleRequest}s, which copies the application
+ * properties and wraps the property maps on every construction, and the equality
+ * checks of {@link ScheduleInfo}.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleRequestBenchmarks {
+
+	private Map<String, String> appProperties;
+
+	private Map<String, String> schedulerProperties;
+
+	private Map<String, String> deploymentProperties;
+
+	private ScheduleInfo scheduleInfo;
+
+	private ScheduleInfo equalScheduleInfo;
+
+	private ScheduleInfo otherScheduleInfo;
+
+	@Setup
+	public void setup() {
+		this.appProperties = new HashMap<>();
+		this.appProperties.put("spring.datasource.url", "jdbc:h2:mem:benchmark");
+		this.appProperties.put("spring.datasource.username", "sa");
+		this.schedulerProperties = new HashMap<>();
+		this.schedulerProperties.put(SchedulerPropertyKeys.CRON_EXPRESSION, BenchmarkSchedules.CRON_EXPRESSION);
+		this.deploymentProperties = new HashMap<>();
+		this.deploymentProperties.put("spring.cloud.deployer.memory", "1024m");
+		this.scheduleInfo = newScheduleInfo("schedule-benchmark-1");
+		this.equalScheduleInfo = newScheduleInfo("schedule-benchmark-1");
+		this.otherScheduleInfo = newScheduleInfo("schedule-benchmark-2");
+	}
+
+	@Benchmark
+	public ScheduleRequest newScheduleRequest() {
+		return new ScheduleRequest(new AppDefinition("task-benchmark", this.appProperties),
+				this.schedulerProperties, this.deploymentProperties, "schedule-benchmark",
+				BenchmarkSchedules.RESOURCE);
+	}
+
+	@Benchmark
+	public ScheduleInfo newScheduleInfo() {
+		return newScheduleInfo("schedule-benchmark");
+	}
+
+	@Benchmark
+	public boolean scheduleInfoEquals() {
+		return this.scheduleInfo.equals(this.equalScheduleInfo);
+	}
+
+	@Benchmark
+	public boolean scheduleInfoNotEquals() {
+		return this.scheduleInfo.equals(this.otherScheduleInfo);
+	}
+
+	private ScheduleInfo newScheduleInfo(String scheduleName) {
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(scheduleName);
+		scheduleInfo.setTaskDefinitionName("task-benchmark");
+		scheduleInfo.setScheduleProperties(this.schedulerProperties);
+		return scheduleInfo;
+	}
+}
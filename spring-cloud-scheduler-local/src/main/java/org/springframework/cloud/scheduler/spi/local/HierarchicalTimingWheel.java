@@ -0,0 +1,356 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * A hierarchical timing wheel that runs tasks at a wall clock deadline.
+ *
+ * Time is divided into ticks of a fixed duration.  Each level of the wheel has
+ * {@value #WHEEL_SIZE} buckets and each bucket of a level spans a full revolution of
+ * the level below it, so a task is stored in the lowest level whose bucket identifies
+ * its deadline relative to the current tick.  When a higher level bucket is reached its
+ * tasks are cascaded into the lower levels.  Adding, cancelling and advancing by a tick
+ * are therefore constant time operations regardless of the number of pending tasks,
+ * in contrast to the logarithmic cost of a priority queue.
+ *
+ * The wheel is driven by a single daemon thread that also runs the expired tasks, so
+ * tasks are expected to complete quickly and hand off any real work to an executor.
+ * Tasks are added and cancelled from any thread without locking, the changes are
+ * applied by the wheel thread on its next tick.
+ *
+ * @author agent
+ */
+public class HierarchicalTimingWheel implements AutoCloseable {
+
+	private static final int WHEEL_BITS = 6;
+
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	/**
+	 * The number of levels needed to address every non negative tick.
+	 */
+	private static final int LEVELS = (Long.SIZE - 1 + WHEEL_BITS - 1) / WHEEL_BITS;
+
+	private static final Log logger = LogFactory.getLog(HierarchicalTimingWheel.class);
+
+	private final long tickMillis;
+
+	private final long originMillis;
+
+	private final Bucket[][] wheel = new Bucket[LEVELS][WHEEL_SIZE];
+
+	private final Queue<Timeout> pendingAdditions = new ConcurrentLinkedQueue<>();
+
+	private final Queue<Timeout> pendingCancellations = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong pendingTimeouts = new AtomicLong();
+
+	private final Thread workerThread;
+
+	private volatile boolean running = true;
+
+	/**
+	 * The last tick that has been processed, only accessed by the worker thread.
+	 */
+	private long currentTick;
+
+	/**
+	 * Creates and starts a timing wheel.
+	 *
+	 * @param tickMillis the duration of a tick in milliseconds, the resolution of the wheel.
+	 * @param threadName the name of the thread that drives the wheel.
+	 */
+	public HierarchicalTimingWheel(long tickMillis, String threadName) {
+		Assert.isTrue(tickMillis > 0, "tickMillis must be greater than zero");
+		Assert.hasText(threadName, "threadName must not be empty");
+		this.tickMillis = tickMillis;
+		this.originMillis = System.currentTimeMillis();
+		for (int level = 0; level < LEVELS; level++) {
+			for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+				this.wheel[level][slot] = new Bucket();
+			}
+		}
+		this.workerThread = new Thread(this::run, threadName);
+		this.workerThread.setDaemon(true);
+		this.workerThread.start();
+	}
+
+	/**
+	 * Schedules a task to be run once the specified deadline has been reached.  Tasks
+	 * whose deadline has already passed are run on the next tick.
+	 *
+	 * @param deadlineMillis the wall clock time, in milliseconds since the epoch, at
+	 * which the task is to be run.
+	 * @param task the task to be run.
+	 * @return a handle that can be used to cancel the task.
+	 */
+	public Timeout schedule(long deadlineMillis, Runnable task) {
+		Assert.notNull(task, "task must not be null");
+		Assert.state(this.running, "timing wheel has been closed");
+		long deadlineTick = Math.max(0, ceilDiv(deadlineMillis - this.originMillis, this.tickMillis));
+		Timeout timeout = new Timeout(this, deadlineMillis, deadlineTick, task);
+		this.pendingTimeouts.incrementAndGet();
+		this.pendingAdditions.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * @return the number of tasks that have been scheduled but have neither run nor
+	 * been cancelled.
+	 */
+	public long getPendingTimeouts() {
+		return this.pendingTimeouts.get();
+	}
+
+	public long getTickMillis() {
+		return this.tickMillis;
+	}
+
+	@Override
+	public void close() {
+		this.running = false;
+		this.workerThread.interrupt();
+	}
+
+	private void run() {
+		while (this.running) {
+			long nextTickMillis = this.originMillis + (this.currentTick + 1) * this.tickMillis;
+			long sleepMillis = nextTickMillis - System.currentTimeMillis();
+			if (sleepMillis > 0) {
+				try {
+					TimeUnit.MILLISECONDS.sleep(sleepMillis);
+				}
+				catch (InterruptedException e) {
+					if (!this.running) {
+						break;
+					}
+					continue;
+				}
+			}
+			long targetTick = (System.currentTimeMillis() - this.originMillis) / this.tickMillis;
+			processCancellations();
+			processAdditions();
+			while (this.currentTick < targetTick && this.running) {
+				advance();
+			}
+		}
+	}
+
+	/**
+	 * Advances the wheel by a single tick, cascading higher level buckets that have been
+	 * reached and running the tasks that expire on the new tick.
+	 */
+	private void advance() {
+		long tick = ++this.currentTick;
+		for (int level = LEVELS - 1; level > 0; level--) {
+			int shift = level * WHEEL_BITS;
+			if ((tick & ((1L << shift) - 1)) == 0) {
+				Bucket bucket = this.wheel[level][(int) ((tick >>> shift) & WHEEL_MASK)];
+				Timeout timeout = bucket.clear();
+				while (timeout != null) {
+					Timeout next = timeout.next;
+					timeout.next = null;
+					timeout.bucket = null;
+					place(timeout);
+					timeout = next;
+				}
+			}
+		}
+		Timeout timeout = this.wheel[0][(int) (tick & WHEEL_MASK)].clear();
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			timeout.next = null;
+			timeout.bucket = null;
+			expire(timeout);
+			timeout = next;
+		}
+	}
+
+	private void processAdditions() {
+		Timeout timeout;
+		while ((timeout = this.pendingAdditions.poll()) != null) {
+			if (timeout.state.get() == Timeout.STATE_PENDING) {
+				place(timeout);
+			}
+		}
+	}
+
+	private void processCancellations() {
+		Timeout timeout;
+		while ((timeout = this.pendingCancellations.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	/**
+	 * Stores the timeout in the level identified by the most significant digit in which
+	 * its deadline differs from the current tick, or runs it if it has expired.
+	 */
+	private void place(Timeout timeout) {
+		long deadlineTick = timeout.deadlineTick;
+		if (deadlineTick <= this.currentTick) {
+			expire(timeout);
+			return;
+		}
+		int highestDifferingBit = (Long.SIZE - 1) - Long.numberOfLeadingZeros(deadlineTick ^ this.currentTick);
+		int level = highestDifferingBit / WHEEL_BITS;
+		int slot = (int) ((deadlineTick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+		this.wheel[level][slot].add(timeout);
+	}
+
+	private void expire(Timeout timeout) {
+		if (!timeout.state.compareAndSet(Timeout.STATE_PENDING, Timeout.STATE_EXPIRED)) {
+			return;
+		}
+		this.pendingTimeouts.decrementAndGet();
+		try {
+			timeout.task.run();
+		}
+		catch (Throwable t) {
+			logger.warn("Timing wheel task threw an exception", t);
+		}
+	}
+
+	private static long ceilDiv(long dividend, long divisor) {
+		return -Math.floorDiv(-dividend, divisor);
+	}
+
+	/**
+	 * A handle to a task scheduled with a {@link HierarchicalTimingWheel}.
+	 */
+	public static final class Timeout {
+
+		private static final int STATE_PENDING = 0;
+
+		private static final int STATE_CANCELLED = 1;
+
+		private static final int STATE_EXPIRED = 2;
+
+		private final HierarchicalTimingWheel wheel;
+
+		private final long deadlineMillis;
+
+		private final long deadlineTick;
+
+		private final Runnable task;
+
+		private final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+
+		// the following fields are only accessed by the worker thread
+
+		private Bucket bucket;
+
+		private Timeout previous;
+
+		private Timeout next;
+
+		private Timeout(HierarchicalTimingWheel wheel, long deadlineMillis, long deadlineTick, Runnable task) {
+			this.wheel = wheel;
+			this.deadlineMillis = deadlineMillis;
+			this.deadlineTick = deadlineTick;
+			this.task = task;
+		}
+
+		/**
+		 * Cancels the task if it has not been run yet.
+		 *
+		 * @return {@code true} if the task was cancelled by this call.
+		 */
+		public boolean cancel() {
+			if (!this.state.compareAndSet(STATE_PENDING, STATE_CANCELLED)) {
+				return false;
+			}
+			this.wheel.pendingTimeouts.decrementAndGet();
+			this.wheel.pendingCancellations.add(this);
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return this.state.get() == STATE_CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return this.state.get() == STATE_EXPIRED;
+		}
+
+		public long getDeadlineMillis() {
+			return this.deadlineMillis;
+		}
+	}
+
+	/**
+	 * A doubly linked list of timeouts that allows constant time removal.
+	 */
+	private static final class Bucket {
+
+		private Timeout head;
+
+		private void add(Timeout timeout) {
+			timeout.bucket = this;
+			timeout.previous = null;
+			timeout.next = this.head;
+			if (this.head != null) {
+				this.head.previous = timeout;
+			}
+			this.head = timeout;
+		}
+
+		private void remove(Timeout timeout) {
+			if (timeout.previous != null) {
+				timeout.previous.next = timeout.next;
+			}
+			else {
+				this.head = timeout.next;
+			}
+			if (timeout.next != null) {
+				timeout.next.previous = timeout.previous;
+			}
+			timeout.bucket = null;
+			timeout.previous = null;
+			timeout.next = null;
+		}
+
+		/**
+		 * Empties the bucket, returning the former head of the list.
+		 */
+		private Timeout clear() {
+			Timeout head = this.head;
+			this.head = null;
+			Timeout timeout = head;
+			while (timeout != null) {
+				timeout.previous = null;
+				timeout = timeout.next;
+			}
+			return head;
+		}
+	}
+}
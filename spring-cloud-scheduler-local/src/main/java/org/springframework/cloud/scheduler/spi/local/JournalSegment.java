@@ -0,0 +1,279 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A memory-mapped, append-only journal file holding checksummed records.
+ *
+ * The file starts with a header identifying the format and the generation of the
+ * segment, followed by records framed as the length of the record body, the CRC-32
+ * checksum of the body and the body itself, which is a record type followed by the
+ * payload.  The mapped region grows as records are appended and the unused remainder
+ * of the file is zero filled, so the end of the journal is identified by a zero
+ * length.  A record whose length or checksum is invalid was torn by a crash before it
+ * was forced to storage, so it and anything following it are ignored when reading.
+ *
+ * Records must be appended by one thread at a time, {@link ScheduleStore} serializes
+ * its appends.  {@link #force()} may be called concurrently with {@link #append}, so
+ * that records appended by other threads are grouped into a single force, and makes
+ * every record whose {@code append} completed before it was called durable.  Growing
+ * the mapped region replaces the mapping, which is serialized with forcing it, and the
+ * mapping that was replaced is released right away rather than when it is garbage
+ * collected.  A segment must not be used once it has been closed.
+ *
+ * @author agent
+ */
+class JournalSegment implements Closeable {
+
+	static final int MAGIC = 0x5343484A;
+
+	static final int VERSION = 2;
+
+	static final int HEADER_SIZE = 16;
+
+	/**
+	 * The length and checksum that precede each record body.
+	 */
+	static final int FRAME_SIZE = 8;
+
+	private static final Log logger = LogFactory.getLog(JournalSegment.class);
+
+	private final Path path;
+
+	private final long generation;
+
+	private final FileChannel channel;
+
+	/**
+	 * Guards the replacement and release of the mapping against a concurrent force.
+	 */
+	private final Object mappingLock = new Object();
+
+	private volatile MappedByteBuffer buffer;
+
+	private JournalSegment(Path path, long generation, FileChannel channel, MappedByteBuffer buffer) {
+		this.path = path;
+		this.generation = generation;
+		this.channel = channel;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Creates a new, empty segment.
+	 *
+	 * @param path the file of the segment, which must not exist.
+	 * @param generation the generation of the segment.
+	 * @param initialSize the initial size of the mapped region in bytes.
+	 * @return the segment, positioned to append the first record.
+	 * @throws IOException if the file could not be created.
+	 */
+	static JournalSegment create(Path path, long generation, int initialSize) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					Math.max(initialSize, HEADER_SIZE));
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(generation);
+			buffer.force();
+			return new JournalSegment(path, generation, channel, buffer);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the records of a segment, stopping at the end of the journal or at the
+	 * first torn record.
+	 *
+	 * @param path the file of the segment.
+	 * @param handler called with the type and payload of each record, in order.
+	 * @return the generation of the segment.
+	 * @throws IOException if the file could not be read or is not a journal segment.
+	 */
+	static long read(Path path, RecordHandler handler) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+				throw new IOException(String.format("%s is not a schedule journal", path));
+			}
+			int version = buffer.getInt();
+			if (version != VERSION) {
+				throw new IOException(String.format("%s has unsupported journal version %d", path, version));
+			}
+			long generation = buffer.getLong();
+			byte[] body;
+			while ((body = readRecord(buffer)) != null) {
+				handler.handle(body[0], body, 1, body.length - 1);
+			}
+			return generation;
+		}
+		finally {
+			// the records are copied out of the mapping, which can be released
+			unmap(buffer);
+		}
+	}
+
+	/**
+	 * Appends a record, growing the mapped region if necessary.  The record is not
+	 * durable until the segment has been {@link #force() forced}.
+	 *
+	 * @param type the type of the record.
+	 * @param payload the payload of the record.
+	 * @throws IOException if the mapped region could not be grown.
+	 */
+	void append(byte type, byte[] payload) throws IOException {
+		int bodyLength = payload.length + 1;
+		MappedByteBuffer buffer = this.buffer;
+		// keep room for a zero length that marks the end of the journal
+		int required = FRAME_SIZE + bodyLength + Integer.BYTES;
+		if (buffer.remaining() < required) {
+			buffer = grow(required);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(payload, 0, payload.length);
+		int position = buffer.position();
+		buffer.position(position + Integer.BYTES);
+		buffer.putInt((int) crc.getValue()).put(type).put(payload);
+		// the length is written last so that a partially copied record is never valid
+		buffer.putInt(position, bodyLength);
+	}
+
+	/**
+	 * Forces the appended records to storage.  May be called concurrently with
+	 * {@link #append}.
+	 */
+	void force() {
+		synchronized (this.mappingLock) {
+			this.buffer.force();
+		}
+	}
+
+	long getGeneration() {
+		return this.generation;
+	}
+
+	Path getPath() {
+		return this.path;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this.mappingLock) {
+			unmap(this.buffer);
+			this.buffer = null;
+		}
+		this.channel.close();
+	}
+
+	private MappedByteBuffer grow(int required) throws IOException {
+		MappedByteBuffer current = this.buffer;
+		long size = Math.max((long) current.capacity() * 2, (long) current.position() + required);
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException(String.format("journal segment %s is full", this.path));
+		}
+		MappedByteBuffer grown = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		grown.position(current.position());
+		synchronized (this.mappingLock) {
+			this.buffer = grown;
+			// both mappings share the pages of the file, the records written through the
+			// current mapping are forced through the grown one
+			unmap(current);
+		}
+		return grown;
+	}
+
+	/**
+	 * Releases a mapping rather than waiting for the buffer to be garbage collected.  The
+	 * buffer must not be accessed afterwards.  There is no public API to release a
+	 * mapping, so the internal one of the running JVM is used, and the mapping is left to
+	 * the garbage collector where none is available.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			try {
+				// Java 9 and later
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			}
+			catch (NoSuchMethodException e) {
+				// Java 8
+				Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+				Object bufferCleaner = cleaner.invoke(buffer);
+				if (bufferCleaner != null) {
+					bufferCleaner.getClass().getMethod("clean").invoke(bufferCleaner);
+				}
+			}
+		}
+		catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			logger.debug("Unable to release a journal mapping, leaving it to the garbage collector", e);
+		}
+	}
+
+	/**
+	 * Reads a record framed as its length, its checksum and its body.
+	 *
+	 * @return the body of the record, or {@code null} at the end of the records or if
+	 * the record is torn.
+	 */
+	static byte[] readRecord(ByteBuffer buffer) {
+		if (buffer.remaining() < FRAME_SIZE) {
+			return null;
+		}
+		int length = buffer.getInt();
+		int checksum = buffer.getInt();
+		if (length <= 0 || length > buffer.remaining()) {
+			return null;
+		}
+		byte[] body = new byte[length];
+		buffer.get(body);
+		CRC32 crc = new CRC32();
+		crc.update(body, 0, body.length);
+		return (int) crc.getValue() == checksum ? body : null;
+	}
+
+	/**
+	 * Receives the records read from a segment.
+	 */
+	@FunctionalInterface
+	interface RecordHandler {
+
+		void handle(byte type, byte[] body, int payloadOffset, int payloadLength) throws IOException;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Factory for the executors that run the launches of fired schedules.
+ *
+ * @author agent
+ */
+public final class LaunchExecutors {
+
+	private static final Log logger = LogFactory.getLog(LaunchExecutors.class);
+
+	private LaunchExecutors() {
+	}
+
+	/**
+	 * Creates an executor that runs each launch on its own virtual thread, so that a
+	 * burst of launches is not serialized by the size of a thread pool.  On a JVM that
+	 * does not support virtual threads an executor backed by a cached pool of platform
+	 * daemon threads is returned instead.
+	 *
+	 * @param threadNamePrefix the prefix of the names of the threads created.
+	 * @return a new executor.
+	 */
+	public static ExecutorService newVirtualThreadExecutor(String threadNamePrefix) {
+		ThreadFactory virtualThreadFactory = createVirtualThreadFactory(threadNamePrefix);
+		if (virtualThreadFactory != null) {
+			try {
+				Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor",
+						ThreadFactory.class);
+				return (ExecutorService) newThreadPerTaskExecutor.invoke(null, virtualThreadFactory);
+			}
+			catch (ReflectiveOperationException e) {
+				logger.debug("Virtual threads are not available, using platform threads", e);
+			}
+		}
+		return newPlatformThreadExecutor(threadNamePrefix);
+	}
+
+	/**
+	 * Creates an executor backed by a cached pool of platform daemon threads.
+	 *
+	 * @param threadNamePrefix the prefix of the names of the threads created.
+	 * @return a new executor.
+	 */
+	public static ExecutorService newPlatformThreadExecutor(String threadNamePrefix) {
+		AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Creates a factory of named virtual threads through reflection, as the API is only
+	 * available on Java 21 and later.
+	 */
+	private static ThreadFactory createVirtualThreadFactory(String threadNamePrefix) {
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		}
+		catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+}
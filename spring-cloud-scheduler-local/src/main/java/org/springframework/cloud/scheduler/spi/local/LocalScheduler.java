@@ -0,0 +1,411 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.CronExpression;
+import org.springframework.cloud.scheduler.spi.core.ScheduleEvent;
+import org.springframework.cloud.scheduler.spi.core.ScheduleEventListener;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.ScheduleSpread;
+import org.springframework.cloud.scheduler.spi.core.ScheduleSubscription;
+import org.springframework.cloud.scheduler.spi.core.ScheduleWatcher;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+import org.springframework.cloud.scheduler.spi.support.PropertyMapInterner;
+import org.springframework.cloud.scheduler.spi.support.ScheduleEventPublisher;
+import org.springframework.cloud.scheduler.spi.support.ScheduleRegistry;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.Assert;
+
+/**
+ * An in-process {@link Scheduler} that keeps its schedules in memory and fires them
+ * according to their {@link SchedulerPropertyKeys#CRON_EXPRESSION}, see
+ * {@link CronExpression} for the supported syntax.  Schedules that set the
+ * {@link SchedulerPropertyKeys#CRON_SPREAD_WINDOW} property fire at an offset within the
+ * window that is derived from their name, see {@link ScheduleSpread}.
+ *
+ * Schedules are kept in a {@link ScheduleRegistry}, so listing the schedules of a task
+ * definition does not scan the schedules of the others.  Fire times are tracked by a {@link HierarchicalTimingWheel}, so the cost of
+ * driving the schedules does not grow with the number that are registered.  When a
+ * schedule fires its {@link ScheduleRequest} is passed to the {@link ScheduleLauncher}
+ * on its own thread, a virtual thread where supported, through a
+ * {@link ScheduleLaunchDispatcher} that can limit the concurrent launches per task
+ * definition.
+ *
+ * Unless disabled, schedules share identical definitions and properties through a
+ * {@link PropertyMapInterner}.
+ *
+ * When a {@link LocalSchedulerProperties#getStoreDirectory() store directory} is
+ * configured, schedules are persisted by a {@link ScheduleStore} before they are
+ * acknowledged and are recovered when the scheduler is created.  Operations on the same
+ * schedule name are serialized so that they are journaled in the order they are
+ * applied.
+ *
+ * Changes made through the scheduler are published as {@link ScheduleEvent}s to the
+ * listeners registered with {@link #watch(long, ScheduleEventListener)}.  Schedules
+ * recovered from the store are not published and sequence numbers restart when the
+ * scheduler is recreated.
+ *
+ * @author agent
+ */
+public class LocalScheduler implements Scheduler, ScheduleWatcher, AutoCloseable {
+
+	private static final Log logger = LogFactory.getLog(LocalScheduler.class);
+
+	private static final int LOCK_STRIPES = 64;
+
+	private final ZoneId timeZone;
+
+	private final HierarchicalTimingWheel timingWheel;
+
+	private final ExecutorService launchExecutor;
+
+	private final ScheduleLaunchDispatcher launchDispatcher;
+
+	private final ScheduleRegistry<LocalSchedule> schedules =
+			new ScheduleRegistry<>(schedule -> schedule.request.getDefinition().getName());
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final ScheduleStore store;
+
+	private final PropertyMapInterner interner;
+
+	private final ScheduleEventPublisher events;
+
+	public LocalScheduler(ScheduleLauncher launcher) {
+		this(launcher, new LocalSchedulerProperties());
+	}
+
+	public LocalScheduler(ScheduleLauncher launcher, LocalSchedulerProperties properties) {
+		this(launcher, properties, new DefaultResourceLoader());
+	}
+
+	/**
+	 * @param launcher launches the schedules when they fire.
+	 * @param properties the configuration of the scheduler.
+	 * @param resourceLoader resolves the resources of the schedules recovered from the
+	 * store directory.
+	 */
+	public LocalScheduler(ScheduleLauncher launcher, LocalSchedulerProperties properties,
+			ResourceLoader resourceLoader) {
+		Assert.notNull(launcher, "launcher must not be null");
+		Assert.notNull(properties, "properties must not be null");
+		Assert.notNull(resourceLoader, "resourceLoader must not be null");
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			this.locks[i] = new Object();
+		}
+		this.interner = properties.isInternScheduleProperties() ? new PropertyMapInterner() : null;
+		this.timeZone = properties.getTimeZone().toZoneId();
+		this.timingWheel = new HierarchicalTimingWheel(properties.getTickDuration().toMillis(),
+				"local-scheduler-timer");
+		this.launchExecutor = properties.isUseVirtualThreads()
+				? LaunchExecutors.newVirtualThreadExecutor("local-scheduler-launch-")
+				: LaunchExecutors.newPlatformThreadExecutor("local-scheduler-launch-");
+		this.events = new ScheduleEventPublisher(properties.getEventHistorySize(), this.launchExecutor);
+		this.launchDispatcher = new ScheduleLaunchDispatcher(this.launchExecutor, launcher,
+				properties.getMaxConcurrentLaunchesPerTaskDefinition(),
+				properties.getMaxPendingLaunchesPerTaskDefinition());
+		if (properties.getStoreDirectory() != null) {
+			this.store = new ScheduleStore(properties.getStoreDirectory().toPath(), resourceLoader,
+					properties.getSnapshotThreshold(), this::scheduleRequests);
+			recover();
+		}
+		else {
+			this.store = null;
+		}
+	}
+
+	@Override
+	public void schedule(ScheduleRequest scheduleRequest) {
+		Assert.notNull(scheduleRequest, "scheduleRequest must not be null");
+		if (this.interner != null) {
+			scheduleRequest = this.interner.intern(scheduleRequest);
+		}
+		String scheduleName = scheduleRequest.getScheduleName();
+		CronExpression cronExpression = CronExpression.compile(scheduleRequest);
+		LocalSchedule schedule = new LocalSchedule(scheduleRequest, cronExpression,
+				ScheduleSpread.offsetMillis(scheduleRequest));
+		synchronized (lockFor(scheduleName)) {
+			if (this.schedules.contains(scheduleName)) {
+				throw new CreateScheduleException(scheduleName,
+						new IllegalStateException(String.format("Schedule %s already exists", scheduleName)));
+			}
+			Runnable register = () -> this.schedules.putIfAbsent(scheduleName, schedule);
+			if (this.store != null) {
+				try {
+					this.store.appendSchedule(scheduleRequest, register);
+				}
+				catch (IOException | RuntimeException e) {
+					throw new CreateScheduleException(scheduleName, e);
+				}
+			}
+			else {
+				register.run();
+			}
+			arm(schedule, System.currentTimeMillis() - schedule.spreadOffsetMillis);
+			this.events.publish(ScheduleEvent.Type.CREATED, toScheduleInfo(schedule));
+		}
+		logger.debug(String.format("Scheduled %s", scheduleName));
+	}
+
+	@Override
+	public void unschedule(String scheduleName) {
+		synchronized (lockFor(scheduleName)) {
+			LocalSchedule schedule = this.schedules.get(scheduleName);
+			if (schedule == null) {
+				throw new UnScheduleException(String.format("schedule %s does not exist.", scheduleName));
+			}
+			Runnable deregister = () -> this.schedules.remove(scheduleName, schedule);
+			if (this.store != null) {
+				try {
+					this.store.appendUnschedule(scheduleName, deregister);
+				}
+				catch (IOException | RuntimeException e) {
+					throw new UnScheduleException(scheduleName, e);
+				}
+			}
+			else {
+				deregister.run();
+			}
+			disarm(schedule);
+			this.events.publish(ScheduleEvent.Type.DELETED, toScheduleInfo(schedule));
+		}
+		logger.debug(String.format("Unscheduled %s", scheduleName));
+	}
+
+	/**
+	 * Replaces the existing schedule atomically: the new schedule is registered and
+	 * journaled in a single step, and the existing schedule stops firing once it has been
+	 * replaced.
+	 */
+	@Override
+	public void reschedule(ScheduleRequest scheduleRequest) {
+		Assert.notNull(scheduleRequest, "scheduleRequest must not be null");
+		if (this.interner != null) {
+			scheduleRequest = this.interner.intern(scheduleRequest);
+		}
+		String scheduleName = scheduleRequest.getScheduleName();
+		CronExpression cronExpression = CronExpression.compile(scheduleRequest);
+		LocalSchedule schedule = new LocalSchedule(scheduleRequest, cronExpression,
+				ScheduleSpread.offsetMillis(scheduleRequest));
+		synchronized (lockFor(scheduleName)) {
+			LocalSchedule current = this.schedules.get(scheduleName);
+			if (current == null) {
+				throw new UnScheduleException(String.format("schedule %s does not exist.", scheduleName));
+			}
+			Runnable replace = () -> this.schedules.replace(scheduleName, current, schedule);
+			if (this.store != null) {
+				try {
+					// replaying a schedule record replaces any schedule of the same name
+					this.store.appendSchedule(scheduleRequest, replace);
+				}
+				catch (IOException | RuntimeException e) {
+					throw new CreateScheduleException(scheduleName, e);
+				}
+			}
+			else {
+				replace.run();
+			}
+			disarm(current);
+			arm(schedule, System.currentTimeMillis() - schedule.spreadOffsetMillis);
+			this.events.publish(ScheduleEvent.Type.UPDATED, toScheduleInfo(schedule));
+		}
+		logger.debug(String.format("Rescheduled %s", scheduleName));
+	}
+
+	@Override
+	public List<ScheduleInfo> list(String taskDefinitionName) {
+		List<ScheduleInfo> result = new ArrayList<>();
+		for (LocalSchedule schedule : this.schedules.getByTaskDefinition(taskDefinitionName)) {
+			result.add(toScheduleInfo(schedule));
+		}
+		return result;
+	}
+
+	@Override
+	public List<ScheduleInfo> list() {
+		List<ScheduleInfo> result = new ArrayList<>(this.schedules.size());
+		for (LocalSchedule schedule : this.schedules.getAll()) {
+			result.add(toScheduleInfo(schedule));
+		}
+		return result;
+	}
+
+	@Override
+	public Optional<ScheduleInfo> get(String scheduleName) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		LocalSchedule schedule = this.schedules.get(scheduleName);
+		return schedule != null ? Optional.of(toScheduleInfo(schedule)) : Optional.empty();
+	}
+
+	@Override
+	public boolean exists(String scheduleName) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		return this.schedules.contains(scheduleName);
+	}
+
+	@Override
+	public long getLatestSequence() {
+		return this.events.getLatestSequence();
+	}
+
+	@Override
+	public ScheduleSubscription watch(long afterSequence, ScheduleEventListener listener) {
+		return this.events.watch(afterSequence, listener);
+	}
+
+	/**
+	 * Stops firing schedules.  Launches that are in progress are allowed to complete.
+	 */
+	@Override
+	public void close() {
+		this.timingWheel.close();
+		this.launchExecutor.shutdown();
+		if (this.store != null) {
+			try {
+				this.store.close();
+			}
+			catch (IOException e) {
+				logger.warn("Failed to close the schedule store", e);
+			}
+		}
+	}
+
+	/**
+	 * Registers and arms the schedules persisted in the store.
+	 */
+	private void recover() {
+		Collection<ScheduleRequest> scheduleRequests;
+		try {
+			scheduleRequests = this.store.recover();
+		}
+		catch (IOException e) {
+			close();
+			throw new SchedulerException("Failed to recover schedules from the schedule store", e);
+		}
+		long now = System.currentTimeMillis();
+		for (ScheduleRequest scheduleRequest : scheduleRequests) {
+			if (this.interner != null) {
+				scheduleRequest = this.interner.intern(scheduleRequest);
+			}
+			LocalSchedule schedule = new LocalSchedule(scheduleRequest, CronExpression.compile(scheduleRequest),
+					ScheduleSpread.offsetMillis(scheduleRequest));
+			this.schedules.putIfAbsent(scheduleRequest.getScheduleName(), schedule);
+			arm(schedule, now - schedule.spreadOffsetMillis);
+		}
+		logger.info(String.format("Recovered %d schedules", scheduleRequests.size()));
+	}
+
+	private Collection<ScheduleRequest> scheduleRequests() {
+		List<ScheduleRequest> result = new ArrayList<>(this.schedules.size());
+		for (LocalSchedule schedule : this.schedules.getAll()) {
+			result.add(schedule.request);
+		}
+		return result;
+	}
+
+	private Object lockFor(String scheduleName) {
+		int hash = scheduleName.hashCode();
+		return this.locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+	}
+
+	/**
+	 * Registers the first fire time of the cron expression after the specified time,
+	 * delayed by the spread offset of the schedule, with the timing wheel.  Called while
+	 * holding the lock of the schedule name, so that the schedule cannot be removed
+	 * before its timeout is recorded.
+	 */
+	private void arm(LocalSchedule schedule, long after) {
+		long next = schedule.cronExpression.nextFireTime(after, this.timeZone);
+		if (next == -1) {
+			logger.warn(String.format("Schedule %s will never fire, its cron expression '%s' does not match any date",
+					schedule.request.getScheduleName(), schedule.cronExpression));
+			return;
+		}
+		schedule.timeout = this.timingWheel.schedule(next + schedule.spreadOffsetMillis,
+				() -> fire(schedule, next));
+	}
+
+	private void disarm(LocalSchedule schedule) {
+		HierarchicalTimingWheel.Timeout timeout = schedule.timeout;
+		if (timeout != null) {
+			timeout.cancel();
+		}
+	}
+
+	private void fire(LocalSchedule schedule, long fireTime) {
+		String scheduleName = schedule.request.getScheduleName();
+		synchronized (lockFor(scheduleName)) {
+			if (this.schedules.get(scheduleName) != schedule) {
+				// the schedule was removed while its timeout was expiring
+				return;
+			}
+			arm(schedule, fireTime);
+		}
+		this.launchDispatcher.dispatch(schedule.request);
+	}
+
+	/**
+	 * Returns a new, modifiable {@link ScheduleInfo}, so callers may treat the results of
+	 * {@link #list()} as beans.
+	 */
+	private ScheduleInfo toScheduleInfo(LocalSchedule schedule) {
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(schedule.request.getScheduleName());
+		scheduleInfo.setTaskDefinitionName(schedule.request.getDefinition().getName());
+		scheduleInfo.setScheduleProperties(new HashMap<>(schedule.request.getSchedulerProperties()));
+		return scheduleInfo;
+	}
+
+	/**
+	 * A registered schedule and the handle of its next fire time.
+	 */
+	private static class LocalSchedule {
+
+		private final ScheduleRequest request;
+
+		private final CronExpression cronExpression;
+
+		private final long spreadOffsetMillis;
+
+		private volatile HierarchicalTimingWheel.Timeout timeout;
+
+		private LocalSchedule(ScheduleRequest request, CronExpression cronExpression, long spreadOffsetMillis) {
+			this.request = request;
+			this.cronExpression = cronExpression;
+			this.spreadOffsetMillis = spreadOffsetMillis;
+		}
+	}
+}
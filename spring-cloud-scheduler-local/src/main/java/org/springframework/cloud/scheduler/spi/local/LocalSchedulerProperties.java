@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.TimeZone;
+
+/**
+ * Configuration properties for the {@link LocalScheduler}.
+ *
+ * @author agent
+ */
+public class LocalSchedulerProperties {
+
+	/**
+	 * Top level prefix for local scheduler configuration properties.
+	 */
+	public static final String PREFIX = "spring.cloud.scheduler.local";
+
+	/**
+	 * The resolution of the timing wheel that fires the schedules.
+	 */
+	private Duration tickDuration = Duration.ofMillis(100);
+
+	/**
+	 * The time zone in which cron expressions are evaluated.
+	 */
+	private TimeZone timeZone = TimeZone.getTimeZone("UTC");
+
+	/**
+	 * Whether launches run on virtual threads, when the JVM supports them, rather than
+	 * on a pool of platform threads.
+	 */
+	private boolean useVirtualThreads = true;
+
+	/**
+	 * The maximum number of launches of the same task definition that may run at the
+	 * same time, zero or less for no limit.  Launches beyond the limit are queued.
+	 */
+	private int maxConcurrentLaunchesPerTaskDefinition = 0;
+
+	/**
+	 * The maximum number of launches of the same task definition that may be queued
+	 * behind the concurrent launches.  Once reached, the oldest queued launch is dropped.
+	 */
+	private int maxPendingLaunchesPerTaskDefinition = ScheduleLaunchDispatcher.DEFAULT_MAX_PENDING_LAUNCHES_PER_TASK_DEFINITION;
+
+	/**
+	 * The directory in which schedules are persisted so that they survive a restart,
+	 * or {@code null} to keep schedules in memory only.
+	 */
+	private File storeDirectory;
+
+	/**
+	 * The number of journal records after which a snapshot of the schedules is written
+	 * and the journal is compacted.
+	 */
+	private int snapshotThreshold = 10000;
+
+	/**
+	 * Whether schedules with identical definitions and properties share a single
+	 * immutable copy of them, reducing the memory used by large numbers of schedules.
+	 */
+	private boolean internScheduleProperties = true;
+
+	/**
+	 * The number of most recent schedule events retained so that watchers can resume
+	 * from them.
+	 */
+	private int eventHistorySize = 1000;
+
+	public Duration getTickDuration() {
+		return tickDuration;
+	}
+
+	public void setTickDuration(Duration tickDuration) {
+		this.tickDuration = tickDuration;
+	}
+
+	public TimeZone getTimeZone() {
+		return timeZone;
+	}
+
+	public void setTimeZone(TimeZone timeZone) {
+		this.timeZone = timeZone;
+	}
+
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	public void setUseVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+
+	public int getMaxConcurrentLaunchesPerTaskDefinition() {
+		return maxConcurrentLaunchesPerTaskDefinition;
+	}
+
+	public void setMaxConcurrentLaunchesPerTaskDefinition(int maxConcurrentLaunchesPerTaskDefinition) {
+		this.maxConcurrentLaunchesPerTaskDefinition = maxConcurrentLaunchesPerTaskDefinition;
+	}
+
+	public int getMaxPendingLaunchesPerTaskDefinition() {
+		return maxPendingLaunchesPerTaskDefinition;
+	}
+
+	public void setMaxPendingLaunchesPerTaskDefinition(int maxPendingLaunchesPerTaskDefinition) {
+		this.maxPendingLaunchesPerTaskDefinition = maxPendingLaunchesPerTaskDefinition;
+	}
+
+	public File getStoreDirectory() {
+		return storeDirectory;
+	}
+
+	public void setStoreDirectory(File storeDirectory) {
+		this.storeDirectory = storeDirectory;
+	}
+
+	public int getSnapshotThreshold() {
+		return snapshotThreshold;
+	}
+
+	public void setSnapshotThreshold(int snapshotThreshold) {
+		this.snapshotThreshold = snapshotThreshold;
+	}
+
+	public boolean isInternScheduleProperties() {
+		return internScheduleProperties;
+	}
+
+	public void setInternScheduleProperties(boolean internScheduleProperties) {
+		this.internScheduleProperties = internScheduleProperties;
+	}
+
+	public int getEventHistorySize() {
+		return eventHistorySize;
+	}
+
+	public void setEventHistorySize(int eventHistorySize) {
+		this.eventHistorySize = eventHistorySize;
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.util.Assert;
+
+/**
+ * Runs the launches of fired schedules on an {@link Executor}, limiting the number of
+ * launches of the same task definition that run at the same time.  Launches that
+ * exceed the limit are queued, without occupying a thread, and started in the order
+ * they were fired as the running launches of the task definition complete.
+ *
+ * The number of queued launches of a task definition is bounded as well.  When a
+ * launch is fired while the queue is full the oldest queued launch is dropped, so a
+ * task definition whose launches cannot keep up with its schedules catches up with the
+ * most recent fires rather than working through a growing backlog of stale ones.
+ *
+ * @author agent
+ */
+public class ScheduleLaunchDispatcher {
+
+	/**
+	 * The default maximum number of queued launches per task definition.
+	 */
+	public static final int DEFAULT_MAX_PENDING_LAUNCHES_PER_TASK_DEFINITION = 1000;
+
+	private static final Log logger = LogFactory.getLog(ScheduleLaunchDispatcher.class);
+
+	private final Executor executor;
+
+	private final ScheduleLauncher launcher;
+
+	private final int maxConcurrentLaunchesPerTaskDefinition;
+
+	private final int maxPendingLaunchesPerTaskDefinition;
+
+	private final ConcurrentMap<String, LaunchQueue> launchQueues = new ConcurrentHashMap<>();
+
+	/**
+	 * @param executor the executor the launches are run on.
+	 * @param launcher the launcher invoked for each fired schedule.
+	 * @param maxConcurrentLaunchesPerTaskDefinition the maximum number of launches of
+	 * the same task definition that may run at the same time, zero or less for no limit.
+	 */
+	public ScheduleLaunchDispatcher(Executor executor, ScheduleLauncher launcher,
+			int maxConcurrentLaunchesPerTaskDefinition) {
+		this(executor, launcher, maxConcurrentLaunchesPerTaskDefinition,
+				DEFAULT_MAX_PENDING_LAUNCHES_PER_TASK_DEFINITION);
+	}
+
+	/**
+	 * @param executor the executor the launches are run on.
+	 * @param launcher the launcher invoked for each fired schedule.
+	 * @param maxConcurrentLaunchesPerTaskDefinition the maximum number of launches of
+	 * the same task definition that may run at the same time, zero or less for no limit.
+	 * @param maxPendingLaunchesPerTaskDefinition the maximum number of launches of the
+	 * same task definition that may wait for a running launch to complete.
+	 */
+	public ScheduleLaunchDispatcher(Executor executor, ScheduleLauncher launcher,
+			int maxConcurrentLaunchesPerTaskDefinition, int maxPendingLaunchesPerTaskDefinition) {
+		Assert.notNull(executor, "executor must not be null");
+		Assert.notNull(launcher, "launcher must not be null");
+		Assert.isTrue(maxPendingLaunchesPerTaskDefinition > 0,
+				"maxPendingLaunchesPerTaskDefinition must be greater than zero");
+		this.executor = executor;
+		this.launcher = launcher;
+		this.maxConcurrentLaunchesPerTaskDefinition = maxConcurrentLaunchesPerTaskDefinition;
+		this.maxPendingLaunchesPerTaskDefinition = maxPendingLaunchesPerTaskDefinition;
+	}
+
+	/**
+	 * Launches the request on the executor, or queues it if the maximum number of
+	 * launches of its task definition are already running.  If the queue is full, the
+	 * oldest queued launch is dropped to make room for the request.
+	 *
+	 * @param scheduleRequest the request of the schedule that fired.
+	 */
+	public void dispatch(ScheduleRequest scheduleRequest) {
+		if (this.maxConcurrentLaunchesPerTaskDefinition <= 0) {
+			execute(() -> launch(scheduleRequest));
+			return;
+		}
+		String taskDefinitionName = scheduleRequest.getDefinition().getName();
+		ScheduleRequest dropped = null;
+		while (true) {
+			LaunchQueue launchQueue = this.launchQueues.computeIfAbsent(taskDefinitionName, key -> new LaunchQueue());
+			synchronized (launchQueue) {
+				if (launchQueue.retired) {
+					// the queue was removed after it was retrieved, retrieve its replacement
+					continue;
+				}
+				if (launchQueue.running >= this.maxConcurrentLaunchesPerTaskDefinition) {
+					if (launchQueue.pending.size() >= this.maxPendingLaunchesPerTaskDefinition) {
+						dropped = launchQueue.pending.poll();
+					}
+					launchQueue.pending.add(scheduleRequest);
+					break;
+				}
+				launchQueue.running++;
+			}
+			executeLimited(taskDefinitionName, launchQueue, scheduleRequest);
+			return;
+		}
+		if (dropped != null) {
+			logger.warn(String.format("Dropped the launch of schedule %s, %d launches of task definition %s are already queued",
+					dropped.getScheduleName(), this.maxPendingLaunchesPerTaskDefinition, taskDefinitionName));
+		}
+	}
+
+	/**
+	 * @param taskDefinitionName the name of the task definition.
+	 * @return the number of launches of the task definition that are waiting for a
+	 * running launch to complete.
+	 */
+	public int getPendingLaunches(String taskDefinitionName) {
+		LaunchQueue launchQueue = this.launchQueues.get(taskDefinitionName);
+		if (launchQueue == null) {
+			return 0;
+		}
+		synchronized (launchQueue) {
+			return launchQueue.pending.size();
+		}
+	}
+
+	private void executeLimited(String taskDefinitionName, LaunchQueue launchQueue, ScheduleRequest scheduleRequest) {
+		boolean submitted = execute(() -> {
+			try {
+				launch(scheduleRequest);
+			}
+			finally {
+				launchCompleted(taskDefinitionName, launchQueue);
+			}
+		});
+		if (!submitted) {
+			launchRejected(taskDefinitionName, launchQueue);
+		}
+	}
+
+	private void launchCompleted(String taskDefinitionName, LaunchQueue launchQueue) {
+		ScheduleRequest next;
+		synchronized (launchQueue) {
+			next = launchQueue.pending.poll();
+			if (next == null) {
+				releaseSlot(taskDefinitionName, launchQueue);
+				return;
+			}
+		}
+		executeLimited(taskDefinitionName, launchQueue, next);
+	}
+
+	/**
+	 * Discards the launches waiting for the task definition once the executor rejects a
+	 * launch, which happens when it has been shut down.  Submitting them one at a time
+	 * would only see each of them rejected in turn.
+	 */
+	private void launchRejected(String taskDefinitionName, LaunchQueue launchQueue) {
+		int discarded;
+		synchronized (launchQueue) {
+			discarded = launchQueue.pending.size();
+			launchQueue.pending.clear();
+			releaseSlot(taskDefinitionName, launchQueue);
+		}
+		if (discarded > 0) {
+			logger.warn(String.format("Discarded %d pending launches of task definition %s, the scheduler is shutting down",
+					discarded, taskDefinitionName));
+		}
+	}
+
+	/**
+	 * Releases the slot of a launch, removing the queue once no launch is running.  Must
+	 * be called while holding the lock of the queue.
+	 */
+	private void releaseSlot(String taskDefinitionName, LaunchQueue launchQueue) {
+		launchQueue.running--;
+		if (launchQueue.running == 0) {
+			launchQueue.retired = true;
+			this.launchQueues.remove(taskDefinitionName, launchQueue);
+		}
+	}
+
+	private boolean execute(Runnable launch) {
+		try {
+			this.executor.execute(launch);
+			return true;
+		}
+		catch (RejectedExecutionException e) {
+			logger.warn("Launch rejected, the scheduler is shutting down", e);
+			return false;
+		}
+	}
+
+	private void launch(ScheduleRequest scheduleRequest) {
+		try {
+			this.launcher.launch(scheduleRequest);
+		}
+		catch (Exception e) {
+			logger.error(String.format("Failed to launch schedule %s", scheduleRequest.getScheduleName()), e);
+		}
+	}
+
+	/**
+	 * The launches of a task definition that are running or waiting to run.
+	 */
+	private static class LaunchQueue {
+
+		private final Queue<ScheduleRequest> pending = new ArrayDeque<>();
+
+		private int running;
+
+		private boolean retired;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+
+/**
+ * Callback invoked by the {@link LocalScheduler} each time a schedule fires.  A
+ * typical implementation launches the task described by the request, for example
+ * through a {@code TaskLauncher}.
+ *
+ * @author agent
+ */
+@FunctionalInterface
+public interface ScheduleLauncher {
+
+	/**
+	 * Launches the application described by the {@link ScheduleRequest} whose schedule
+	 * has fired.
+	 *
+	 * @param scheduleRequest the request that was registered for the schedule.
+	 */
+	void launch(ScheduleRequest scheduleRequest);
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.support.ScheduleCodec;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.Assert;
+
+/**
+ * Persists the schedules of a {@link LocalScheduler} in a directory so that they
+ * survive a restart.  Schedules are encoded with a {@link ScheduleCodec}.
+ *
+ * Each {@code schedule} and {@code unschedule} operation is appended to a
+ * {@link JournalSegment} and forced to storage before the operation is acknowledged.
+ * Concurrent operations share a single force, the first caller to force the journal
+ * makes the records appended by the others durable as well.  Once a configurable number
+ * of records has been appended, the current schedules are written to a snapshot on a
+ * background thread and the journal segments the snapshot supersedes are deleted.  The
+ * snapshot is written to a temporary file that is atomically renamed, so a crash leaves
+ * either the previous or the new snapshot in place.
+ *
+ * An operation may pass a callback that applies it to the state the snapshots are
+ * taken from.  The callback runs once the record is durable, and a snapshot is never
+ * taken between appending a record and applying it, so a snapshot neither misses an
+ * acknowledged operation nor captures one whose record could not be written.
+ *
+ * Recovery loads the snapshot and replays the journal segments written after it.
+ * Replaying is idempotent, a record for a schedule that is already in the state being
+ * recovered replaces it, so segments that were written while a snapshot was being taken
+ * may safely be replayed on top of it.
+ *
+ * @author agent
+ */
+public class ScheduleStore implements Closeable {
+
+	static final byte SCHEDULE_RECORD = 1;
+
+	static final byte UNSCHEDULE_RECORD = 2;
+
+	private static final int SNAPSHOT_MAGIC = 0x53434853;
+
+	private static final int SNAPSHOT_VERSION = 2;
+
+	private static final String SNAPSHOT_FILE = "snapshot";
+
+	private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+
+	private static final String JOURNAL_PREFIX = "journal-";
+
+	private static final String JOURNAL_SUFFIX = ".log";
+
+	private static final int INITIAL_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+	private static final Log logger = LogFactory.getLog(ScheduleStore.class);
+
+	private final Path directory;
+
+	private final ScheduleCodec codec;
+
+	private final int snapshotThreshold;
+
+	private final Supplier<Collection<ScheduleRequest>> snapshotSource;
+
+	private final ExecutorService snapshotExecutor;
+
+	private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+
+	/**
+	 * Serializes snapshots, so that the latest snapshot always supersedes the segments
+	 * that have been deleted.
+	 */
+	private final Object snapshotLock = new Object();
+
+	/**
+	 * Held shared while an operation is appended and applied, and exclusively while a
+	 * snapshot captures the current schedules.  Acquired before the sync lock.
+	 */
+	private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Guards the current segment and the counts of appended records.  When both locks
+	 * are needed the sync lock is acquired first.
+	 */
+	private final Object appendLock = new Object();
+
+	/**
+	 * Serializes forcing the journal to storage.
+	 */
+	private final Object syncLock = new Object();
+
+	private JournalSegment segment;
+
+	private long appendedRecords;
+
+	private long recordsSinceSnapshot;
+
+	private volatile long syncedRecords;
+
+	/**
+	 * @param directory the directory holding the snapshot and the journal segments.
+	 * @param resourceLoader resolves the resources of the recovered schedules.
+	 * @param snapshotThreshold the number of records after which a snapshot is taken.
+	 * @param snapshotSource supplies the current schedules when a snapshot is taken.
+	 */
+	public ScheduleStore(Path directory, ResourceLoader resourceLoader, int snapshotThreshold,
+			Supplier<Collection<ScheduleRequest>> snapshotSource) {
+		Assert.notNull(directory, "directory must not be null");
+		Assert.notNull(resourceLoader, "resourceLoader must not be null");
+		Assert.isTrue(snapshotThreshold > 0, "snapshotThreshold must be greater than zero");
+		Assert.notNull(snapshotSource, "snapshotSource must not be null");
+		this.directory = directory;
+		this.codec = new ScheduleCodec(resourceLoader);
+		this.snapshotThreshold = snapshotThreshold;
+		this.snapshotSource = snapshotSource;
+		this.snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "local-scheduler-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Loads the persisted schedules and opens a new journal segment for the operations
+	 * that follow.  Must be called once before any operation is appended.
+	 *
+	 * @return the persisted schedules.
+	 * @throws IOException if the schedules could not be read.
+	 */
+	public Collection<ScheduleRequest> recover() throws IOException {
+		Files.createDirectories(this.directory);
+		Map<String, ScheduleRequest> schedules = new LinkedHashMap<>();
+		long snapshotGeneration = readSnapshot(schedules);
+		long lastGeneration = snapshotGeneration - 1;
+		long replayedRecords = 0;
+		for (Path journal : listJournals()) {
+			long generation = generationOf(journal);
+			if (generation < snapshotGeneration) {
+				// superseded by the snapshot, left behind by a crash before it was deleted
+				Files.delete(journal);
+				continue;
+			}
+			long[] records = new long[1];
+			JournalSegment.read(journal, (type, body, offset, length) -> {
+				replay(schedules, type, body, offset, length);
+				records[0]++;
+			});
+			if (records[0] == 0) {
+				Files.delete(journal);
+			}
+			replayedRecords += records[0];
+			lastGeneration = Math.max(lastGeneration, generation);
+		}
+		synchronized (this.syncLock) {
+			synchronized (this.appendLock) {
+				Assert.state(this.segment == null, "schedule store has already been recovered");
+				this.segment = JournalSegment.create(journalPath(lastGeneration + 1), lastGeneration + 1,
+						INITIAL_SEGMENT_SIZE);
+				this.recordsSinceSnapshot = replayedRecords;
+			}
+		}
+		logger.debug(String.format("Recovered %d schedules from %s, replaying %d journal records",
+				schedules.size(), this.directory, replayedRecords));
+		return schedules.values();
+	}
+
+	/**
+	 * Durably records that a schedule has been created.
+	 *
+	 * @param scheduleRequest the request of the schedule.
+	 * @throws IOException if the record could not be written.
+	 */
+	public void appendSchedule(ScheduleRequest scheduleRequest) throws IOException {
+		appendSchedule(scheduleRequest, null);
+	}
+
+	/**
+	 * Durably records that a schedule has been created and applies the change to the
+	 * snapshot source before a snapshot can be taken.
+	 *
+	 * @param scheduleRequest the request of the schedule.
+	 * @param apply applies the change once it is durable, may be {@code null}.
+	 * @throws IOException if the record could not be written, the change is not
+	 * applied.
+	 */
+	public void appendSchedule(ScheduleRequest scheduleRequest, Runnable apply) throws IOException {
+		byte[] payload;
+		try {
+			payload = this.codec.encode(scheduleRequest);
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		append(SCHEDULE_RECORD, payload, apply);
+	}
+
+	/**
+	 * Durably records that a schedule has been removed.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @throws IOException if the record could not be written.
+	 */
+	public void appendUnschedule(String scheduleName) throws IOException {
+		appendUnschedule(scheduleName, null);
+	}
+
+	/**
+	 * Durably records that a schedule has been removed and applies the change to the
+	 * snapshot source before a snapshot can be taken.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @param apply applies the change once it is durable, may be {@code null}.
+	 * @throws IOException if the record could not be written, the change is not
+	 * applied.
+	 */
+	public void appendUnschedule(String scheduleName, Runnable apply) throws IOException {
+		append(UNSCHEDULE_RECORD, scheduleName.getBytes(StandardCharsets.UTF_8), apply);
+	}
+
+	/**
+	 * Writes a snapshot of the current schedules and deletes the journal segments it
+	 * supersedes.
+	 *
+	 * @throws IOException if the snapshot could not be written.
+	 */
+	public void snapshot() throws IOException {
+		synchronized (this.snapshotLock) {
+			doSnapshot();
+		}
+	}
+
+	/**
+	 * Waits for a snapshot in progress to complete and closes the journal.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.snapshotExecutor.shutdown();
+		try {
+			this.snapshotExecutor.awaitTermination(30, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this.syncLock) {
+			synchronized (this.appendLock) {
+				if (this.segment != null) {
+					this.segment.force();
+					this.segment.close();
+					this.segment = null;
+				}
+			}
+		}
+	}
+
+	private void doSnapshot() throws IOException {
+		List<ScheduleRequest> schedules;
+		JournalSegment previous;
+		long generation;
+		this.commitLock.writeLock().lock();
+		try {
+			synchronized (this.syncLock) {
+				synchronized (this.appendLock) {
+					Assert.state(this.segment != null, "schedule store is not open");
+					// no operation is between appending and applying its record, so the
+					// schedules reflect exactly the records appended so far, later records
+					// go to the new segment
+					schedules = new ArrayList<>(this.snapshotSource.get());
+					previous = this.segment;
+					previous.force();
+					this.syncedRecords = this.appendedRecords;
+					generation = previous.getGeneration() + 1;
+					this.segment = JournalSegment.create(journalPath(generation), generation, INITIAL_SEGMENT_SIZE);
+					this.recordsSinceSnapshot = 0;
+				}
+			}
+		}
+		finally {
+			this.commitLock.writeLock().unlock();
+		}
+		previous.close();
+		writeSnapshot(schedules, generation);
+		for (Path journal : listJournals()) {
+			if (generationOf(journal) < generation) {
+				Files.deleteIfExists(journal);
+			}
+		}
+		logger.debug(String.format("Wrote snapshot of %d schedules to %s", schedules.size(), this.directory));
+	}
+
+	private void append(byte type, byte[] payload, Runnable apply) throws IOException {
+		boolean snapshotDue;
+		this.commitLock.readLock().lock();
+		try {
+			long sequence;
+			synchronized (this.appendLock) {
+				Assert.state(this.segment != null, "schedule store is not open");
+				this.segment.append(type, payload);
+				sequence = ++this.appendedRecords;
+				snapshotDue = ++this.recordsSinceSnapshot >= this.snapshotThreshold;
+			}
+			sync(sequence);
+			if (apply != null) {
+				apply.run();
+			}
+		}
+		finally {
+			this.commitLock.readLock().unlock();
+		}
+		if (snapshotDue) {
+			scheduleSnapshot();
+		}
+	}
+
+	/**
+	 * Forces the journal to storage unless another caller already forced it after the
+	 * record with the specified sequence was appended.
+	 */
+	private void sync(long sequence) {
+		if (this.syncedRecords >= sequence) {
+			return;
+		}
+		synchronized (this.syncLock) {
+			if (this.syncedRecords >= sequence) {
+				return;
+			}
+			JournalSegment segment;
+			long appended;
+			synchronized (this.appendLock) {
+				segment = this.segment;
+				appended = this.appendedRecords;
+			}
+			segment.force();
+			this.syncedRecords = appended;
+		}
+	}
+
+	private void scheduleSnapshot() {
+		if (!this.snapshotScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.snapshotExecutor.execute(() -> {
+				try {
+					snapshot();
+				}
+				catch (IOException | RuntimeException e) {
+					logger.warn(String.format("Failed to write snapshot to %s", this.directory), e);
+				}
+				finally {
+					this.snapshotScheduled.set(false);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			// the store is being closed
+			this.snapshotScheduled.set(false);
+		}
+	}
+
+	private void replay(Map<String, ScheduleRequest> schedules, byte type, byte[] body, int offset, int length)
+			throws IOException {
+		switch (type) {
+			case SCHEDULE_RECORD:
+				ScheduleRequest scheduleRequest = decode(body, offset, length);
+				schedules.put(scheduleRequest.getScheduleName(), scheduleRequest);
+				break;
+			case UNSCHEDULE_RECORD:
+				schedules.remove(new String(body, offset, length, StandardCharsets.UTF_8));
+				break;
+			default:
+				throw new IOException(String.format("Unknown journal record type %d", type));
+		}
+	}
+
+	private void writeSnapshot(List<ScheduleRequest> schedules, long generation) throws IOException {
+		Path temp = this.directory.resolve(SNAPSHOT_TEMP_FILE);
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeLong(generation);
+			out.writeInt(schedules.size());
+			CRC32 crc = new CRC32();
+			for (ScheduleRequest scheduleRequest : schedules) {
+				byte[] body = this.codec.encode(scheduleRequest);
+				crc.reset();
+				crc.update(body, 0, body.length);
+				out.writeInt(body.length);
+				out.writeInt((int) crc.getValue());
+				out.write(body);
+			}
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(temp, this.directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		forceDirectory();
+	}
+
+	/**
+	 * Reads the snapshot into the specified map.
+	 *
+	 * @return the generation of the first journal segment that is not included in the
+	 * snapshot.
+	 */
+	private long readSnapshot(Map<String, ScheduleRequest> schedules) throws IOException {
+		Path path = this.directory.resolve(SNAPSHOT_FILE);
+		if (!Files.exists(path)) {
+			return 0;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+		if (buffer.remaining() < 20 || buffer.getInt() != SNAPSHOT_MAGIC) {
+			throw new IOException(String.format("%s is not a schedule snapshot", path));
+		}
+		int version = buffer.getInt();
+		if (version != SNAPSHOT_VERSION) {
+			throw new IOException(String.format("%s has unsupported snapshot version %d", path, version));
+		}
+		long generation = buffer.getLong();
+		int count = buffer.getInt();
+		for (int i = 0; i < count; i++) {
+			byte[] body = JournalSegment.readRecord(buffer);
+			if (body == null) {
+				throw new IOException(String.format("%s is corrupt at schedule %d", path, i));
+			}
+			ScheduleRequest scheduleRequest = decode(body, 0, body.length);
+			schedules.put(scheduleRequest.getScheduleName(), scheduleRequest);
+		}
+		return generation;
+	}
+
+	private ScheduleRequest decode(byte[] bytes, int offset, int length) throws IOException {
+		try {
+			return this.codec.decodeScheduleRequest(bytes, offset, length);
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Makes the rename of the snapshot durable, where the platform supports it.
+	 */
+	private void forceDirectory() {
+		try (FileChannel channel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+		catch (IOException e) {
+			logger.debug(String.format("Unable to force directory %s", this.directory), e);
+		}
+	}
+
+	private List<Path> listJournals() throws IOException {
+		try (Stream<Path> files = Files.list(this.directory)) {
+			return files
+					.filter(path -> {
+						String name = path.getFileName().toString();
+						return name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX);
+					})
+					.sorted((first, second) -> Long.compare(generationOf(first), generationOf(second)))
+					.collect(Collectors.toList());
+		}
+	}
+
+	private Path journalPath(long generation) {
+		return this.directory.resolve(String.format("%s%016x%s", JOURNAL_PREFIX, generation, JOURNAL_SUFFIX));
+	}
+
+	private static long generationOf(Path journal) {
+		String name = journal.getFileName().toString();
+		return Long.parseUnsignedLong(
+				name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length()), 16);
+	}
+}
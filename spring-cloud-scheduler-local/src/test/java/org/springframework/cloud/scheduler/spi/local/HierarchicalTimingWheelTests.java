@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link HierarchicalTimingWheel}.  Deadlines that lie more than
+ * {@code 64} ticks ahead are stored in a higher level of the wheel and have to be
+ * cascaded before they expire.
+ *
+ * @author agent
+ */
+public class HierarchicalTimingWheelTests {
+
+	private static final long TICK_MILLIS = 5;
+
+	private final HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK_MILLIS, "test-timer");
+
+	private final List<String> expired = new CopyOnWriteArrayList<>();
+
+	@After
+	public void tearDown() {
+		this.wheel.close();
+	}
+
+	@Test
+	public void testTasksExpireInDeadlineOrderAcrossLevels() throws Exception {
+		long now = System.currentTimeMillis();
+		CountDownLatch latch = new CountDownLatch(4);
+		// 20 and 80 ms are placed in the first level, 400 and 700 ms have to be cascaded
+		this.wheel.schedule(now + 700, record("fourth", now + 700, latch));
+		this.wheel.schedule(now + 80, record("second", now + 80, latch));
+		this.wheel.schedule(now + 400, record("third", now + 400, latch));
+		this.wheel.schedule(now + 20, record("first", now + 20, latch));
+		assertThat(this.wheel.getPendingTimeouts()).isEqualTo(4);
+
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.expired).containsExactly("first", "second", "third", "fourth");
+		assertThat(this.wheel.getPendingTimeouts()).isZero();
+	}
+
+	@Test
+	public void testTaskWithPastDeadlineExpiresOnNextTick() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		HierarchicalTimingWheel.Timeout timeout = this.wheel.schedule(System.currentTimeMillis() - 1000,
+				latch::countDown);
+
+		assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(timeout.isExpired()).isTrue();
+		assertThat(timeout.cancel()).isFalse();
+	}
+
+	@Test
+	public void testCancelledTasksDoNotExpire() throws Exception {
+		long now = System.currentTimeMillis();
+		CountDownLatch latch = new CountDownLatch(1);
+		HierarchicalTimingWheel.Timeout cancelledBeforePlacement = this.wheel.schedule(now + 50,
+				() -> this.expired.add("first level"));
+		HierarchicalTimingWheel.Timeout cancelledAfterPlacement = this.wheel.schedule(now + 400,
+				() -> this.expired.add("higher level"));
+		this.wheel.schedule(now + 600, latch::countDown);
+		assertThat(cancelledBeforePlacement.cancel()).isTrue();
+		// let the wheel place the remaining timeout in its higher level bucket
+		Thread.sleep(10 * TICK_MILLIS);
+		assertThat(cancelledAfterPlacement.cancel()).isTrue();
+		assertThat(cancelledAfterPlacement.cancel()).isFalse();
+		assertThat(this.wheel.getPendingTimeouts()).isEqualTo(1);
+
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.expired).isEmpty();
+		assertThat(cancelledBeforePlacement.isCancelled()).isTrue();
+		assertThat(cancelledAfterPlacement.isCancelled()).isTrue();
+		assertThat(this.wheel.getPendingTimeouts()).isZero();
+	}
+
+	@Test
+	public void testClosedWheelRejectsTasks() {
+		this.wheel.close();
+		assertThatThrownBy(() -> this.wheel.schedule(System.currentTimeMillis(), () -> { }))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	/**
+	 * Returns a task that records its name, failing the ordering assertion by recording
+	 * a different name if it runs before its deadline.
+	 */
+	private Runnable record(String name, long deadlineMillis, CountDownLatch latch) {
+		return () -> {
+			this.expired.add(System.currentTimeMillis() < deadlineMillis ? name + " (early)" : name);
+			latch.countDown();
+		};
+	}
+}
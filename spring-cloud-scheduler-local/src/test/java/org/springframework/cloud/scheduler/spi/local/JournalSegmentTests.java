@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JournalSegment}.
+ *
+ * @author agent
+ */
+public class JournalSegmentTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testRecordsAppendedWhileForcingAndGrowingAreRead() throws Exception {
+		Path path = this.temporaryFolder.getRoot().toPath().resolve("journal-1");
+		List<String> appended = new ArrayList<>();
+		AtomicBoolean appending = new AtomicBoolean(true);
+		try (JournalSegment segment = JournalSegment.create(path, 1, 64)) {
+			CompletableFuture<Void> forcing = CompletableFuture.runAsync(() -> {
+				while (appending.get()) {
+					segment.force();
+				}
+			});
+			try {
+				// the records outgrow the initial mapping, so it is grown several times
+				for (int i = 0; i < 2000; i++) {
+					String payload = "schedule-" + i;
+					segment.append((byte) 1, payload.getBytes(StandardCharsets.UTF_8));
+					appended.add(payload);
+				}
+			}
+			finally {
+				appending.set(false);
+			}
+			forcing.get();
+			segment.force();
+		}
+
+		List<String> read = new ArrayList<>();
+		long generation = JournalSegment.read(path, (type, body, offset, length) ->
+				read.add(new String(body, offset, length, StandardCharsets.UTF_8)));
+		assertThat(generation).isEqualTo(1);
+		assertThat(read).isEqualTo(appended);
+	}
+}
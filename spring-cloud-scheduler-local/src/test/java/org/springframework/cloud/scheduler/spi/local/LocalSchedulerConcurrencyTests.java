@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import org.junit.AfterClass;
+
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.test.AbstractConcurrencyTests;
+
+/**
+ * Runs the Spring Cloud Scheduler concurrency tests against the {@link LocalScheduler}.
+ *
+ * @author agent
+ */
+public class LocalSchedulerConcurrencyTests extends AbstractConcurrencyTests {
+
+	private static final LocalScheduler scheduler = new LocalScheduler(request -> { });
+
+	@AfterClass
+	public static void closeScheduler() {
+		scheduler.close();
+	}
+
+	@Override
+	protected Scheduler provideScheduler() {
+		return scheduler;
+	}
+}
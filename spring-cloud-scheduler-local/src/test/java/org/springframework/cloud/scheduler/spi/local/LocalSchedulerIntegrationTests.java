@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.cloud.scheduler.spi.test.AbstractIntegrationTests;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the Spring Cloud Scheduler TCK against the {@link LocalScheduler}.
+ *
+ * @author agent
+ */
+public class LocalSchedulerIntegrationTests extends AbstractIntegrationTests {
+
+	private static final LocalScheduler scheduler = new LocalScheduler(request -> { });
+
+	@AfterClass
+	public static void closeScheduler() {
+		scheduler.close();
+	}
+
+	@Override
+	protected Scheduler provideScheduler() {
+		return scheduler;
+	}
+
+	@Override
+	protected Resource testApplication() {
+		return new FileSystemResource("timestamp-task.jar");
+	}
+
+	@Override
+	protected List<String> getCommandLineArgs() {
+		return null;
+	}
+
+	@Override
+	protected Map<String, String> getSchedulerProperties() {
+		return Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *");
+	}
+
+	@Override
+	protected Map<String, String> getDeploymentProperties() {
+		return null;
+	}
+
+	@Override
+	protected Map<String, String> getAppProperties() {
+		return null;
+	}
+
+	@Test
+	public void testScheduleFires() throws Exception {
+		CountDownLatch launched = new CountDownLatch(2);
+		try (LocalScheduler firingScheduler = new LocalScheduler(request -> launched.countDown())) {
+			ScheduleRequest request = new ScheduleRequest(new AppDefinition(randomName(), null),
+					Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "* * * * * *"),
+					null, scheduleName() + randomName(), testApplication());
+			firingScheduler.schedule(request);
+			assertTrue("schedule did not fire", launched.await(5, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleEvent;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleSubscription;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+import org.springframework.cloud.scheduler.spi.support.PropertyMapInterner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.scheduler.spi.test.ScheduleRequests.scheduleRequest;
+
+/**
+ * Tests for the {@link LocalScheduler}.
+ *
+ * @author agent
+ */
+public class LocalSchedulerTests {
+
+	private final LocalScheduler scheduler = new LocalScheduler(request -> { });
+
+	@After
+	public void closeScheduler() {
+		this.scheduler.close();
+	}
+
+	@Test
+	public void testListedSchedulesCanBeModified() {
+		this.scheduler.schedule(scheduleRequest("schedule-1", "task"));
+		List<ScheduleInfo> scheduleInfos = this.scheduler.list();
+		ScheduleInfo scheduleInfo = scheduleInfos.get(0);
+		scheduleInfo.setTaskDefinitionName("other");
+		scheduleInfo.getScheduleProperties().put("key", "value");
+		assertThat(new PropertyMapInterner().intern(scheduleInfo)).isSameAs(scheduleInfo);
+		// the registered schedule is not affected
+		ScheduleInfo listed = this.scheduler.list("task").get(0);
+		assertThat(listed.getTaskDefinitionName()).isEqualTo("task");
+		assertThat(listed.getScheduleProperties()).doesNotContainKey("key");
+	}
+
+	@Test
+	public void testChangesArePublished() throws InterruptedException {
+		this.scheduler.schedule(scheduleRequest("existing", "task"));
+		BlockingQueue<ScheduleEvent> events = new LinkedBlockingQueue<>();
+		long afterSequence = this.scheduler.getLatestSequence();
+		ScheduleSubscription subscription = this.scheduler.watch(events::add);
+		this.scheduler.schedule(scheduleRequest("schedule-1", "task"));
+		this.scheduler.reschedule(scheduleRequest("schedule-1", "task", "0 0 2 1 *"));
+		this.scheduler.unschedule("schedule-1");
+		// failed operations are not published
+		assertThatThrownBy(() -> this.scheduler.schedule(scheduleRequest("existing", "task")))
+				.isInstanceOf(CreateScheduleException.class);
+		assertThatThrownBy(() -> this.scheduler.unschedule("missing"))
+				.isInstanceOf(UnScheduleException.class);
+		this.scheduler.schedule(scheduleRequest("schedule-2", "task"));
+
+		List<ScheduleEvent> received = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			ScheduleEvent event = events.poll(10, TimeUnit.SECONDS);
+			assertThat(event).isNotNull();
+			received.add(event);
+		}
+		assertThat(received).extracting(ScheduleEvent::getType).containsExactly(ScheduleEvent.Type.CREATED,
+				ScheduleEvent.Type.UPDATED, ScheduleEvent.Type.DELETED, ScheduleEvent.Type.CREATED);
+		assertThat(received).extracting(event -> event.getScheduleInfo().getScheduleName())
+				.containsExactly("schedule-1", "schedule-1", "schedule-1", "schedule-2");
+		assertThat(received).extracting(ScheduleEvent::getSequence).containsExactly(
+				afterSequence + 1, afterSequence + 2, afterSequence + 3, afterSequence + 4);
+		assertThat(received.get(1).getScheduleInfo().getScheduleProperties())
+				.containsEntry(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 2 1 *");
+		subscription.close();
+
+		// the retained events can be replayed
+		BlockingQueue<ScheduleEvent> replayed = new LinkedBlockingQueue<>();
+		this.scheduler.watch(afterSequence + 2, replayed::add);
+		assertThat(replayed.poll(10, TimeUnit.SECONDS).getType()).isEqualTo(ScheduleEvent.Type.DELETED);
+	}
+}
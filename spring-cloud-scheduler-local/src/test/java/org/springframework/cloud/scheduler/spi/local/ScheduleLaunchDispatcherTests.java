@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.scheduler.spi.test.ScheduleRequests.scheduleRequest;
+
+/**
+ * Tests for {@link ScheduleLaunchDispatcher}, using an executor that runs the submitted
+ * launches only when the test asks it to.
+ *
+ * @author agent
+ */
+public class ScheduleLaunchDispatcherTests {
+
+	private final ManualExecutor executor = new ManualExecutor();
+
+	private final List<String> launched = new ArrayList<>();
+
+	@Test
+	public void testConcurrentLaunchesOfATaskDefinitionAreLimited() {
+		ScheduleLaunchDispatcher dispatcher = new ScheduleLaunchDispatcher(this.executor,
+				request -> this.launched.add(request.getScheduleName()), 2);
+		for (int i = 0; i < 5; i++) {
+			dispatcher.dispatch(scheduleRequest("schedule-" + i, "task-1"));
+		}
+		dispatcher.dispatch(scheduleRequest("other", "task-2"));
+
+		assertThat(this.executor.submitted).hasSize(3);
+		assertThat(dispatcher.getPendingLaunches("task-1")).isEqualTo(3);
+		assertThat(dispatcher.getPendingLaunches("task-2")).isZero();
+	}
+
+	@Test
+	public void testPendingLaunchesAreHandedOffInOrder() {
+		ScheduleLaunchDispatcher dispatcher = new ScheduleLaunchDispatcher(this.executor,
+				request -> this.launched.add(request.getScheduleName()), 1);
+		for (int i = 0; i < 4; i++) {
+			dispatcher.dispatch(scheduleRequest("schedule-" + i, "task"));
+		}
+		while (!this.executor.submitted.isEmpty()) {
+			assertThat(this.executor.submitted).hasSize(1);
+			this.executor.runNext();
+		}
+
+		assertThat(this.launched).containsExactly("schedule-0", "schedule-1", "schedule-2", "schedule-3");
+		assertThat(dispatcher.getPendingLaunches("task")).isZero();
+	}
+
+	@Test
+	public void testFailedLaunchReleasesItsSlot() {
+		ScheduleLaunchDispatcher dispatcher = new ScheduleLaunchDispatcher(this.executor, request -> {
+			this.launched.add(request.getScheduleName());
+			throw new IllegalStateException("launch failed");
+		}, 1);
+		dispatcher.dispatch(scheduleRequest("schedule-0", "task"));
+		dispatcher.dispatch(scheduleRequest("schedule-1", "task"));
+		this.executor.runNext();
+		this.executor.runNext();
+
+		assertThat(this.launched).containsExactly("schedule-0", "schedule-1");
+		dispatcher.dispatch(scheduleRequest("schedule-2", "task"));
+		assertThat(this.executor.submitted).hasSize(1);
+	}
+
+	@Test
+	public void testOldestPendingLaunchIsDroppedWhenTheQueueIsFull() {
+		ScheduleLaunchDispatcher dispatcher = new ScheduleLaunchDispatcher(this.executor,
+				request -> this.launched.add(request.getScheduleName()), 1, 2);
+		for (int i = 0; i < 5; i++) {
+			dispatcher.dispatch(scheduleRequest("schedule-" + i, "task"));
+		}
+		assertThat(dispatcher.getPendingLaunches("task")).isEqualTo(2);
+		while (!this.executor.submitted.isEmpty()) {
+			this.executor.runNext();
+		}
+
+		assertThat(this.launched).containsExactly("schedule-0", "schedule-3", "schedule-4");
+		assertThat(dispatcher.getPendingLaunches("task")).isZero();
+	}
+
+	@Test
+	public void testPendingLaunchesAreDiscardedOnShutdown() {
+		ScheduleLaunchDispatcher dispatcher = new ScheduleLaunchDispatcher(this.executor,
+				request -> this.launched.add(request.getScheduleName()), 1, 100000);
+		// enough launches to overflow the stack if each rejection recursed into the next
+		for (int i = 0; i < 100000; i++) {
+			dispatcher.dispatch(scheduleRequest("schedule-" + i, "task"));
+		}
+		assertThat(dispatcher.getPendingLaunches("task")).isEqualTo(99999);
+		this.executor.shutdown = true;
+		this.executor.runNext();
+
+		assertThat(this.launched).containsExactly("schedule-0");
+		assertThat(dispatcher.getPendingLaunches("task")).isZero();
+		assertThat(this.executor.submitted).isEmpty();
+	}
+
+	/**
+	 * An executor that queues the submitted tasks and rejects them once shut down.
+	 */
+	private static class ManualExecutor implements Executor {
+
+		private final Queue<Runnable> submitted = new ArrayDeque<>();
+
+		private boolean shutdown;
+
+		@Override
+		public void execute(Runnable command) {
+			if (this.shutdown) {
+				throw new RejectedExecutionException("shut down");
+			}
+			this.submitted.add(command);
+		}
+
+		private void runNext() {
+			this.submitted.poll().run();
+		}
+	}
+}
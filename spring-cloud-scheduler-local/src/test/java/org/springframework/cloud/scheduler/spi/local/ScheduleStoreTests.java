@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.local;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.cloud.scheduler.spi.support.ScheduleCodec;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.scheduler.spi.test.ScheduleRequests.scheduleRequest;
+
+/**
+ * Tests the persistence of the {@link LocalScheduler} schedules by the
+ * {@link ScheduleStore}.
+ *
+ * @author agent
+ */
+public class ScheduleStoreTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSchedulesSurviveRestart() throws IOException {
+		LocalSchedulerProperties properties = new LocalSchedulerProperties();
+		properties.setStoreDirectory(this.temporaryFolder.newFolder());
+		try (LocalScheduler scheduler = new LocalScheduler(request -> { }, properties)) {
+			scheduler.schedule(scheduleRequest("schedule-1", "task-1"));
+			scheduler.schedule(scheduleRequest("schedule-2", "task-1"));
+			scheduler.schedule(scheduleRequest("schedule-3", "task-2"));
+			scheduler.unschedule("schedule-2");
+		}
+		try (LocalScheduler scheduler = new LocalScheduler(request -> { }, properties)) {
+			assertThat(scheduleNames(scheduler.list())).containsExactlyInAnyOrder("schedule-1", "schedule-3");
+			assertThat(scheduleNames(scheduler.list("task-2"))).containsExactly("schedule-3");
+			assertThat(scheduler.list("task-1").get(0).getScheduleProperties())
+					.containsEntry(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *");
+		}
+	}
+
+	@Test
+	public void testSnapshotCompactsJournal() throws IOException {
+		Path directory = this.temporaryFolder.newFolder().toPath();
+		List<ScheduleRequest> schedules = new ArrayList<>();
+		try (ScheduleStore store = new ScheduleStore(directory, new DefaultResourceLoader(), 1000,
+				() -> new ArrayList<>(schedules))) {
+			assertThat(store.recover()).isEmpty();
+			for (int i = 0; i < 10; i++) {
+				ScheduleRequest scheduleRequest = scheduleRequest("schedule-" + i, "task");
+				schedules.add(scheduleRequest);
+				store.appendSchedule(scheduleRequest);
+			}
+			store.snapshot();
+			schedules.remove(0);
+			store.appendUnschedule("schedule-0");
+			assertThat(journals(directory)).hasSize(1);
+		}
+		try (ScheduleStore store = new ScheduleStore(directory, new DefaultResourceLoader(), 1000,
+				Collections::emptyList)) {
+			Collection<ScheduleRequest> recovered = store.recover();
+			assertThat(recovered).hasSize(9);
+			assertThat(recovered.stream().map(ScheduleRequest::getScheduleName)).doesNotContain("schedule-0");
+		}
+	}
+
+	@Test
+	public void testSnapshotWaitsForAppendedOperationToBeApplied() throws Exception {
+		Path directory = this.temporaryFolder.newFolder().toPath();
+		List<ScheduleRequest> schedules = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch applying = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (ScheduleStore store = new ScheduleStore(directory, new DefaultResourceLoader(), 1000,
+				() -> new ArrayList<>(schedules))) {
+			store.recover();
+			ScheduleRequest scheduleRequest = scheduleRequest("schedule-1", "task");
+			CompletableFuture<Void> append = CompletableFuture.runAsync(() -> {
+				try {
+					store.appendSchedule(scheduleRequest, () -> {
+						applying.countDown();
+						await(release);
+						schedules.add(scheduleRequest);
+					});
+				}
+				catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			assertThat(applying.await(10, TimeUnit.SECONDS)).isTrue();
+			CompletableFuture<Void> snapshot = CompletableFuture.runAsync(() -> {
+				try {
+					store.snapshot();
+				}
+				catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			Thread.sleep(200);
+			// the record is journaled but not yet applied to the snapshot source
+			assertThat(snapshot.isDone()).isFalse();
+			release.countDown();
+			append.get(10, TimeUnit.SECONDS);
+			snapshot.get(10, TimeUnit.SECONDS);
+		}
+		try (ScheduleStore store = new ScheduleStore(directory, new DefaultResourceLoader(), 1000,
+				Collections::emptyList)) {
+			assertThat(store.recover().stream().map(ScheduleRequest::getScheduleName))
+					.containsExactly("schedule-1");
+		}
+	}
+
+	@Test
+	public void testScheduleThatCouldNotBeJournaledIsNotRegistered() throws IOException {
+		LocalSchedulerProperties properties = new LocalSchedulerProperties();
+		properties.setStoreDirectory(this.temporaryFolder.newFolder());
+		try (LocalScheduler scheduler = new LocalScheduler(request -> { }, properties)) {
+			ScheduleRequest scheduleRequest = new ScheduleRequest(new AppDefinition("task", null),
+					Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+					null, "schedule-1", new ByteArrayResource(new byte[0]));
+			assertThatThrownBy(() -> scheduler.schedule(scheduleRequest))
+					.isInstanceOf(CreateScheduleException.class);
+			assertThat(scheduler.list()).isEmpty();
+			scheduler.schedule(scheduleRequest("schedule-1", "task"));
+			assertThat(scheduleNames(scheduler.list())).containsExactly("schedule-1");
+		}
+	}
+
+	@Test
+	public void testTornRecordIsIgnored() throws IOException {
+		Path directory = this.temporaryFolder.newFolder().toPath();
+		try (ScheduleStore store = new ScheduleStore(directory, new DefaultResourceLoader(), 1000,
+				Collections::emptyList)) {
+			store.recover();
+			store.appendSchedule(scheduleRequest("schedule-1", "task"));
+			store.appendSchedule(scheduleRequest("schedule-2", "task"));
+		}
+		Path journal = journals(directory).get(0);
+		int secondRecord = JournalSegment.HEADER_SIZE + JournalSegment.FRAME_SIZE
+				+ 1 + new ScheduleCodec().encode(scheduleRequest("schedule-1", "task")).length;
+		try (RandomAccessFile file = new RandomAccessFile(journal.toFile(), "rw")) {
+			int offset = secondRecord + JournalSegment.FRAME_SIZE + 4;
+			file.seek(offset);
+			int value = file.read();
+			file.seek(offset);
+			file.write(value ^ 0xFF);
+		}
+		try (ScheduleStore store = new ScheduleStore(directory, new DefaultResourceLoader(), 1000,
+				Collections::emptyList)) {
+			assertThat(store.recover().stream().map(ScheduleRequest::getScheduleName))
+					.containsExactly("schedule-1");
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static List<String> scheduleNames(List<ScheduleInfo> scheduleInfos) {
+		return scheduleInfos.stream().map(ScheduleInfo::getScheduleName).collect(Collectors.toList());
+	}
+
+	private static List<Path> journals(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().startsWith("journal-"))
+					.collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that an implementation of Spring Cloud Scheduler behaves correctly when many
+ * threads operate on the same schedules at once.
+ *
+ * Each operation on a schedule is expected to take effect atomically: when several
+ * threads create the same schedule exactly one of them succeeds, when several threads
+ * remove it exactly one of them succeeds, and listings never contain a schedule that
+ * was not created or contain a schedule more than once.  The latencies observed under
+ * contention are logged for each operation.
+ *
+ * The following system properties configure the tests:
+ *
+ * <ul>
+ * <li>{@value #THREADS_PROPERTY}: the number of threads, 8 by default</li>
+ * <li>{@value #OPERATIONS_PROPERTY}: the number of operations made by each thread of
+ * the mixed workload, 200 by default</li>
+ * </ul>
+ *
+ * Implementations whose listings are eventually consistent are given the
+ * {@link #getConvergenceTimeout() convergence timeout} to reflect the final state.
+ *
+ * @author agent
+ */
+public abstract class AbstractConcurrencyTests {
+
+	public static final String THREADS_PROPERTY = "spring.cloud.scheduler.tck.concurrency.threads";
+
+	public static final String OPERATIONS_PROPERTY = "spring.cloud.scheduler.tck.concurrency.operations";
+
+	/**
+	 * The number of times each race is repeated.
+	 */
+	private static final int ROUNDS = 20;
+
+	/**
+	 * The number of schedule names shared by the threads of the mixed workload.
+	 */
+	private static final int SHARED_NAMES = 8;
+
+	protected final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final Set<String> created = ConcurrentHashMap.newKeySet();
+
+	private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+
+	private ExecutorService executor;
+
+	private Scheduler scheduler;
+
+	private String prefix;
+
+	/**
+	 * To be implemented by subclasses, which should return the instance of Scheduler that
+	 * needs to be tested.
+	 */
+	protected abstract Scheduler provideScheduler();
+
+	/**
+	 * Returns a valid request for the specified schedule and task definition, by default
+	 * a yearly cron schedule without properties.  May be overridden by subclasses whose
+	 * scheduler requires more.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @param taskDefinitionName the name of the task definition.
+	 * @return the request.
+	 */
+	protected ScheduleRequest createScheduleRequest(String scheduleName, String taskDefinitionName) {
+		return ScheduleRequests.scheduleRequest(scheduleName, taskDefinitionName);
+	}
+
+	@Before
+	public void setUp() {
+		this.scheduler = provideScheduler();
+		this.executor = Executors.newFixedThreadPool(getThreads());
+		this.prefix = "concurrency-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+	}
+
+	@After
+	public void tearDown() {
+		try {
+			for (LatencyRecorder recorder : this.recorders.values()) {
+				log.info("{}", recorder);
+			}
+			for (String scheduleName : this.created) {
+				try {
+					this.scheduler.unschedule(scheduleName);
+				}
+				catch (SchedulerException e) {
+					// the schedule was removed by the test
+				}
+			}
+		}
+		finally {
+			this.executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentScheduleOfSameName() throws Exception {
+		for (int round = 0; round < ROUNDS; round++) {
+			String scheduleName = this.prefix + "create-" + round;
+			ScheduleRequest request = createScheduleRequest(scheduleName, this.prefix + "task");
+			this.created.add(scheduleName);
+			List<Throwable> outcomes = race(() -> record("schedule", () -> this.scheduler.schedule(request)));
+
+			List<Throwable> failures = outcomes.stream().filter(outcome -> outcome != null).collect(Collectors.toList());
+			assertEquals("exactly one schedule call must succeed", getThreads() - 1, failures.size());
+			for (Throwable failure : failures) {
+				assertThat(failure, instanceOf(CreateScheduleException.class));
+			}
+			Poller.poll(() -> this.scheduler.exists(scheduleName))
+					.within(getConvergenceTimeout())
+					.until(equalTo(true));
+			Poller.poll(() -> countListed(scheduleName))
+					.within(getConvergenceTimeout())
+					.until(equalTo(1L));
+		}
+	}
+
+	@Test
+	public void testConcurrentUnscheduleOfSameName() throws Exception {
+		for (int round = 0; round < ROUNDS; round++) {
+			String scheduleName = this.prefix + "remove-" + round;
+			this.created.add(scheduleName);
+			this.scheduler.schedule(createScheduleRequest(scheduleName, this.prefix + "task"));
+			List<Throwable> outcomes = race(() -> record("unschedule", () -> this.scheduler.unschedule(scheduleName)));
+
+			List<Throwable> failures = outcomes.stream().filter(outcome -> outcome != null).collect(Collectors.toList());
+			assertEquals("exactly one unschedule call must succeed", getThreads() - 1, failures.size());
+			for (Throwable failure : failures) {
+				assertThat(failure, instanceOf(SchedulerException.class));
+			}
+			Poller.poll(() -> this.scheduler.exists(scheduleName))
+					.within(getConvergenceTimeout())
+					.until(equalTo(false));
+			Poller.poll(() -> countListed(scheduleName))
+					.within(getConvergenceTimeout())
+					.until(equalTo(0L));
+		}
+	}
+
+	/**
+	 * Runs a random mix of operations on a small set of shared schedule names.  As the
+	 * operations on a name take effect one at a time, its successful creations and
+	 * removals must alternate, which determines whether the schedule exists at the end.
+	 */
+	@Test
+	public void testMixedOperationsOnSharedNames() throws Exception {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < SHARED_NAMES; i++) {
+			names.add(this.prefix + "shared-" + i);
+		}
+		this.created.addAll(names);
+		Map<String, AtomicInteger> balance = new HashMap<>();
+		for (String name : names) {
+			balance.put(name, new AtomicInteger());
+		}
+		Set<String> phantoms = ConcurrentHashMap.newKeySet();
+		int operations = getOperationsPerThread();
+		List<Future<?>> workers = new ArrayList<>();
+		CyclicBarrier start = new CyclicBarrier(getThreads());
+		for (int thread = 0; thread < getThreads(); thread++) {
+			workers.add(this.executor.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < operations; i++) {
+					String name = names.get(random.nextInt(names.size()));
+					int operation = random.nextInt(10);
+					try {
+						if (operation < 4) {
+							record("schedule", () -> this.scheduler.schedule(createScheduleRequest(name, this.prefix + "task")));
+							balance.get(name).incrementAndGet();
+						}
+						else if (operation < 8) {
+							record("unschedule", () -> this.scheduler.unschedule(name));
+							balance.get(name).decrementAndGet();
+						}
+						else {
+							List<ScheduleInfo> listing = new ArrayList<>();
+							record("list", () -> listing.addAll(this.scheduler.list()));
+							phantoms.addAll(findPhantoms(listing, names));
+						}
+					}
+					catch (SchedulerException e) {
+						// the operation lost a race, which is expected
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> worker : workers) {
+			worker.get();
+		}
+
+		assertTrue("listings contained unexpected or duplicate schedules " + phantoms, phantoms.isEmpty());
+		Set<String> expected = new HashSet<>();
+		for (String name : names) {
+			int value = balance.get(name).get();
+			assertTrue(String.format("schedule %s was created and removed out of order (balance %d)", name, value),
+					value == 0 || value == 1);
+			if (value == 1) {
+				expected.add(name);
+			}
+		}
+		Poller.poll(() -> this.scheduler.list().stream()
+				.map(ScheduleInfo::getScheduleName)
+				.filter(scheduleName -> scheduleName.startsWith(this.prefix))
+				.collect(Collectors.toSet()))
+				.within(getConvergenceTimeout())
+				.until(equalTo(expected));
+		for (String name : names) {
+			assertEquals(name, expected.contains(name), this.scheduler.exists(name));
+		}
+	}
+
+	/**
+	 * @return the number of threads, from the {@value #THREADS_PROPERTY} system property.
+	 */
+	protected int getThreads() {
+		return Math.max(2, Integer.getInteger(THREADS_PROPERTY, 8));
+	}
+
+	/**
+	 * @return the number of operations made by each thread of the mixed workload, from
+	 * the {@value #OPERATIONS_PROPERTY} system property.
+	 */
+	protected int getOperationsPerThread() {
+		return Integer.getInteger(OPERATIONS_PROPERTY, 200);
+	}
+
+	/**
+	 * @return the time an implementation is given to reflect the final state in its
+	 * listings, one minute by default.
+	 */
+	protected Timeout getConvergenceTimeout() {
+		return new Timeout(12, 5000);
+	}
+
+	/**
+	 * Runs the action on every thread at once.
+	 *
+	 * @return the exception thrown by each thread, {@code null} for those that succeeded.
+	 */
+	private List<Throwable> race(Runnable action) throws Exception {
+		CyclicBarrier start = new CyclicBarrier(getThreads());
+		List<CompletableFuture<Throwable>> outcomes = new ArrayList<>();
+		for (int thread = 0; thread < getThreads(); thread++) {
+			outcomes.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					start.await();
+					action.run();
+					return null;
+				}
+				catch (Exception e) {
+					return e;
+				}
+			}, this.executor));
+		}
+		List<Throwable> result = new ArrayList<>();
+		for (CompletableFuture<Throwable> outcome : outcomes) {
+			try {
+				result.add(outcome.get());
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException("race did not complete", e.getCause());
+			}
+		}
+		return result;
+	}
+
+	private void record(String operation, Runnable call) {
+		this.recorders.computeIfAbsent(operation, LatencyRecorder::new).record(call);
+	}
+
+	private long countListed(String scheduleName) {
+		return this.scheduler.list().stream()
+				.filter(scheduleInfo -> scheduleName.equals(scheduleInfo.getScheduleName()))
+				.count();
+	}
+
+	/**
+	 * Returns the schedules of this test in the listing that were never created, or that
+	 * are listed more than once.
+	 */
+	private Set<String> findPhantoms(List<ScheduleInfo> listing, List<String> names) {
+		Set<String> phantoms = new HashSet<>();
+		Set<String> seen = new HashSet<>();
+		for (ScheduleInfo scheduleInfo : listing) {
+			String scheduleName = scheduleInfo.getScheduleName();
+			if (scheduleName.startsWith(this.prefix)
+					&& (!names.contains(scheduleName) || !seen.add(scheduleName))) {
+				phantoms.add(scheduleName);
+			}
+		}
+		return phantoms;
+	}
+}
@@ -18,12 +18,23 @@ package org.springframework.cloud.scheduler.spi.test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -45,7 +56,10 @@ import org.springframework.cloud.deployer.resource.maven.MavenProperties;
 import org.springframework.cloud.deployer.resource.maven.MavenResource;
 import org.springframework.cloud.deployer.spi.core.AppDefinition;
 import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleBatchResult;
+import org.springframework.cloud.scheduler.spi.core.ScheduleFilter;
 import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.SchedulePage;
 import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
 import org.springframework.cloud.scheduler.spi.core.Scheduler;
 import org.springframework.cloud.scheduler.spi.core.SchedulerException;
@@ -55,20 +69,30 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.test.context.ContextConfiguration;
-import org.springframework.test.context.junit4.SpringRunner;
 
+import static org.hamcrest.Matchers.describedAs;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
-import static org.springframework.cloud.scheduler.spi.test.EventuallyMatcher.eventually;
 
 /**
  * Contains base set of tests that are required for each implementation of
  * Spring Cloud Scheduler to pass.
  *
+ * The tests can be run concurrently by setting the
+ * {@value ParallelSpringRunner#PARALLELISM_PROPERTY} system property, which
+ * considerably shortens the suite against schedulers that take a while to reflect
+ * changes.  Each test only creates schedules whose names are unique to it, see
+ * {@link #randomName()}, and only makes assertions about those schedules.
+ *
  * @author Glenn Renfro
  */
-@RunWith(SpringRunner.class)
+@RunWith(ParallelSpringRunner.class)
 @SpringBootTest(webEnvironment = NONE)
 @ContextConfiguration(classes = AbstractIntegrationTests.Config.class)
 public abstract class AbstractIntegrationTests {
@@ -76,6 +100,8 @@ public abstract class AbstractIntegrationTests {
 	@Autowired
 	protected MavenProperties mavenProperties;
 
+	private static final int TEAR_DOWN_THREADS = 8;
+
 	private SchedulerWrapper schedulerWrapper;
 
 	/**
@@ -99,13 +125,33 @@ public abstract class AbstractIntegrationTests {
 	public ExpectedException expectedException = ExpectedException.none();
 
 	@After
-	public void tearDown() {
+	public void tearDown() throws Exception {
 		List<ScheduleRequest> scheduleRequests = new ArrayList<>(schedulerWrapper.getScheduledTasks().values());
-
-		for (ScheduleRequest scheduleRequest : scheduleRequests) {
-			unscheduleTestSchedule(scheduleRequest.getScheduleName());
+		if (scheduleRequests.isEmpty()) {
+			return;
+		}
+		// the schedules are removed concurrently as each removal waits for it to take effect
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(scheduleRequests.size(), TEAR_DOWN_THREADS));
+		try {
+			List<Future<?>> removals = new ArrayList<>();
+			for (ScheduleRequest scheduleRequest : scheduleRequests) {
+				removals.add(executor.submit(() -> unscheduleTestSchedule(scheduleRequest.getScheduleName())));
+			}
+			for (Future<?> removal : removals) {
+				try {
+					removal.get();
+				}
+				catch (ExecutionException e) {
+					if (e.getCause() instanceof Error) {
+						throw (Error) e.getCause();
+					}
+					throw (Exception) e.getCause();
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
 		}
-
 	}
 
 	/**
@@ -159,10 +205,14 @@ public abstract class AbstractIntegrationTests {
 
 	@Test
 	public void testUnschedule() {
-		int initialSize = taskScheduler().list().size();
 		ScheduleInfo scheduleInfo = createAndVerifySchedule();
 		unscheduleTestSchedule(scheduleInfo.getScheduleName());
-		assertEquals(0, taskScheduler().list().size() - initialSize);
+		// the size of the full listing is not compared as other tests may run concurrently
+		Poller.poll(() -> taskScheduler().list().stream()
+				.filter(schedule -> schedule.getScheduleName().equals(scheduleInfo.getScheduleName()))
+				.collect(Collectors.toList()))
+				.within(this.unScheduleTimeout)
+				.until(hasSize(0));
 	}
 
 	@Test
@@ -190,6 +240,52 @@ public abstract class AbstractIntegrationTests {
 		unscheduleTestSchedule(scheduleName);
 	}
 
+	@Test
+	public void testReschedule() {
+		String definitionName = randomName();
+		String scheduleName = scheduleName() + definitionName;
+		taskScheduler().schedule(createScheduleRequest(scheduleName, definitionName));
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(scheduleName);
+		verifySchedule(scheduleInfo);
+
+		String newDefinitionName = definitionName + "-updated";
+		taskScheduler().reschedule(createScheduleRequest(scheduleName, newDefinitionName));
+		Poller.poll(() -> taskScheduler().list(newDefinitionName))
+				.within(this.scheduleTimeout)
+				.until(hasSize(1));
+		assertEquals(1, taskScheduler().list().stream()
+				.filter(schedule -> schedule.getScheduleName().equals(scheduleName)).count());
+	}
+
+	@Test
+	public void testRescheduleNoEntry() {
+		String definitionName = randomName();
+		String scheduleName = scheduleName() + definitionName;
+
+		this.expectedException.expect(SchedulerException.class);
+		taskScheduler().reschedule(createScheduleRequest(scheduleName, definitionName));
+	}
+
+	@Test
+	public void testGet() {
+		String definitionName = randomName();
+		String scheduleName = scheduleName() + definitionName;
+		taskScheduler().schedule(createScheduleRequest(scheduleName, definitionName));
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(scheduleName);
+		verifySchedule(scheduleInfo);
+
+		Optional<ScheduleInfo> schedule = taskScheduler().get(scheduleName);
+		assertTrue(schedule.isPresent());
+		assertEquals(scheduleName, schedule.get().getScheduleName());
+		assertEquals(definitionName, schedule.get().getTaskDefinitionName());
+		assertFalse(taskScheduler().get(scheduleName + "missing").isPresent());
+		assertFalse(taskScheduler().exists(scheduleName + "missing"));
+		// the name of the existing schedule is a prefix of the missing one
+		assertFalse(taskScheduler().exists(scheduleName.substring(0, scheduleName.length() - 1)));
+	}
+
 	@Test
 	public void testInvalidCronExpression() {
 		final String INVALID_EXPRESSION = "BAD";
@@ -212,8 +308,13 @@ public abstract class AbstractIntegrationTests {
 			ScheduleRequest request = createScheduleRequest(scheduleName + i, definitionName + i);
 			taskScheduler().schedule(request);
 		}
-		List<ScheduleInfo> scheduleInfos = taskScheduler().list();
-
+		// other tests may be creating and removing their own schedules concurrently, and
+		// the listing of an eventually consistent scheduler may lag behind
+		List<ScheduleInfo> scheduleInfos = Poller.poll(() -> taskScheduler().list().stream()
+				.filter(scheduleInfo -> scheduleInfo.getScheduleName().startsWith(scheduleName))
+				.collect(Collectors.toList()))
+				.within(this.scheduleTimeout)
+				.until(hasSize(4));
 		for (ScheduleInfo scheduleInfo : scheduleInfos) {
 			verifySchedule(scheduleInfo);
 		}
@@ -227,13 +328,74 @@ public abstract class AbstractIntegrationTests {
 			ScheduleRequest request = createScheduleRequest(scheduleName + i, definitionName + i%2);
 			taskScheduler().schedule(request);
 		}
-		ScheduleInfo scheduleInfo = new ScheduleInfo();
-		scheduleInfo.setScheduleName(scheduleName+0);
-		scheduleInfo.setTaskDefinitionName(definitionName+0);
-		assertThat(scheduleInfo, eventually(
-				hasSpecifiedSchedulesByTaskDefinitionName(taskScheduler().list(definitionName+0),
-						scheduleInfo.getTaskDefinitionName(), 2),
-				this.scheduleTimeout.maxAttempts, this.scheduleTimeout.pause));
+		List<ScheduleInfo> scheduleInfos = Poller.poll(() -> taskScheduler().list(definitionName + 0))
+				.within(this.scheduleTimeout)
+				.until(hasSize(2));
+		for (ScheduleInfo scheduleInfo : scheduleInfos) {
+			assertEquals(definitionName + 0, scheduleInfo.getTaskDefinitionName());
+		}
+	}
+
+	@Test
+	public void testScheduleAll() {
+		String definitionName = randomName();
+		String scheduleName = scheduleName() + definitionName;
+		List<ScheduleRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			requests.add(createScheduleRequest(scheduleName + i, definitionName));
+		}
+		taskScheduler().schedule(requests.get(0));
+
+		ScheduleBatchResult result = taskScheduler().scheduleAll(requests);
+		assertEquals(2, result.getSucceeded().size());
+		assertEquals(1, result.getFailed().size());
+		assertThat(result.getFailed().get(scheduleName + 0), instanceOf(CreateScheduleException.class));
+		for (ScheduleRequest request : requests) {
+			ScheduleInfo scheduleInfo = new ScheduleInfo();
+			scheduleInfo.setScheduleName(request.getScheduleName());
+			verifySchedule(scheduleInfo);
+		}
+
+		List<String> scheduleNames = new ArrayList<>(result.getSucceeded());
+		scheduleNames.add(scheduleName + "missing");
+		result = taskScheduler().unscheduleAll(scheduleNames);
+		assertEquals(2, result.getSucceeded().size());
+		assertEquals(1, result.getFailed().size());
+		assertTrue(result.getFailed().containsKey(scheduleName + "missing"));
+	}
+
+	@Test
+	public void testFilteredPagedList() {
+		String definitionName = randomName();
+		String scheduleName = scheduleName() + definitionName;
+		for (int i = 0; i < 5; i++) {
+			ScheduleRequest request = createScheduleRequest(scheduleName + i, definitionName);
+			taskScheduler().schedule(request);
+		}
+		for (int i = 0; i < 5; i++) {
+			ScheduleInfo scheduleInfo = new ScheduleInfo();
+			scheduleInfo.setScheduleName(scheduleName + i);
+			verifySchedule(scheduleInfo);
+		}
+		ScheduleFilter filter = ScheduleFilter.builder()
+				.scheduleNamePrefix(scheduleName)
+				.taskDefinitionName(definitionName)
+				.build();
+
+		assertEquals(5, taskScheduler().stream(filter).count());
+
+		List<String> pagedScheduleNames = new ArrayList<>();
+		SchedulePage page = taskScheduler().list(filter, null, 2);
+		pagedScheduleNames.addAll(page.getContent().stream()
+				.map(ScheduleInfo::getScheduleName).collect(Collectors.toList()));
+		while (page.hasNext()) {
+			assertTrue(page.getContent().size() <= 2);
+			page = taskScheduler().list(filter, page.getNextCursor(), 2);
+			pagedScheduleNames.addAll(page.getContent().stream()
+					.map(ScheduleInfo::getScheduleName).collect(Collectors.toList()));
+		}
+		assertEquals(5, pagedScheduleNames.size());
+		assertEquals(5, new HashSet<>(pagedScheduleNames).size());
 	}
 
 	public Timeout getScheduleTimeout() {
@@ -273,9 +435,12 @@ public abstract class AbstractIntegrationTests {
 	}
 
 	private void verifySchedule(ScheduleInfo scheduleInfo) {
-		assertThat(scheduleInfo, eventually(hasSpecifiedSchedule(taskScheduler().list(),
-				scheduleInfo.getScheduleName()), this.scheduleTimeout.maxAttempts,
-				this.scheduleTimeout.pause));
+		String scheduleName = scheduleInfo.getScheduleName();
+		Poller<Boolean> poller = Poller.poll(() -> taskScheduler().exists(scheduleName));
+		poller.within(this.scheduleTimeout)
+				.until(describedAs("schedule %0 to exist", is(true), scheduleName));
+		log.debug("verified {} after {} attempts in {} ms", scheduleName, poller.getAttempts(),
+				poller.getElapsed().toMillis());
 	}
 
 	private void unscheduleTestSchedule(String scheduleName) {
@@ -283,14 +448,19 @@ public abstract class AbstractIntegrationTests {
 
 		taskScheduler().unschedule(scheduleName);
 
-		ScheduleInfo scheduleInfo = new ScheduleInfo();
-		scheduleInfo.setScheduleName(scheduleName);
-		assertThat(scheduleInfo, eventually(specifiedScheduleNotPresent(
-				taskScheduler().list(), scheduleName),
-				this.unScheduleTimeout.maxAttempts, this.unScheduleTimeout.pause));
+		Poller<Boolean> poller = Poller.poll(() -> taskScheduler().exists(scheduleName));
+		poller.within(this.unScheduleTimeout)
+				.until(describedAs("schedule %0 to be removed", is(false), scheduleName));
+		log.debug("unscheduled {} after {} attempts in {} ms", scheduleName, poller.getAttempts(),
+				poller.getElapsed().toMillis());
 
 	}
 
+	/**
+	 * Returns a name that is unique to the running test, the test method name followed
+	 * by a random UUID, so that the schedules of tests that run concurrently do not
+	 * collide.
+	 */
 	protected String randomName() {
 		return name.getMethodName() + "-" + UUID.randomUUID().toString();
 	}
@@ -303,7 +473,11 @@ public abstract class AbstractIntegrationTests {
 	 * A Hamcrest Matcher that queries the schedule list for a schedule name.
 	 *
 	 * @author Glenn Renfro
+	 * @deprecated the matcher evaluates the list it was created with, so repeated
+	 * evaluations never observe a change, use {@link Poller} to fetch the schedules for
+	 * each attempt instead.
 	 */
+	@Deprecated
 	protected Matcher<ScheduleInfo> hasSpecifiedSchedule(final List<ScheduleInfo> schedules, String scheduleName) {
 		return new BaseMatcher<ScheduleInfo>() {
 
@@ -336,7 +510,11 @@ public abstract class AbstractIntegrationTests {
 	 * A Hamcrest Matcher that queries the schedule list for a task definition name.
 	 *
 	 * @author Glenn Renfro
+	 * @deprecated the matcher evaluates the list it was created with, so repeated
+	 * evaluations never observe a change, use {@link Poller} to fetch the schedules for
+	 * each attempt instead.
 	 */
+	@Deprecated
 	protected Matcher<ScheduleInfo> hasSpecifiedSchedulesByTaskDefinitionName(final List<ScheduleInfo> schedules, String taskDefinitionName, int expectedScheduleCount) {
 		return new BaseMatcher<ScheduleInfo>() {
 
@@ -371,7 +549,11 @@ public abstract class AbstractIntegrationTests {
 	 * A Hamcrest Matcher that queries the schedule list for a definition name.
 	 *
 	 * @author Glenn Renfro
+	 * @deprecated the matcher evaluates the list it was created with, so repeated
+	 * evaluations never observe a change, use {@link Poller} to fetch the schedules for
+	 * each attempt instead.
 	 */
+	@Deprecated
 	protected Matcher<ScheduleInfo> specifiedScheduleNotPresent(final List<ScheduleInfo> schedules, String scheduleName) {
 		return new BaseMatcher<ScheduleInfo>() {
 
@@ -430,7 +612,7 @@ public abstract class AbstractIntegrationTests {
 	protected static class SchedulerWrapper implements Scheduler {
 		private final Scheduler wrapped;
 
-		private final Map<String,ScheduleRequest> scheduledTasks = new HashMap<>();
+		private final Map<String,ScheduleRequest> scheduledTasks = new ConcurrentHashMap<>();
 
 
 		public SchedulerWrapper(Scheduler wrapped) {
@@ -449,11 +631,68 @@ public abstract class AbstractIntegrationTests {
 			scheduledTasks.remove(scheduleName);
 		}
 
+		@Override
+		public void reschedule(ScheduleRequest scheduleRequest) {
+			try {
+				wrapped.reschedule(scheduleRequest);
+			}
+			catch (SchedulerException e) {
+				// a non atomic implementation may have removed the existing schedule
+				String scheduleName = scheduleRequest.getScheduleName();
+				if (!wrapped.exists(scheduleName)) {
+					scheduledTasks.remove(scheduleName);
+				}
+				throw e;
+			}
+			scheduledTasks.put(scheduleRequest.getScheduleName(), scheduleRequest);
+		}
+
+		@Override
+		public Optional<ScheduleInfo> get(String scheduleName) {
+			return wrapped.get(scheduleName);
+		}
+
+		@Override
+		public boolean exists(String scheduleName) {
+			return wrapped.exists(scheduleName);
+		}
+
 		@Override
 		public List<ScheduleInfo> list(String taskDefinitionName) {
 			return wrapped.list(taskDefinitionName);
 		}
 
+		@Override
+		public Stream<ScheduleInfo> stream(ScheduleFilter filter) {
+			return wrapped.stream(filter);
+		}
+
+		@Override
+		public SchedulePage list(ScheduleFilter filter, String cursor, int pageSize) {
+			return wrapped.list(filter, cursor, pageSize);
+		}
+
+		@Override
+		public ScheduleBatchResult scheduleAll(Collection<ScheduleRequest> scheduleRequests) {
+			ScheduleBatchResult result = wrapped.scheduleAll(scheduleRequests);
+			Set<String> succeeded = new HashSet<>(result.getSucceeded());
+			for (ScheduleRequest scheduleRequest : scheduleRequests) {
+				if (succeeded.contains(scheduleRequest.getScheduleName())) {
+					scheduledTasks.put(scheduleRequest.getScheduleName(), scheduleRequest);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public ScheduleBatchResult unscheduleAll(Collection<String> scheduleNames) {
+			ScheduleBatchResult result = wrapped.unscheduleAll(scheduleNames);
+			for (String scheduleName : result.getSucceeded()) {
+				scheduledTasks.remove(scheduleName);
+			}
+			return result;
+		}
+
 		@Override
 		public List<ScheduleInfo> list() {
 			return wrapped.list();
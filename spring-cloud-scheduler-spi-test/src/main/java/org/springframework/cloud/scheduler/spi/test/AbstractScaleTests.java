@@ -0,0 +1,330 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleFilter;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies that an implementation of Spring Cloud Scheduler behaves correctly, and
+ * meets its service level objectives, with a large number of schedules.
+ *
+ * The test creates the configured number of schedules, spread over a number of task
+ * definitions, with a bounded number of concurrent calls.  It then lists and filters
+ * them, looks each of them up and finally removes them all.  The throughput and latency
+ * percentiles of each operation are logged, and the test fails if an operation does not
+ * meet the thresholds configured for it.
+ *
+ * The tests are skipped unless the {@value #ENABLED_PROPERTY} system property is set to
+ * {@code true}.  The following system properties configure them:
+ *
+ * <ul>
+ * <li>{@value #SCHEDULES_PROPERTY}: the number of schedules, 10000 by default</li>
+ * <li>{@value #TASK_DEFINITIONS_PROPERTY}: the number of task definitions, 100 by
+ * default</li>
+ * <li>{@value #CONCURRENCY_PROPERTY}: the maximum number of concurrent calls, 16 by
+ * default</li>
+ * <li>{@code spring.cloud.scheduler.tck.scale.slo.<operation>.p99}: the maximum 99th
+ * percentile latency of an operation in milliseconds</li>
+ * <li>{@code spring.cloud.scheduler.tck.scale.slo.<operation>.throughput}: the minimum
+ * throughput of an operation in calls per second</li>
+ * </ul>
+ *
+ * The operations are {@code schedule}, {@code list}, {@code listByTaskDefinition},
+ * {@code filter}, {@code exists} and {@code unschedule}.  Subclasses can override
+ * {@link #getMaxP99Latency(String)} and {@link #getMinThroughput(String)} to define the
+ * thresholds in code.
+ *
+ * @author agent
+ */
+public abstract class AbstractScaleTests {
+
+	public static final String ENABLED_PROPERTY = "spring.cloud.scheduler.tck.scale.enabled";
+
+	public static final String SCHEDULES_PROPERTY = "spring.cloud.scheduler.tck.scale.schedules";
+
+	public static final String TASK_DEFINITIONS_PROPERTY = "spring.cloud.scheduler.tck.scale.taskDefinitions";
+
+	public static final String CONCURRENCY_PROPERTY = "spring.cloud.scheduler.tck.scale.concurrency";
+
+	private static final String SLO_PROPERTY_PREFIX = "spring.cloud.scheduler.tck.scale.slo.";
+
+	/**
+	 * The number of full listings and of filtered listings made.
+	 */
+	private static final int LISTINGS = 5;
+
+	protected final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final Set<String> created = ConcurrentHashMap.newKeySet();
+
+	private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+
+	private ExecutorService executor;
+
+	private Scheduler scheduler;
+
+	/**
+	 * To be implemented by subclasses, which should return the instance of Scheduler that
+	 * needs to be tested.
+	 */
+	protected abstract Scheduler provideScheduler();
+
+	/**
+	 * Returns a valid request for the specified schedule and task definition, by default
+	 * a yearly cron schedule without properties.  May be overridden by subclasses whose
+	 * scheduler requires more.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @param taskDefinitionName the name of the task definition.
+	 * @return the request.
+	 */
+	protected ScheduleRequest createScheduleRequest(String scheduleName, String taskDefinitionName) {
+		return ScheduleRequests.scheduleRequest(scheduleName, taskDefinitionName);
+	}
+
+	@Before
+	public void setUp() {
+		Assume.assumeTrue("Scale tests are disabled, set " + ENABLED_PROPERTY + " to run them",
+				Boolean.getBoolean(ENABLED_PROPERTY));
+		this.scheduler = provideScheduler();
+		this.executor = Executors.newFixedThreadPool(getConcurrency());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.executor == null) {
+			return;
+		}
+		try {
+			if (!this.created.isEmpty()) {
+				log.info("removing {} schedules left by the test", this.created.size());
+				runConcurrently(new ArrayList<>(this.created), scheduleName -> {
+					try {
+						this.scheduler.unschedule(scheduleName);
+					}
+					catch (RuntimeException e) {
+						log.warn("failed to remove schedule {}", scheduleName, e);
+					}
+				});
+			}
+		}
+		finally {
+			this.executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testScale() throws Exception {
+		int scheduleCount = getScheduleCount();
+		int taskDefinitionCount = Math.min(scheduleCount, getTaskDefinitionCount());
+		String prefix = "scale-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+		List<ScheduleRequest> requests = new ArrayList<>(scheduleCount);
+		for (int i = 0; i < scheduleCount; i++) {
+			requests.add(createScheduleRequest(prefix + i, prefix + "task-" + (i % taskDefinitionCount)));
+		}
+		log.info("creating {} schedules over {} task definitions with {} concurrent calls",
+				scheduleCount, taskDefinitionCount, getConcurrency());
+
+		LatencyRecorder schedule = recorder("schedule");
+		runConcurrently(requests, request -> schedule.record(() -> {
+			this.scheduler.schedule(request);
+			this.created.add(request.getScheduleName());
+		}));
+
+		LatencyRecorder list = recorder("list");
+		for (int i = 0; i < LISTINGS; i++) {
+			AtomicReference<List<ScheduleInfo>> listing = new AtomicReference<>();
+			list.record(() -> listing.set(this.scheduler.list()));
+			assertEquals(scheduleCount, listing.get().stream()
+					.filter(scheduleInfo -> scheduleInfo.getScheduleName().startsWith(prefix)).count());
+		}
+
+		LatencyRecorder listByTaskDefinition = recorder("listByTaskDefinition");
+		Map<String, Long> schedulesByTaskDefinition = requests.stream()
+				.collect(Collectors.groupingBy(request -> request.getDefinition().getName(), Collectors.counting()));
+		List<String> taskDefinitionNames = new ArrayList<>(schedulesByTaskDefinition.keySet());
+		runConcurrently(taskDefinitionNames, taskDefinitionName -> {
+			AtomicReference<List<ScheduleInfo>> listing = new AtomicReference<>();
+			listByTaskDefinition.record(() -> listing.set(this.scheduler.list(taskDefinitionName)));
+			assertEquals(taskDefinitionName, (long) schedulesByTaskDefinition.get(taskDefinitionName),
+					listing.get().size());
+		});
+
+		LatencyRecorder filter = recorder("filter");
+		for (int i = 0; i < LISTINGS; i++) {
+			ScheduleFilter scheduleFilter = ScheduleFilter.builder()
+					.scheduleNamePrefix(prefix)
+					.taskDefinitionName(taskDefinitionNames.get(i % taskDefinitionCount))
+					.build();
+			AtomicLong matched = new AtomicLong();
+			filter.record(() -> matched.set(this.scheduler.stream(scheduleFilter).count()));
+			assertEquals(scheduleFilter.toString(), (long) schedulesByTaskDefinition.get(
+					scheduleFilter.getTaskDefinitionName()), matched.get());
+		}
+
+		LatencyRecorder exists = recorder("exists");
+		runConcurrently(requests, request -> {
+			AtomicBoolean found = new AtomicBoolean();
+			exists.record(() -> found.set(this.scheduler.exists(request.getScheduleName())));
+			assertTrue(request.getScheduleName(), found.get());
+		});
+
+		LatencyRecorder unschedule = recorder("unschedule");
+		runConcurrently(requests, request -> unschedule.record(() -> {
+			this.scheduler.unschedule(request.getScheduleName());
+			this.created.remove(request.getScheduleName());
+		}));
+		assertEquals(0, this.scheduler.stream(ScheduleFilter.builder().scheduleNamePrefix(prefix).build()).count());
+
+		verifyServiceLevelObjectives();
+	}
+
+	/**
+	 * @return the number of schedules created, from the {@value #SCHEDULES_PROPERTY}
+	 * system property.
+	 */
+	protected int getScheduleCount() {
+		return Integer.getInteger(SCHEDULES_PROPERTY, 10000);
+	}
+
+	/**
+	 * @return the number of task definitions the schedules are spread over, from the
+	 * {@value #TASK_DEFINITIONS_PROPERTY} system property.
+	 */
+	protected int getTaskDefinitionCount() {
+		return Integer.getInteger(TASK_DEFINITIONS_PROPERTY, 100);
+	}
+
+	/**
+	 * @return the maximum number of concurrent calls, from the
+	 * {@value #CONCURRENCY_PROPERTY} system property.
+	 */
+	protected int getConcurrency() {
+		return Integer.getInteger(CONCURRENCY_PROPERTY, 16);
+	}
+
+	/**
+	 * @param operation the name of the operation.
+	 * @return the maximum 99th percentile latency of the operation, or {@code null} if
+	 * it is not checked.
+	 */
+	protected Duration getMaxP99Latency(String operation) {
+		Long millis = Long.getLong(SLO_PROPERTY_PREFIX + operation + ".p99");
+		return millis != null ? Duration.ofMillis(millis) : null;
+	}
+
+	/**
+	 * @param operation the name of the operation.
+	 * @return the minimum throughput of the operation in calls per second, or
+	 * {@code null} if it is not checked.
+	 */
+	protected Double getMinThroughput(String operation) {
+		String throughput = System.getProperty(SLO_PROPERTY_PREFIX + operation + ".throughput");
+		return throughput != null ? Double.valueOf(throughput) : null;
+	}
+
+	private LatencyRecorder recorder(String operation) {
+		LatencyRecorder recorder = new LatencyRecorder(operation);
+		this.recorders.put(operation, recorder);
+		return recorder;
+	}
+
+	private void verifyServiceLevelObjectives() {
+		List<String> violations = new ArrayList<>();
+		for (LatencyRecorder recorder : this.recorders.values()) {
+			log.info("{}", recorder);
+			Duration maxP99Latency = getMaxP99Latency(recorder.getOperation());
+			if (maxP99Latency != null && recorder.getPercentile(99).compareTo(maxP99Latency) > 0) {
+				violations.add(String.format("%s p99 latency %dms exceeds %dms", recorder.getOperation(),
+						recorder.getPercentile(99).toMillis(), maxP99Latency.toMillis()));
+			}
+			Double minThroughput = getMinThroughput(recorder.getOperation());
+			if (minThroughput != null && recorder.getThroughput() < minThroughput) {
+				violations.add(String.format("%s throughput %.1f/s is below %.1f/s", recorder.getOperation(),
+						recorder.getThroughput(), minThroughput));
+			}
+		}
+		if (!violations.isEmpty()) {
+			fail("Service level objectives not met: " + violations.stream().collect(Collectors.joining(", ")));
+		}
+	}
+
+	/**
+	 * Applies the action to each item on the executor, so that at most the configured
+	 * number of calls are in progress, and waits for all of them to complete.
+	 */
+	private <T> void runConcurrently(List<T> items, ThrowingConsumer<T> action) throws Exception {
+		List<Future<?>> futures = new ArrayList<>(items.size());
+		for (T item : items) {
+			futures.add(this.executor.submit(() -> {
+				action.accept(item);
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException e) {
+				for (Future<?> pending : futures) {
+					pending.cancel(false);
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw (Exception) e.getCause();
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface ThrowingConsumer<T> {
+
+		void accept(T item) throws Exception;
+	}
+}
@@ -24,6 +24,10 @@ import org.hamcrest.Matcher;
  * A matcher that will evaluate another matcher repeatedly until it matches, or
  * fail after some number of max attempts.
  *
+ * The item is evaluated as it was passed in, so the delegate must fetch the state it
+ * inspects itself for repeated attempts to observe any change.  To poll a state that is
+ * fetched anew for each attempt, with a backoff between attempts, use {@link Poller}.
+ *
  * @param <U> the type the wrapped matcher operates on
  *
  * @author Glenn Renfro
@@ -53,15 +57,19 @@ public class EventuallyMatcher<U> extends DiagnosingMatcher<U> {
 
 	@Override
 	protected boolean matches(Object item, Description mismatchDescription) {
-		mismatchDescription.appendText(
-				String.format("failed after %d*%d=%dms:%n", maxAttempts, pause, maxAttempts * pause));
-		for (int i = 0; i < maxAttempts; i++) {
+		long start = System.currentTimeMillis();
+		int attempts = 0;
+		while (attempts < maxAttempts) {
+			attempts++;
 			boolean result = delegate.matches(item);
 			if (result) {
 				return true;
 			}
 			delegate.describeMismatch(item, mismatchDescription);
 			mismatchDescription.appendText(", ");
+			if (attempts == maxAttempts) {
+				break;
+			}
 			try {
 				Thread.sleep(pause);
 			}
@@ -70,6 +78,8 @@ public class EventuallyMatcher<U> extends DiagnosingMatcher<U> {
 				break;
 			}
 		}
+		mismatchDescription.appendText(String.format("failed after %d attempts in %dms",
+				attempts, System.currentTimeMillis() - start));
 		return false;
 	}
 
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * Records the latencies of the calls of an operation and the wall clock time during
+ * which they were made, to report their throughput and latency percentiles.
+ * Recording is thread safe.
+ *
+ * @author agent
+ */
+public class LatencyRecorder {
+
+	private final String operation;
+
+	private long[] latencies = new long[1024];
+
+	private int count;
+
+	private long firstStart = Long.MAX_VALUE;
+
+	private long lastEnd = Long.MIN_VALUE;
+
+	public LatencyRecorder(String operation) {
+		Assert.hasText(operation, "operation must not be empty");
+		this.operation = operation;
+	}
+
+	/**
+	 * Runs and records a call.
+	 *
+	 * @param call the call to be recorded.
+	 */
+	public void record(Runnable call) {
+		long start = System.nanoTime();
+		try {
+			call.run();
+		}
+		finally {
+			record(start, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Records a call that has been timed by the caller.
+	 *
+	 * @param startNanos the {@link System#nanoTime()} at which the call started.
+	 * @param endNanos the {@link System#nanoTime()} at which the call completed.
+	 */
+	public synchronized void record(long startNanos, long endNanos) {
+		if (this.count == this.latencies.length) {
+			this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+		}
+		this.latencies[this.count++] = endNanos - startNanos;
+		this.firstStart = Math.min(this.firstStart, startNanos);
+		this.lastEnd = Math.max(this.lastEnd, endNanos);
+	}
+
+	public String getOperation() {
+		return this.operation;
+	}
+
+	public synchronized int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @param percentile the percentile, between 0 and 100.
+	 * @return the latency below or at which the specified percentage of the calls
+	 * completed, using the nearest rank method.
+	 */
+	public synchronized Duration getPercentile(double percentile) {
+		Assert.isTrue(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+		if (this.count == 0) {
+			return Duration.ZERO;
+		}
+		long[] sorted = Arrays.copyOf(this.latencies, this.count);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100 * this.count);
+		return Duration.ofNanos(sorted[Math.max(0, rank - 1)]);
+	}
+
+	/**
+	 * @return the number of calls per second between the start of the first call and
+	 * the end of the last.
+	 */
+	public synchronized double getThroughput() {
+		if (this.count == 0) {
+			return 0;
+		}
+		long wallNanos = Math.max(1, this.lastEnd - this.firstStart);
+		return this.count * (double) TimeUnit.SECONDS.toNanos(1) / wallNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d calls, %.1f/s, p50=%dms p95=%dms p99=%dms max=%dms",
+				this.operation, getCount(), getThroughput(), getPercentile(50).toMillis(),
+				getPercentile(95).toMillis(), getPercentile(99).toMillis(), getPercentile(100).toMillis());
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * A {@link SpringJUnit4ClassRunner} that runs the test methods of a class concurrently
+ * on a pool of {@value #PARALLELISM_PROPERTY} threads.  With the default parallelism of
+ * one the test methods run serially on the calling thread, as with the
+ * {@link org.springframework.test.context.junit4.SpringRunner}.
+ *
+ * Tests run by this runner must not share mutable state between test methods, and the
+ * resources they create, such as schedules, must have names that are unique to the
+ * test method.
+ *
+ * @author agent
+ */
+public class ParallelSpringRunner extends SpringJUnit4ClassRunner {
+
+	/**
+	 * The system property that holds the number of test methods run at once.
+	 */
+	public static final String PARALLELISM_PROPERTY = "spring.cloud.scheduler.tck.parallelism";
+
+	public ParallelSpringRunner(Class<?> testClass) throws InitializationError {
+		super(testClass);
+		int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, 1);
+		if (parallelism > 1) {
+			setScheduler(new ThreadPoolRunnerScheduler(testClass.getSimpleName(), parallelism));
+		}
+	}
+
+	/**
+	 * Runs the test methods on a fixed pool of threads and waits for all of them to
+	 * complete once the last one has been submitted.
+	 */
+	private static class ThreadPoolRunnerScheduler implements RunnerScheduler {
+
+		private final ExecutorService executor;
+
+		private ThreadPoolRunnerScheduler(String name, int parallelism) {
+			AtomicInteger threadCount = new AtomicInteger();
+			this.executor = Executors.newFixedThreadPool(parallelism,
+					runnable -> new Thread(runnable, name + "-" + threadCount.incrementAndGet()));
+		}
+
+		@Override
+		public void schedule(Runnable childStatement) {
+			this.executor.execute(childStatement);
+		}
+
+		@Override
+		public void finished() {
+			this.executor.shutdown();
+			try {
+				this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException e) {
+				this.executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
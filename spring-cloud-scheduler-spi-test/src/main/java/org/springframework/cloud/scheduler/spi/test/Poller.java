@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import org.springframework.util.Assert;
+
+/**
+ * Polls a state, fetched anew for each attempt by a {@link Supplier}, until it satisfies a
+ * {@link Matcher} or a deadline has passed.  The first attempt is made immediately and
+ * the pause between attempts doubles from an initial pause up to a maximum pause, so that
+ * a state that converges quickly is detected quickly while a slow one does not cause
+ * excessive load.
+ *
+ * <pre class="code">
+ * List&lt;ScheduleInfo&gt; schedules = Poller.poll(() -&gt; scheduler.list(taskDefinitionName))
+ *         .within(Duration.ofSeconds(60))
+ *         .until(hasSize(2));
+ * </pre>
+ *
+ * @param <T> the type of the polled state
+ *
+ * @author agent
+ */
+public class Poller<T> {
+
+	private final Supplier<? extends T> supplier;
+
+	private Duration timeout = Duration.ofSeconds(60);
+
+	private Duration initialPause = Duration.ofMillis(100);
+
+	private Duration maxPause = Duration.ofSeconds(5);
+
+	private int attempts;
+
+	private Duration elapsed = Duration.ZERO;
+
+	private Poller(Supplier<? extends T> supplier) {
+		Assert.notNull(supplier, "supplier must not be null");
+		this.supplier = supplier;
+	}
+
+	/**
+	 * @param supplier fetches the current state, called once for each attempt.
+	 * @param <T> the type of the polled state.
+	 * @return a poller with a timeout of 60 seconds and pauses from 100 milliseconds up
+	 * to 5 seconds.
+	 */
+	public static <T> Poller<T> poll(Supplier<? extends T> supplier) {
+		return new Poller<>(supplier);
+	}
+
+	/**
+	 * @param timeout the time after which polling fails.
+	 * @return this poller.
+	 */
+	public Poller<T> within(Duration timeout) {
+		Assert.notNull(timeout, "timeout must not be null");
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Uses the total time of a {@link Timeout}, its maximum attempts times its pause, as
+	 * the timeout and its pause as the maximum pause.
+	 *
+	 * @param timeout the timeout.
+	 * @return this poller.
+	 */
+	public Poller<T> within(Timeout timeout) {
+		Assert.notNull(timeout, "timeout must not be null");
+		Duration maxPause = Duration.ofMillis(Math.max(1, timeout.pause));
+		return within(maxPause.multipliedBy(Math.max(1, timeout.maxAttempts)))
+				.backoff(this.initialPause.compareTo(maxPause) < 0 ? this.initialPause : maxPause, maxPause);
+	}
+
+	/**
+	 * @param initialPause the pause after the first attempt.
+	 * @param maxPause the maximum pause between attempts.
+	 * @return this poller.
+	 */
+	public Poller<T> backoff(Duration initialPause, Duration maxPause) {
+		Assert.notNull(initialPause, "initialPause must not be null");
+		Assert.notNull(maxPause, "maxPause must not be null");
+		Assert.isTrue(!initialPause.isNegative() && !initialPause.isZero(), "initialPause must be positive");
+		Assert.isTrue(initialPause.compareTo(maxPause) <= 0, "initialPause must not be greater than maxPause");
+		this.initialPause = initialPause;
+		this.maxPause = maxPause;
+		return this;
+	}
+
+	/**
+	 * Polls the state until it satisfies the matcher.
+	 *
+	 * @param matcher the condition the state must satisfy.
+	 * @return the state that satisfied the matcher.
+	 * @throws AssertionError if the state did not satisfy the matcher before the timeout,
+	 * describing the last state, the number of attempts and the time elapsed.
+	 */
+	public T until(Matcher<? super T> matcher) {
+		Assert.notNull(matcher, "matcher must not be null");
+		long start = System.nanoTime();
+		long deadline = start + this.timeout.toNanos();
+		long pause = this.initialPause.toNanos();
+		this.attempts = 0;
+		T state;
+		while (true) {
+			this.attempts++;
+			state = this.supplier.get();
+			if (matcher.matches(state)) {
+				this.elapsed = Duration.ofNanos(System.nanoTime() - start);
+				return state;
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				break;
+			}
+			try {
+				TimeUnit.NANOSECONDS.sleep(Math.min(pause, remaining));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			pause = Math.min(pause * 2, this.maxPause.toNanos());
+		}
+		this.elapsed = Duration.ofNanos(System.nanoTime() - start);
+		Description description = new StringDescription()
+				.appendText("Expected ")
+				.appendDescriptionOf(matcher)
+				.appendText(String.format(" within %d ms, but after %d attempts in %d ms ",
+						this.timeout.toMillis(), this.attempts, this.elapsed.toMillis()));
+		matcher.describeMismatch(state, description);
+		throw new AssertionError(description.toString());
+	}
+
+	/**
+	 * @return the number of attempts made by the last call to {@link #until(Matcher)}.
+	 */
+	public int getAttempts() {
+		return this.attempts;
+	}
+
+	/**
+	 * @return the time taken by the last call to {@link #until(Matcher)}.
+	 */
+	public Duration getElapsed() {
+		return this.elapsed;
+	}
+}
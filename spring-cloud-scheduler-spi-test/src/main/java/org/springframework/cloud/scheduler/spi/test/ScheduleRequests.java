@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test;
+
+import java.util.Collections;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Factory methods for the minimal schedule requests used throughout the tests: a cron
+ * expression and no application or deployment properties.
+ *
+ * @author agent
+ */
+public final class ScheduleRequests {
+
+	/**
+	 * The cron expression of the requests created without one, once a year.
+	 */
+	public static final String DEFAULT_CRON_EXPRESSION = "0 0 1 1 *";
+
+	private ScheduleRequests() {
+	}
+
+	public static ScheduleRequest scheduleRequest(String scheduleName, String taskDefinitionName) {
+		return scheduleRequest(scheduleName, taskDefinitionName, DEFAULT_CRON_EXPRESSION);
+	}
+
+	public static ScheduleRequest scheduleRequest(String scheduleName, String taskDefinitionName,
+			String cronExpression) {
+		return new ScheduleRequest(new AppDefinition(taskDefinitionName, null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, cronExpression),
+				null, scheduleName, new FileSystemResource("timestamp-task.jar"));
+	}
+}
@@ -0,0 +1,500 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+import org.springframework.cloud.scheduler.spi.support.ImmutableScheduleInfo;
+import org.springframework.util.Assert;
+
+/**
+ * An in-process {@link Scheduler} that simulates the behaviour of a remote scheduler
+ * platform, so that retries, caching and batching can be tested without a live
+ * platform or a network.
+ *
+ * The simulator can be configured to
+ *
+ * <ul>
+ * <li>delay each call by a latency drawn uniformly between a minimum and a maximum,</li>
+ * <li>reject calls that exceed a platform wide rate limit with an error whose message
+ * contains {@code 429 Too Many Requests},</li>
+ * <li>fail a fraction of the calls of each operation, before they take effect,</li>
+ * <li>delay the visibility of created and removed schedules in listings, as platforms
+ * whose listings are served from an eventually consistent cache do.</li>
+ * </ul>
+ *
+ * Duplicate and missing schedules are detected against the current state, regardless
+ * of the listing lag.  Latencies and failures are drawn from a seeded {@link Random},
+ * and time is read from a {@link Clock}, so a simulation is repeatable.  When the clock
+ * is a {@link ManualClock} latencies advance it instead of blocking the caller, which
+ * makes single threaded tests fully deterministic.
+ *
+ * @author agent
+ */
+public class SchedulerPlatformSimulator implements Scheduler {
+
+	private final Object monitor = new Object();
+
+	private final Clock clock;
+
+	private final long minLatencyNanos;
+
+	private final long maxLatencyNanos;
+
+	private final Map<Operation, Double> failureRates;
+
+	private final double permitsPerNano;
+
+	private final double burst;
+
+	private final long listLagMillis;
+
+	private final long seed;
+
+	private final Map<Operation, AtomicLong> calls = counters();
+
+	private final Map<Operation, AtomicLong> throttled = counters();
+
+	private final Map<Operation, AtomicLong> failed = counters();
+
+	// the following fields are guarded by the monitor
+
+	private final Map<String, ImmutableScheduleInfo> schedules = new LinkedHashMap<>();
+
+	private final Map<String, ImmutableScheduleInfo> listed = new LinkedHashMap<>();
+
+	private final Queue<Change> pendingChanges = new ArrayDeque<>();
+
+	private Random random;
+
+	private double permits;
+
+	private long lastRefillNanos;
+
+	private SchedulerPlatformSimulator(Builder builder) {
+		this.clock = builder.clock;
+		this.minLatencyNanos = builder.minLatency.toNanos();
+		this.maxLatencyNanos = builder.maxLatency.toNanos();
+		this.failureRates = new EnumMap<>(builder.failureRates);
+		this.permitsPerNano = builder.permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.burst = builder.burst;
+		this.listLagMillis = builder.listLag.toMillis();
+		this.seed = builder.seed;
+		reset();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public void schedule(ScheduleRequest scheduleRequest) {
+		Assert.notNull(scheduleRequest, "scheduleRequest must not be null");
+		String scheduleName = scheduleRequest.getScheduleName();
+		call(Operation.SCHEDULE, cause -> new CreateScheduleException(scheduleName, cause));
+		synchronized (this.monitor) {
+			if (this.schedules.containsKey(scheduleName)) {
+				throw new CreateScheduleException(scheduleName,
+						new IllegalStateException(String.format("Schedule %s already exists", scheduleName)));
+			}
+			ImmutableScheduleInfo scheduleInfo = ImmutableScheduleInfo.builder()
+					.scheduleName(scheduleName)
+					.taskDefinitionName(scheduleRequest.getDefinition().getName())
+					.scheduleProperties(scheduleRequest.getSchedulerProperties())
+					.build();
+			this.schedules.put(scheduleName, scheduleInfo);
+			record(scheduleName, scheduleInfo);
+		}
+	}
+
+	@Override
+	public void unschedule(String scheduleName) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		call(Operation.UNSCHEDULE, cause -> new UnScheduleException(scheduleName, cause));
+		synchronized (this.monitor) {
+			if (this.schedules.remove(scheduleName) == null) {
+				throw new UnScheduleException(String.format("schedule %s does not exist.", scheduleName));
+			}
+			record(scheduleName, null);
+		}
+	}
+
+	@Override
+	public List<ScheduleInfo> list(String taskDefinitionName) {
+		Assert.notNull(taskDefinitionName, "taskDefinitionName must not be null");
+		call(Operation.LIST, cause -> new SchedulerException("Failed to list schedules", cause));
+		List<ScheduleInfo> result = new ArrayList<>();
+		synchronized (this.monitor) {
+			for (ImmutableScheduleInfo scheduleInfo : visibleSchedules()) {
+				if (taskDefinitionName.equals(scheduleInfo.getTaskDefinitionName())) {
+					result.add(scheduleInfo.toScheduleInfo());
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<ScheduleInfo> list() {
+		call(Operation.LIST, cause -> new SchedulerException("Failed to list schedules", cause));
+		List<ScheduleInfo> result = new ArrayList<>();
+		synchronized (this.monitor) {
+			for (ImmutableScheduleInfo scheduleInfo : visibleSchedules()) {
+				result.add(scheduleInfo.toScheduleInfo());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of calls made for the operation, including those that were
+	 * throttled or failed.
+	 */
+	public long getCallCount(Operation operation) {
+		return this.calls.get(operation).get();
+	}
+
+	/**
+	 * @return the number of calls of the operation that were rejected by the rate limit.
+	 */
+	public long getThrottledCount(Operation operation) {
+		return this.throttled.get(operation).get();
+	}
+
+	/**
+	 * @return the number of calls of the operation that failed with a simulated error.
+	 */
+	public long getFailureCount(Operation operation) {
+		return this.failed.get(operation).get();
+	}
+
+	/**
+	 * Removes all schedules, resets the counters and the rate limit and reseeds the
+	 * random number generator, so that the simulation can be repeated.
+	 */
+	public void reset() {
+		synchronized (this.monitor) {
+			this.schedules.clear();
+			this.listed.clear();
+			this.pendingChanges.clear();
+			this.random = new Random(this.seed);
+			this.permits = this.burst;
+			this.lastRefillNanos = nanoTime();
+			for (Operation operation : Operation.values()) {
+				this.calls.get(operation).set(0);
+				this.throttled.get(operation).set(0);
+				this.failed.get(operation).set(0);
+			}
+		}
+	}
+
+	/**
+	 * Applies the rate limit, the latency and the failure rate to a call.  The latency is
+	 * simulated outside of the monitor so that concurrent calls overlap.
+	 */
+	private void call(Operation operation, ExceptionFactory exceptionFactory) {
+		this.calls.get(operation).incrementAndGet();
+		long latencyNanos;
+		boolean failure;
+		synchronized (this.monitor) {
+			if (!tryAcquirePermit()) {
+				this.throttled.get(operation).incrementAndGet();
+				throw exceptionFactory.create(
+						new SchedulerException("429 Too Many Requests: simulated rate limit exceeded"));
+			}
+			latencyNanos = this.minLatencyNanos + (long) (this.random.nextDouble()
+					* (this.maxLatencyNanos - this.minLatencyNanos));
+			failure = this.random.nextDouble() < this.failureRates.getOrDefault(operation, 0d);
+		}
+		simulateLatency(latencyNanos);
+		if (failure) {
+			this.failed.get(operation).incrementAndGet();
+			throw exceptionFactory.create(new SchedulerException("simulated platform failure"));
+		}
+	}
+
+	private boolean tryAcquirePermit() {
+		if (this.permitsPerNano <= 0) {
+			return true;
+		}
+		long now = nanoTime();
+		this.permits = Math.min(this.burst, this.permits + (now - this.lastRefillNanos) * this.permitsPerNano);
+		this.lastRefillNanos = now;
+		if (this.permits < 1) {
+			return false;
+		}
+		this.permits--;
+		return true;
+	}
+
+	private void simulateLatency(long latencyNanos) {
+		if (latencyNanos <= 0) {
+			return;
+		}
+		if (this.clock instanceof ManualClock) {
+			((ManualClock) this.clock).advance(Duration.ofNanos(latencyNanos));
+			return;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(latencyNanos);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SchedulerException("Interrupted while simulating latency", e);
+		}
+	}
+
+	/**
+	 * Records a change to the schedules, which becomes visible in listings once the
+	 * listing lag has elapsed.
+	 */
+	private void record(String scheduleName, ImmutableScheduleInfo scheduleInfo) {
+		this.pendingChanges.add(new Change(this.clock.millis() + this.listLagMillis, scheduleName, scheduleInfo));
+	}
+
+	private Collection<ImmutableScheduleInfo> visibleSchedules() {
+		long now = this.clock.millis();
+		Change change;
+		while ((change = this.pendingChanges.peek()) != null && change.visibleAt <= now) {
+			this.pendingChanges.poll();
+			if (change.scheduleInfo != null) {
+				this.listed.put(change.scheduleName, change.scheduleInfo);
+			}
+			else {
+				this.listed.remove(change.scheduleName);
+			}
+		}
+		return this.listed.values();
+	}
+
+	private long nanoTime() {
+		return TimeUnit.MILLISECONDS.toNanos(this.clock.millis());
+	}
+
+	private static Map<Operation, AtomicLong> counters() {
+		Map<Operation, AtomicLong> counters = new EnumMap<>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			counters.put(operation, new AtomicLong());
+		}
+		return counters;
+	}
+
+	/**
+	 * The calls made to the simulated platform.  Rescheduling is made of an
+	 * {@link #UNSCHEDULE} and a {@link #SCHEDULE} call, looking up a schedule of a
+	 * {@link #LIST} call.
+	 */
+	public enum Operation {
+
+		SCHEDULE,
+
+		UNSCHEDULE,
+
+		LIST
+	}
+
+	@FunctionalInterface
+	private interface ExceptionFactory {
+
+		SchedulerException create(SchedulerException cause);
+	}
+
+	/**
+	 * A created or removed schedule, {@code scheduleInfo} is {@code null} for a removal.
+	 */
+	private static final class Change {
+
+		private final long visibleAt;
+
+		private final String scheduleName;
+
+		private final ImmutableScheduleInfo scheduleInfo;
+
+		private Change(long visibleAt, String scheduleName, ImmutableScheduleInfo scheduleInfo) {
+			this.visibleAt = visibleAt;
+			this.scheduleName = scheduleName;
+			this.scheduleInfo = scheduleInfo;
+		}
+	}
+
+	/**
+	 * A {@link Clock} that only moves when it is advanced, by the test or by the
+	 * latencies of the simulated calls.
+	 */
+	public static class ManualClock extends Clock {
+
+		private final AtomicReference<Instant> instant;
+
+		public ManualClock(Instant start) {
+			Assert.notNull(start, "start must not be null");
+			this.instant = new AtomicReference<>(start);
+		}
+
+		/**
+		 * Moves the clock forward.
+		 *
+		 * @param duration the time to be added to the clock.
+		 */
+		public void advance(Duration duration) {
+			Assert.isTrue(!duration.isNegative(), "duration must not be negative");
+			this.instant.updateAndGet(instant -> instant.plus(duration));
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			if (ZoneOffset.UTC.equals(zone.normalized())) {
+				return this;
+			}
+			throw new UnsupportedOperationException("ManualClock only supports UTC");
+		}
+
+		@Override
+		public Instant instant() {
+			return this.instant.get();
+		}
+	}
+
+	/**
+	 * Builder for {@link SchedulerPlatformSimulator}.  By default the simulator has no
+	 * latency, no rate limit, no failures and no listing lag.
+	 */
+	public static class Builder {
+
+		private Clock clock = Clock.systemUTC();
+
+		private Duration minLatency = Duration.ZERO;
+
+		private Duration maxLatency = Duration.ZERO;
+
+		private final Map<Operation, Double> failureRates = new EnumMap<>(Operation.class);
+
+		private double permitsPerSecond;
+
+		private int burst;
+
+		private Duration listLag = Duration.ZERO;
+
+		private long seed;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param clock the clock used for the rate limit and the listing lag.
+		 */
+		public Builder clock(Clock clock) {
+			Assert.notNull(clock, "clock must not be null");
+			this.clock = clock;
+			return this;
+		}
+
+		/**
+		 * @param minLatency the minimum duration of a call.
+		 * @param maxLatency the maximum duration of a call.
+		 */
+		public Builder latency(Duration minLatency, Duration maxLatency) {
+			Assert.isTrue(minLatency != null && !minLatency.isNegative(), "minLatency must not be negative");
+			Assert.isTrue(maxLatency != null && maxLatency.compareTo(minLatency) >= 0,
+					"maxLatency must not be less than minLatency");
+			this.minLatency = minLatency;
+			this.maxLatency = maxLatency;
+			return this;
+		}
+
+		/**
+		 * @param permitsPerSecond the number of calls of any operation the platform accepts per second.
+		 * @param burst the number of calls the platform accepts at once after being idle.
+		 */
+		public Builder rateLimit(double permitsPerSecond, int burst) {
+			Assert.isTrue(permitsPerSecond > 0, "permitsPerSecond must be greater than zero");
+			Assert.isTrue(burst > 0, "burst must be greater than zero");
+			this.permitsPerSecond = permitsPerSecond;
+			this.burst = burst;
+			return this;
+		}
+
+		/**
+		 * @param operation the operation whose calls fail.
+		 * @param failureRate the probability, between 0 and 1, that a call fails.
+		 */
+		public Builder failureRate(Operation operation, double failureRate) {
+			Assert.notNull(operation, "operation must not be null");
+			Assert.isTrue(failureRate >= 0 && failureRate <= 1, "failureRate must be between 0 and 1");
+			this.failureRates.put(operation, failureRate);
+			return this;
+		}
+
+		/**
+		 * @param failureRate the probability, between 0 and 1, that a call of any operation fails.
+		 */
+		public Builder failureRate(double failureRate) {
+			for (Operation operation : Operation.values()) {
+				failureRate(operation, failureRate);
+			}
+			return this;
+		}
+
+		/**
+		 * @param listLag the time after which created and removed schedules are
+		 * reflected in listings.
+		 */
+		public Builder listLag(Duration listLag) {
+			Assert.isTrue(listLag != null && !listLag.isNegative(), "listLag must not be negative");
+			this.listLag = listLag;
+			return this;
+		}
+
+		/**
+		 * @param seed the seed of the random number generator that draws latencies and failures.
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		public SchedulerPlatformSimulator build() {
+			return new SchedulerPlatformSimulator(this);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test.junit;
+
+import org.junit.Rule;
+
+import org.springframework.cloud.scheduler.spi.test.SchedulerPlatformSimulator;
+import org.springframework.util.Assert;
+
+/**
+ * A JUnit {@link Rule} that provides a {@link SchedulerPlatformSimulator} in place of an
+ * external scheduler platform.  Unlike the rules that detect a live platform the
+ * simulator is always available, so the tests that use it run on any machine.  The
+ * simulator is reset once the tests complete.
+ *
+ * <pre class="code">
+ * &#064;Rule
+ * public SchedulerPlatformSimulatorTestSupport platform = new SchedulerPlatformSimulatorTestSupport(
+ * 		SchedulerPlatformSimulator.builder().rateLimit(10, 5).listLag(Duration.ofSeconds(2)));
+ * </pre>
+ *
+ * @author agent
+ */
+public class SchedulerPlatformSimulatorTestSupport
+		extends AbstractExternalResourceTestSupport<SchedulerPlatformSimulator> {
+
+	private final SchedulerPlatformSimulator.Builder builder;
+
+	/**
+	 * Provides a simulator without latency, rate limit, failures or listing lag.
+	 */
+	public SchedulerPlatformSimulatorTestSupport() {
+		this(SchedulerPlatformSimulator.builder());
+	}
+
+	/**
+	 * @param builder the builder of the simulator to be provided.
+	 */
+	public SchedulerPlatformSimulatorTestSupport(SchedulerPlatformSimulator.Builder builder) {
+		super("SCHEDULER PLATFORM SIMULATOR");
+		Assert.notNull(builder, "builder must not be null");
+		this.builder = builder;
+	}
+
+	@Override
+	protected void obtainResource() {
+		this.resource = this.builder.build();
+	}
+
+	@Override
+	protected void cleanupResource() {
+		this.resource.reset();
+	}
+}
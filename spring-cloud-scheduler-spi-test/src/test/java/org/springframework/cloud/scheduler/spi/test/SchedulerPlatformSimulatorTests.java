@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleBatchResult;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.support.RateLimitedScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.cloud.scheduler.spi.test.ScheduleRequests.scheduleRequest;
+
+/**
+ * Verifies the simulated behaviours of the {@link SchedulerPlatformSimulator}.
+ *
+ * @author agent
+ */
+public class SchedulerPlatformSimulatorTests {
+
+	private final SchedulerPlatformSimulator.ManualClock clock =
+			new SchedulerPlatformSimulator.ManualClock(Instant.EPOCH);
+
+	@Test
+	public void testListLag() {
+		SchedulerPlatformSimulator simulator = SchedulerPlatformSimulator.builder()
+				.clock(this.clock)
+				.listLag(Duration.ofSeconds(5))
+				.build();
+		simulator.schedule(scheduleRequest("schedule1", "task"));
+
+		assertThat(simulator.list()).isEmpty();
+		assertThatThrownBy(() -> simulator.schedule(scheduleRequest("schedule1", "task")))
+				.isInstanceOf(CreateScheduleException.class);
+		this.clock.advance(Duration.ofSeconds(5));
+		assertThat(simulator.list()).hasSize(1);
+		assertThat(simulator.list("task")).hasSize(1);
+
+		simulator.unschedule("schedule1");
+		assertThat(simulator.exists("schedule1")).isTrue();
+		this.clock.advance(Duration.ofSeconds(5));
+		assertThat(simulator.exists("schedule1")).isFalse();
+	}
+
+	@Test
+	public void testRateLimit() {
+		SchedulerPlatformSimulator simulator = SchedulerPlatformSimulator.builder()
+				.clock(this.clock)
+				.rateLimit(1, 2)
+				.build();
+		simulator.list();
+		simulator.list();
+
+		assertThatThrownBy(() -> simulator.schedule(scheduleRequest("schedule1", "task")))
+				.isInstanceOf(CreateScheduleException.class)
+				.matches(RateLimitedScheduler::isThrottlingError);
+		assertThat(simulator.getThrottledCount(SchedulerPlatformSimulator.Operation.SCHEDULE)).isEqualTo(1);
+		this.clock.advance(Duration.ofSeconds(1));
+		simulator.schedule(scheduleRequest("schedule1", "task"));
+		assertThat(simulator.getCallCount(SchedulerPlatformSimulator.Operation.SCHEDULE)).isEqualTo(2);
+	}
+
+	@Test
+	public void testFailuresAreRepeatable() {
+		SchedulerPlatformSimulator.Builder builder = SchedulerPlatformSimulator.builder()
+				.clock(this.clock)
+				.latency(Duration.ofMillis(10), Duration.ofMillis(20))
+				.failureRate(SchedulerPlatformSimulator.Operation.SCHEDULE, 0.5)
+				.seed(42);
+		List<Boolean> first = scheduleAll(builder.build());
+		List<Boolean> second = scheduleAll(builder.build());
+
+		assertThat(first).isEqualTo(second).contains(true, false);
+		assertThat(this.clock.millis()).isGreaterThanOrEqualTo(2 * 20 * 10);
+	}
+
+	@Test
+	public void testRateLimitedSchedulerRetriesThrottledCalls() {
+		SchedulerPlatformSimulator simulator = SchedulerPlatformSimulator.builder()
+				.rateLimit(50, 2)
+				.build();
+		RateLimitedScheduler scheduler = RateLimitedScheduler.builder(simulator)
+				.maxRetries(20)
+				.backoff(Duration.ofMillis(5), Duration.ofMillis(50))
+				.build();
+		List<ScheduleRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			requests.add(scheduleRequest("schedule" + i, "task"));
+		}
+
+		ScheduleBatchResult result = scheduler.scheduleAll(requests);
+
+		assertThat(result.getFailed()).isEmpty();
+		assertThat(result.getSucceeded()).hasSize(10);
+		assertThat(simulator.getThrottledCount(SchedulerPlatformSimulator.Operation.SCHEDULE)).isPositive();
+		assertThat(scheduler.list()).hasSize(10);
+	}
+
+	@Test
+	public void testManualClock() {
+		this.clock.advance(Duration.ofNanos(1500));
+		this.clock.advance(Duration.ofNanos(1500));
+		assertThat(this.clock.instant()).isEqualTo(Instant.EPOCH.plusNanos(3000));
+		assertThat(this.clock.withZone(ZoneOffset.UTC)).isSameAs(this.clock);
+		assertThat(this.clock.withZone(ZoneId.of("UTC"))).isSameAs(this.clock);
+		assertThatThrownBy(() -> this.clock.withZone(ZoneId.of("Europe/Paris")))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testPollerWaitsForListLag() {
+		SchedulerPlatformSimulator simulator = SchedulerPlatformSimulator.builder()
+				.listLag(Duration.ofMillis(200))
+				.build();
+		simulator.schedule(scheduleRequest("schedule1", "task"));
+		assertThat(simulator.list()).isEmpty();
+
+		Poller<List<ScheduleInfo>> poller = Poller.poll(simulator::list);
+		poller.within(Duration.ofSeconds(10))
+				.backoff(Duration.ofMillis(10), Duration.ofMillis(50))
+				.until(hasSize(1));
+		assertThat(poller.getAttempts()).isGreaterThan(1);
+		assertThat(poller.getElapsed()).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+	}
+
+	private List<Boolean> scheduleAll(SchedulerPlatformSimulator simulator) {
+		List<Boolean> outcomes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			String scheduleName = "schedule" + i;
+			try {
+				simulator.schedule(scheduleRequest(scheduleName, "task"));
+				outcomes.add(true);
+			}
+			catch (CreateScheduleException e) {
+				outcomes.add(false);
+			}
+			assertThat(simulator.exists(scheduleName)).isEqualTo(outcomes.get(i));
+		}
+		assertThat(simulator.getFailureCount(SchedulerPlatformSimulator.Operation.SCHEDULE))
+				.isEqualTo(outcomes.stream().filter(outcome -> !outcome).count());
+		return outcomes;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A non-blocking variant of the {@link Scheduler}.  Each operation returns immediately
+ * with a {@link CompletableFuture} that is completed once the underlying scheduler
+ * system has processed the request.  Failures are reported by completing the future
+ * exceptionally with the same exceptions the {@link Scheduler} contract defines.
+ *
+ * The future itself is completed with these exceptions, so that they are passed as is
+ * to {@link CompletableFuture#exceptionally} and {@link CompletableFuture#whenComplete}
+ * callbacks.  As for any {@link CompletableFuture}, {@link CompletableFuture#join()}
+ * throws them wrapped in a {@link CompletionException},
+ * {@link CompletableFuture#get()} wrapped in an
+ * {@link java.util.concurrent.ExecutionException}, and stages derived from the future
+ * receive them wrapped in a {@link CompletionException}.
+ *
+ * Existing {@link Scheduler} implementations can be exposed as an
+ * {@code AsyncScheduler} by using
+ * {@link org.springframework.cloud.scheduler.spi.support.AsyncSchedulerAdapter}.
+ *
+ * @author agent
+ */
+public interface AsyncScheduler {
+
+	/**
+	 * Registers the {@link ScheduleRequest} to be executed based on the cron expression
+	 * provided.  If an error occurs during schedule creation then the future is
+	 * completed with a {@link CreateScheduleException}.
+	 *
+	 * @param scheduleRequest A request representing a sched-uable artifact, schedule
+	 * properties, and deployment properties.
+	 * @return a future that completes once the schedule has been created.
+	 * @see Scheduler#schedule(ScheduleRequest)
+	 */
+	CompletableFuture<Void> schedule(ScheduleRequest scheduleRequest);
+
+	/**
+	 * Deletes a schedule that has been created.  If an error occurs during
+	 * un-scheduling then the future is completed with an {@link UnScheduleException}.
+	 *
+	 * @param scheduleName the name of the schedule to be removed.
+	 * @return a future that completes once the schedule has been removed.
+	 * @see Scheduler#unschedule(String)
+	 */
+	CompletableFuture<Void> unschedule(String scheduleName);
+
+	/**
+	 * Replaces the existing schedule that has the name of the {@link ScheduleRequest}
+	 * provided.  If no such schedule exists, or the new schedule could not be created,
+	 * the future is completed with a {@link SchedulerException}.
+	 *
+	 * The default implementation composes {@link #unschedule(String)} and
+	 * {@link #schedule(ScheduleRequest)} and therefore shares the limitations of
+	 * {@link Scheduler#reschedule(ScheduleRequest)}'s default implementation.
+	 *
+	 * @param scheduleRequest the request replacing the schedule of the same name.
+	 * @return a future that completes once the schedule has been replaced.
+	 * @see Scheduler#reschedule(ScheduleRequest)
+	 */
+	default CompletableFuture<Void> reschedule(ScheduleRequest scheduleRequest) {
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		unschedule(scheduleRequest.getScheduleName())
+				.thenCompose(ignored -> schedule(scheduleRequest))
+				.whenComplete((ignored, throwable) -> {
+					if (throwable == null) {
+						result.complete(null);
+					}
+					else {
+						// unwrap the CompletionException added by thenCompose
+						result.completeExceptionally(throwable instanceof CompletionException
+								&& throwable.getCause() != null ? throwable.getCause() : throwable);
+					}
+				});
+		return result;
+	}
+
+	/**
+	 * List all of the Schedules associated with the provided AppDefinition.
+	 *
+	 * @param taskDefinitionName to retrieve {@link ScheduleInfo}s for a specified taskDefinitionName.
+	 * @return a future for the List of {@link ScheduleInfo}s configured for the provided taskDefinitionName.
+	 * @see Scheduler#list(String)
+	 */
+	CompletableFuture<List<ScheduleInfo>> list(String taskDefinitionName);
+
+	/**
+	 * List all of the {@link ScheduleInfo}s registered with the system.
+	 *
+	 * @return a future for the List of {@link ScheduleInfo}s for the given system.
+	 * @see Scheduler#list()
+	 */
+	CompletableFuture<List<ScheduleInfo>> list();
+}
@@ -26,4 +26,8 @@ public class CreateScheduleException extends SchedulerException{
 	public CreateScheduleException(String scheduleName, Throwable t) {
 		super(String.format("Failed to create schedule %s",scheduleName), t);
 	}
+
+	public CreateScheduleException(String scheduleName, String reason, Throwable t) {
+		super(String.format("Failed to create schedule %s, %s", scheduleName, reason), t);
+	}
 }
@@ -0,0 +1,707 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A compiled cron expression.  Each field of the expression is represented as a bit
+ * set, so that matching a point in time and computing the next or previous fire time
+ * only involves bit operations and integer arithmetic.  Instances are immutable and
+ * thread safe.
+ *
+ * The standard five field format ({@code minute hour day-of-month month day-of-week})
+ * is supported, as is a six field format whose first field holds the seconds.  Each
+ * field may contain {@code *}, single values, ranges ({@code 1-5}), steps
+ * ({@code *}{@code /15}, {@code 0-30/10}) and comma separated lists of these.  Month
+ * and day-of-week fields also accept three letter names ({@code JAN}, {@code MON}),
+ * the day-of-week field accepts both {@code 0} and {@code 7} for Sunday and
+ * {@code ?} is accepted in place of {@code *} for the day fields.  The
+ * {@code @yearly}, {@code @annually}, {@code @monthly}, {@code @weekly},
+ * {@code @daily}, {@code @midnight} and {@code @hourly} macros are supported as well.
+ *
+ * As in standard cron, if both the day-of-month and day-of-week fields are restricted
+ * (do not start with {@code *} or {@code ?}) a day matches when either field matches.
+ *
+ * Compiled expressions are cached by their string representation, so repeatedly
+ * compiling the expressions of the same schedules is cheap.
+ *
+ * @author agent
+ */
+public final class CronExpression {
+
+	private static final int MAX_CACHE_SIZE = 4096;
+
+	private static final ConcurrentMap<String, CronExpression> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of years searched for a matching date before concluding that the
+	 * expression never fires, enough to cover the eight year gap between leap days
+	 * around a century that is not a leap year.
+	 */
+	private static final int MAX_YEARS_SEARCHED = 9;
+
+	private static final long SECONDS_PER_DAY = 86400;
+
+	private static final String[] MONTH_NAMES = { "JAN", "FEB", "MAR", "APR", "MAY", "JUN",
+			"JUL", "AUG", "SEP", "OCT", "NOV", "DEC" };
+
+	private static final String[] DAY_OF_WEEK_NAMES = { "SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT" };
+
+	private final String expression;
+
+	private final long seconds;
+
+	private final long minutes;
+
+	private final long hours;
+
+	private final long daysOfMonth;
+
+	private final long months;
+
+	private final long daysOfWeek;
+
+	private final boolean daysOfMonthRestricted;
+
+	private final boolean daysOfWeekRestricted;
+
+	private CronExpression(String expression, long seconds, long minutes, long hours, long daysOfMonth,
+			long months, long daysOfWeek, boolean daysOfMonthRestricted, boolean daysOfWeekRestricted) {
+		this.expression = expression;
+		this.seconds = seconds;
+		this.minutes = minutes;
+		this.hours = hours;
+		this.daysOfMonth = daysOfMonth;
+		this.months = months;
+		this.daysOfWeek = daysOfWeek;
+		this.daysOfMonthRestricted = daysOfMonthRestricted;
+		this.daysOfWeekRestricted = daysOfWeekRestricted;
+	}
+
+	/**
+	 * Returns the compiled form of the specified cron expression.
+	 *
+	 * @param expression the cron expression.
+	 * @return the compiled expression.
+	 * @throws IllegalArgumentException if the expression is not valid, the message
+	 * describes the problem.
+	 */
+	public static CronExpression compile(String expression) {
+		Assert.notNull(expression, "expression must not be null");
+		CronExpression compiled = cache.get(expression);
+		if (compiled == null) {
+			compiled = parse(expression);
+			if (cache.size() >= MAX_CACHE_SIZE) {
+				cache.clear();
+			}
+			cache.putIfAbsent(expression, compiled);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Returns the compiled form of the {@link SchedulerPropertyKeys#CRON_EXPRESSION}
+	 * scheduler property of the specified request.
+	 *
+	 * @param scheduleRequest the request containing the cron expression.
+	 * @return the compiled expression.
+	 * @throws CreateScheduleException if the property is missing or is not a valid
+	 * cron expression.
+	 */
+	public static CronExpression compile(ScheduleRequest scheduleRequest) {
+		String expression = scheduleRequest.getSchedulerProperties().get(SchedulerPropertyKeys.CRON_EXPRESSION);
+		if (!StringUtils.hasText(expression)) {
+			throw new CreateScheduleException(scheduleRequest.getScheduleName(),
+					String.format("the %s scheduler property is required", SchedulerPropertyKeys.CRON_EXPRESSION),
+					null);
+		}
+		try {
+			return compile(expression);
+		}
+		catch (IllegalArgumentException e) {
+			throw new CreateScheduleException(scheduleRequest.getScheduleName(), e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @param expression the cron expression.
+	 * @return {@code true} if the specified cron expression is valid.
+	 */
+	public static boolean isValid(String expression) {
+		try {
+			compile(expression);
+			return true;
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Computes the first fire time strictly after the specified time, evaluating the
+	 * expression in UTC.
+	 *
+	 * @param epochMillis the time, in milliseconds since the epoch, to search from.
+	 * @return the next fire time in milliseconds since the epoch, or {@code -1} if the
+	 * expression never fires.
+	 */
+	public long nextFireTime(long epochMillis) {
+		return nextFireTime(epochMillis, ZoneOffset.UTC);
+	}
+
+	/**
+	 * Computes the first fire time strictly after the specified time, evaluating the
+	 * expression in the specified time zone.  No objects are allocated for zones with a
+	 * fixed offset, such as UTC.
+	 *
+	 * @param epochMillis the time, in milliseconds since the epoch, to search from.
+	 * @param zone the time zone in which the expression is evaluated.
+	 * @return the next fire time in milliseconds since the epoch, or {@code -1} if the
+	 * expression never fires.
+	 */
+	public long nextFireTime(long epochMillis, ZoneId zone) {
+		ZoneRules rules = zone.getRules();
+		if (rules.isFixedOffset()) {
+			int offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+			long next = nextLocalSecond(Math.floorDiv(epochMillis, 1000L) + offset);
+			return next == -1 ? -1 : (next - offset) * 1000;
+		}
+		ZonedDateTime next = next(Instant.ofEpochMilli(epochMillis).atZone(zone));
+		return next == null ? -1 : next.toInstant().toEpochMilli();
+	}
+
+	/**
+	 * Computes the last fire time strictly before the specified time, evaluating the
+	 * expression in UTC.
+	 *
+	 * @param epochMillis the time, in milliseconds since the epoch, to search from.
+	 * @return the previous fire time in milliseconds since the epoch, or {@code -1} if
+	 * the expression never fires.
+	 */
+	public long previousFireTime(long epochMillis) {
+		return previousFireTime(epochMillis, ZoneOffset.UTC);
+	}
+
+	/**
+	 * Computes the last fire time strictly before the specified time, evaluating the
+	 * expression in the specified time zone.  No objects are allocated for zones with
+	 * a fixed offset, such as UTC.
+	 *
+	 * @param epochMillis the time, in milliseconds since the epoch, to search from.
+	 * @param zone the time zone in which the expression is evaluated.
+	 * @return the previous fire time in milliseconds since the epoch, or {@code -1} if
+	 * the expression never fires.
+	 */
+	public long previousFireTime(long epochMillis, ZoneId zone) {
+		ZoneRules rules = zone.getRules();
+		if (rules.isFixedOffset()) {
+			int offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+			long previous = previousLocalSecond(-Math.floorDiv(-epochMillis, 1000L) + offset);
+			return previous == -1 ? -1 : (previous - offset) * 1000;
+		}
+		ZonedDateTime previous = previous(Instant.ofEpochMilli(epochMillis).atZone(zone));
+		return previous == null ? -1 : previous.toInstant().toEpochMilli();
+	}
+
+	/**
+	 * Computes the first fire time strictly after the specified date time, evaluating
+	 * the expression in its time zone.  Fire times that fall into a daylight saving
+	 * time gap are shifted forward by the length of the gap.  A local time that occurs
+	 * twice because of a daylight saving time overlap fires once, at its first
+	 * occurrence.
+	 *
+	 * @param dateTime the date time to search from.
+	 * @return the next fire time, or {@code null} if the expression never fires.
+	 */
+	public ZonedDateTime next(ZonedDateTime dateTime) {
+		long localSecond = dateTime.toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+		while (true) {
+			localSecond = nextLocalSecond(localSecond);
+			if (localSecond == -1) {
+				return null;
+			}
+			ZonedDateTime candidate = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC)
+					.atZone(dateTime.getZone());
+			if (candidate.isAfter(dateTime)) {
+				return candidate;
+			}
+			// the first occurrence of a local time of an overlap the search started in
+		}
+	}
+
+	/**
+	 * Computes the last fire time strictly before the specified date time, evaluating
+	 * the expression in its time zone, consistently with {@link #next(ZonedDateTime)}.
+	 *
+	 * @param dateTime the date time to search from.
+	 * @return the previous fire time, or {@code null} if the expression never fires.
+	 */
+	public ZonedDateTime previous(ZonedDateTime dateTime) {
+		LocalDateTime start = dateTime.toLocalDateTime();
+		if (!dateTime.withEarlierOffsetAtOverlap().equals(dateTime)) {
+			// the first occurrences of all the local times of the overlap have passed
+			start = dateTime.getZone().getRules().getTransition(start).getDateTimeBefore();
+		}
+		long localSecond = start.toEpochSecond(ZoneOffset.UTC);
+		if (dateTime.getNano() > 0 && start.equals(dateTime.toLocalDateTime())) {
+			localSecond++;
+		}
+		while (true) {
+			localSecond = previousLocalSecond(localSecond);
+			if (localSecond == -1) {
+				return null;
+			}
+			ZonedDateTime candidate = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC)
+					.atZone(dateTime.getZone());
+			if (candidate.isBefore(dateTime)) {
+				return candidate;
+			}
+			// a local time of a gap, shifted past the date time
+		}
+	}
+
+	/**
+	 * @return the cron expression this instance was compiled from.
+	 */
+	public String getExpression() {
+		return expression;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof CronExpression)) return false;
+
+		CronExpression that = (CronExpression) o;
+
+		return seconds == that.seconds && minutes == that.minutes && hours == that.hours
+				&& daysOfMonth == that.daysOfMonth && months == that.months
+				&& daysOfWeek == that.daysOfWeek
+				&& daysOfMonthRestricted == that.daysOfMonthRestricted
+				&& daysOfWeekRestricted == that.daysOfWeekRestricted;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = Long.hashCode(seconds);
+		result = 31 * result + Long.hashCode(minutes);
+		result = 31 * result + Long.hashCode(hours);
+		result = 31 * result + Long.hashCode(daysOfMonth);
+		result = 31 * result + Long.hashCode(months);
+		result = 31 * result + Long.hashCode(daysOfWeek);
+		result = 31 * result + (daysOfMonthRestricted ? 1 : 0);
+		result = 31 * result + (daysOfWeekRestricted ? 1 : 0);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+
+	/**
+	 * Searches for the first matching second strictly after the specified one.  Seconds
+	 * are counted from the epoch in local time, that is as if the time zone were UTC.
+	 */
+	private long nextLocalSecond(long localSecond) {
+		long start = localSecond + 1;
+		long date = civilFromDays(Math.floorDiv(start, SECONDS_PER_DAY));
+		int year = year(date);
+		int month = month(date);
+		int day = day(date);
+		int secondOfDay = (int) Math.floorMod(start, SECONDS_PER_DAY);
+		int hour = secondOfDay / 3600;
+		int minute = (secondOfDay / 60) % 60;
+		int second = secondOfDay % 60;
+		int lastYear = year + MAX_YEARS_SEARCHED;
+
+		while (year <= lastYear) {
+			if (second > 59) {
+				second = 0;
+				minute++;
+			}
+			if (minute > 59) {
+				minute = 0;
+				hour++;
+			}
+			if (hour > 23) {
+				hour = 0;
+				day++;
+			}
+			if (day > daysInMonth(year, month)) {
+				day = 1;
+				month++;
+			}
+			if (month > 12) {
+				month = 1;
+				year++;
+			}
+
+			int nextMonth = nextBit(this.months, month);
+			if (nextMonth != month) {
+				if (nextMonth == -1) {
+					year++;
+					month = nextBit(this.months, 1);
+				}
+				else {
+					month = nextMonth;
+				}
+				day = 1;
+				hour = 0;
+				minute = 0;
+				second = 0;
+				continue;
+			}
+			if (!dayMatches(year, month, day)) {
+				day++;
+				hour = 0;
+				minute = 0;
+				second = 0;
+				continue;
+			}
+			int nextHour = nextBit(this.hours, hour);
+			if (nextHour != hour) {
+				hour = nextHour == -1 ? 24 : nextHour;
+				minute = 0;
+				second = 0;
+				continue;
+			}
+			int nextMinute = nextBit(this.minutes, minute);
+			if (nextMinute != minute) {
+				minute = nextMinute == -1 ? 60 : nextMinute;
+				second = 0;
+				continue;
+			}
+			int nextSecond = nextBit(this.seconds, second);
+			if (nextSecond != second) {
+				second = nextSecond == -1 ? 60 : nextSecond;
+				continue;
+			}
+			return daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+		}
+		return -1;
+	}
+
+	/**
+	 * Searches for the last matching second strictly before the specified one.  Seconds
+	 * are counted from the epoch in local time, that is as if the time zone were UTC.
+	 */
+	private long previousLocalSecond(long localSecond) {
+		long start = localSecond - 1;
+		long date = civilFromDays(Math.floorDiv(start, SECONDS_PER_DAY));
+		int year = year(date);
+		int month = month(date);
+		int day = day(date);
+		int secondOfDay = (int) Math.floorMod(start, SECONDS_PER_DAY);
+		int hour = secondOfDay / 3600;
+		int minute = (secondOfDay / 60) % 60;
+		int second = secondOfDay % 60;
+		int firstYear = year - MAX_YEARS_SEARCHED;
+
+		while (year >= firstYear) {
+			if (second < 0) {
+				second = 59;
+				minute--;
+			}
+			if (minute < 0) {
+				minute = 59;
+				hour--;
+			}
+			if (hour < 0) {
+				hour = 23;
+				day--;
+			}
+			if (day < 1) {
+				month--;
+				if (month < 1) {
+					month = 12;
+					year--;
+				}
+				day = daysInMonth(year, month);
+			}
+
+			int previousMonth = previousBit(this.months, month);
+			if (previousMonth != month) {
+				if (previousMonth == -1) {
+					year--;
+					month = previousBit(this.months, 12);
+				}
+				else {
+					month = previousMonth;
+				}
+				day = daysInMonth(year, month);
+				hour = 23;
+				minute = 59;
+				second = 59;
+				continue;
+			}
+			if (!dayMatches(year, month, day)) {
+				day--;
+				hour = 23;
+				minute = 59;
+				second = 59;
+				continue;
+			}
+			int previousHour = previousBit(this.hours, hour);
+			if (previousHour != hour) {
+				hour = previousHour;
+				minute = 59;
+				second = 59;
+				continue;
+			}
+			int previousMinute = previousBit(this.minutes, minute);
+			if (previousMinute != minute) {
+				minute = previousMinute;
+				second = 59;
+				continue;
+			}
+			int previousSecond = previousBit(this.seconds, second);
+			if (previousSecond != second) {
+				second = previousSecond;
+				continue;
+			}
+			return daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+		}
+		return -1;
+	}
+
+	private boolean dayMatches(int year, int month, int day) {
+		boolean dayOfMonthMatches = (this.daysOfMonth & (1L << day)) != 0;
+		int dayOfWeek = (int) Math.floorMod(daysFromCivil(year, month, day) + 4, 7L);
+		boolean dayOfWeekMatches = (this.daysOfWeek & (1L << dayOfWeek)) != 0;
+		if (this.daysOfMonthRestricted && this.daysOfWeekRestricted) {
+			return dayOfMonthMatches || dayOfWeekMatches;
+		}
+		return dayOfMonthMatches && dayOfWeekMatches;
+	}
+
+	/**
+	 * Returns the lowest set bit at or above the specified index, or {@code -1}.
+	 */
+	private static int nextBit(long bits, int fromIndex) {
+		if (fromIndex > 63) {
+			return -1;
+		}
+		long candidates = bits & (-1L << fromIndex);
+		return candidates == 0 ? -1 : Long.numberOfTrailingZeros(candidates);
+	}
+
+	/**
+	 * Returns the highest set bit at or below the specified index, or {@code -1}.
+	 */
+	private static int previousBit(long bits, int fromIndex) {
+		if (fromIndex < 0) {
+			return -1;
+		}
+		long candidates = bits & (-1L >>> (63 - fromIndex));
+		return candidates == 0 ? -1 : 63 - Long.numberOfLeadingZeros(candidates);
+	}
+
+	private static int daysInMonth(int year, int month) {
+		switch (month) {
+		case 2:
+			return isLeapYear(year) ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	private static boolean isLeapYear(int year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+
+	/**
+	 * Returns the number of days since the epoch of the specified proleptic Gregorian date.
+	 */
+	private static long daysFromCivil(int year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400L);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	/**
+	 * Returns the proleptic Gregorian date of the specified number of days since the
+	 * epoch, packed into a long to avoid allocating.
+	 */
+	private static long civilFromDays(long epochDay) {
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097L);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+		long month = mp < 10 ? mp + 3 : mp - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return (year << 9) | (month << 5) | day;
+	}
+
+	private static int year(long date) {
+		return (int) (date >> 9);
+	}
+
+	private static int month(long date) {
+		return (int) ((date >> 5) & 0xF);
+	}
+
+	private static int day(long date) {
+		return (int) (date & 0x1F);
+	}
+
+	private static CronExpression parse(String expression) {
+		String trimmed = expression.trim();
+		String resolved = resolveMacro(trimmed);
+		String[] fields = StringUtils.tokenizeToStringArray(resolved != null ? resolved : trimmed, " \t");
+		if (fields.length != 5 && fields.length != 6) {
+			throw new IllegalArgumentException(String.format(
+					"invalid cron expression '%s': expected 5 or 6 fields but found %d", expression, fields.length));
+		}
+		int offset = fields.length == 6 ? 1 : 0;
+		long seconds = offset == 1 ? parseField(expression, fields[0], "second", 0, 59, null) : 1L;
+		long minutes = parseField(expression, fields[offset], "minute", 0, 59, null);
+		long hours = parseField(expression, fields[offset + 1], "hour", 0, 23, null);
+		long daysOfMonth = parseField(expression, fields[offset + 2], "day-of-month", 1, 31, null);
+		long months = parseField(expression, fields[offset + 3], "month", 1, 12, MONTH_NAMES);
+		long daysOfWeek = parseField(expression, fields[offset + 4], "day-of-week", 0, 7, DAY_OF_WEEK_NAMES);
+		if ((daysOfWeek & (1L << 7)) != 0) {
+			// 7 is an alias for Sunday
+			daysOfWeek = (daysOfWeek & ~(1L << 7)) | 1L;
+		}
+		return new CronExpression(expression, seconds, minutes, hours, daysOfMonth, months, daysOfWeek,
+				isRestricted(fields[offset + 2]), isRestricted(fields[offset + 4]));
+	}
+
+	private static String resolveMacro(String expression) {
+		switch (expression.toLowerCase(Locale.ROOT)) {
+		case "@yearly":
+		case "@annually":
+			return "0 0 1 1 *";
+		case "@monthly":
+			return "0 0 1 * *";
+		case "@weekly":
+			return "0 0 * * 0";
+		case "@daily":
+		case "@midnight":
+			return "0 0 * * *";
+		case "@hourly":
+			return "0 * * * *";
+		default:
+			return null;
+		}
+	}
+
+	private static boolean isRestricted(String field) {
+		return !field.startsWith("*") && !field.startsWith("?");
+	}
+
+	private static long parseField(String expression, String field, String fieldName, int min, int max,
+			String[] names) {
+		long bits = 0;
+		for (String element : StringUtils.delimitedListToStringArray(field, ",")) {
+			if (element.isEmpty()) {
+				throw invalidField(expression, fieldName, field, "empty list element");
+			}
+			String range = element;
+			int step = 1;
+			int slash = element.indexOf('/');
+			if (slash >= 0) {
+				range = element.substring(0, slash);
+				step = parseNumber(expression, fieldName, element.substring(slash + 1), field);
+				if (step < 1) {
+					throw invalidField(expression, fieldName, field, "step must be greater than zero");
+				}
+			}
+			int start;
+			int end;
+			if ("*".equals(range) || ("?".equals(range) && fieldName.startsWith("day-of"))) {
+				start = min;
+				end = max;
+			}
+			else {
+				int dash = range.indexOf('-', 1);
+				if (dash >= 0) {
+					start = parseValue(expression, fieldName, range.substring(0, dash), field, names, min, max);
+					end = parseValue(expression, fieldName, range.substring(dash + 1), field, names, min, max);
+					if (end < start) {
+						throw invalidField(expression, fieldName, field,
+								String.format("range %s-%s is reversed", start, end));
+					}
+				}
+				else {
+					start = parseValue(expression, fieldName, range, field, names, min, max);
+					end = slash >= 0 ? max : start;
+				}
+			}
+			for (int value = start; value <= end; value += step) {
+				bits |= 1L << value;
+			}
+		}
+		return bits;
+	}
+
+	private static int parseValue(String expression, String fieldName, String value, String field,
+			String[] names, int min, int max) {
+		if (names != null) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equalsIgnoreCase(value)) {
+					return names == MONTH_NAMES ? i + 1 : i;
+				}
+			}
+		}
+		int number = parseNumber(expression, fieldName, value, field);
+		if (number < min || number > max) {
+			throw invalidField(expression, fieldName, field,
+					String.format("value %d is out of range %d-%d", number, min, max));
+		}
+		return number;
+	}
+
+	private static int parseNumber(String expression, String fieldName, String value, String field) {
+		try {
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e) {
+			throw invalidField(expression, fieldName, field, String.format("'%s' is not a valid value", value));
+		}
+	}
+
+	private static IllegalArgumentException invalidField(String expression, String fieldName, String field,
+			String reason) {
+		return new IllegalArgumentException(String.format("invalid cron expression '%s': %s in %s field '%s'",
+				expression, reason, fieldName, field));
+	}
+}
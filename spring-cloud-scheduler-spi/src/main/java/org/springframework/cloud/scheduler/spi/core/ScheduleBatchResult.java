@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ * The per-item outcome of a batch operation such as
+ * {@link Scheduler#scheduleAll(java.util.Collection)} or
+ * {@link Scheduler#unscheduleAll(java.util.Collection)}. Each schedule name in the batch
+ * is reported either as a success or as a failure along with the
+ * {@link SchedulerException} (typically a {@link CreateScheduleException} or an
+ * {@link UnScheduleException}) that caused it.  As the outcomes are keyed by schedule
+ * name, a batch must not contain the same schedule name more than once.
+ *
+ * @author agent
+ */
+public class ScheduleBatchResult {
+
+	private final List<String> succeeded = new ArrayList<>();
+
+	private final Map<String, SchedulerException> failed = new LinkedHashMap<>();
+
+	/**
+	 * Checks that a batch does not contain the same schedule name more than once, so
+	 * that its outcomes can be reported per schedule name.
+	 *
+	 * @param scheduleNames the names of the schedules in the batch.
+	 * @throws IllegalArgumentException if a schedule name occurs more than once.
+	 */
+	public static void assertDistinctScheduleNames(Collection<String> scheduleNames) {
+		Assert.notNull(scheduleNames, "scheduleNames must not be null");
+		Set<String> seen = new HashSet<>(scheduleNames.size() * 4 / 3 + 1);
+		for (String scheduleName : scheduleNames) {
+			Assert.isTrue(seen.add(scheduleName), () -> "duplicate schedule " + scheduleName + " in batch");
+		}
+	}
+
+	/**
+	 * Records that the operation for the specified schedule completed successfully.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @throws IllegalArgumentException if an outcome has already been recorded for the
+	 * schedule.
+	 */
+	public void addSuccess(String scheduleName) {
+		assertNotRecorded(scheduleName);
+		this.succeeded.add(scheduleName);
+	}
+
+	/**
+	 * Records that the operation for the specified schedule failed.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @param exception the exception that caused the failure.
+	 * @throws IllegalArgumentException if an outcome has already been recorded for the
+	 * schedule.
+	 */
+	public void addFailure(String scheduleName, SchedulerException exception) {
+		assertNotRecorded(scheduleName);
+		this.failed.put(scheduleName, exception);
+	}
+
+	/**
+	 * Merges the outcomes of another result into this one.
+	 *
+	 * @param other the result to be merged.
+	 * @throws IllegalArgumentException if both results contain an outcome for the same
+	 * schedule.
+	 */
+	public void addAll(ScheduleBatchResult other) {
+		for (String scheduleName : other.succeeded) {
+			addSuccess(scheduleName);
+		}
+		for (Map.Entry<String, SchedulerException> failure : other.failed.entrySet()) {
+			addFailure(failure.getKey(), failure.getValue());
+		}
+	}
+
+	/**
+	 * @return the names of the schedules for which the operation succeeded, in the
+	 * order they were processed.
+	 */
+	public List<String> getSucceeded() {
+		return Collections.unmodifiableList(this.succeeded);
+	}
+
+	/**
+	 * @return the exceptions keyed by the names of the schedules for which the
+	 * operation failed, in the order they were processed.
+	 */
+	public Map<String, SchedulerException> getFailed() {
+		return Collections.unmodifiableMap(this.failed);
+	}
+
+	/**
+	 * @return {@code true} if the operation failed for at least one schedule.
+	 */
+	public boolean hasFailures() {
+		return !this.failed.isEmpty();
+	}
+
+	private void assertNotRecorded(String scheduleName) {
+		Assert.isTrue(!this.failed.containsKey(scheduleName) && !this.succeeded.contains(scheduleName),
+				() -> "an outcome has already been recorded for schedule " + scheduleName);
+	}
+
+	@Override
+	public String toString() {
+		return "ScheduleBatchResult{" +
+				"succeeded=" + succeeded +
+				", failed=" + failed.keySet() +
+				'}';
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * A change to the schedules registered with a {@link Scheduler}, delivered to the
+ * {@link ScheduleEventListener}s of a {@link ScheduleWatcher}.
+ *
+ * Events carry a sequence number that increases monotonically for each event published
+ * by a watcher, so that a consumer can resume watching after the last event it has
+ * processed.
+ *
+ * An event holds a copy of the {@link ScheduleInfo} it was created with and returns a new
+ * copy each time it is asked for it, so events can be shared between listeners that
+ * modify the schedules they receive.
+ *
+ * @author agent
+ */
+public class ScheduleEvent {
+
+	private final Type type;
+
+	private final long sequence;
+
+	private final String scheduleName;
+
+	private final String taskDefinitionName;
+
+	private final Map<String, String> scheduleProperties;
+
+	/**
+	 * @param type the kind of change.
+	 * @param sequence the sequence number of the event.
+	 * @param scheduleInfo the schedule after the change, or the last known state of the
+	 * schedule if it was deleted.
+	 */
+	public ScheduleEvent(Type type, long sequence, ScheduleInfo scheduleInfo) {
+		Assert.notNull(type, "type must not be null");
+		Assert.notNull(scheduleInfo, "scheduleInfo must not be null");
+		this.type = type;
+		this.sequence = sequence;
+		this.scheduleName = scheduleInfo.getScheduleName();
+		this.taskDefinitionName = scheduleInfo.getTaskDefinitionName();
+		this.scheduleProperties = scheduleInfo.getScheduleProperties() != null
+				? Collections.unmodifiableMap(new HashMap<>(scheduleInfo.getScheduleProperties()))
+				: null;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return a new copy of the schedule after the change, or of the last known state of
+	 * the schedule if it was deleted.
+	 */
+	public ScheduleInfo getScheduleInfo() {
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(scheduleName);
+		scheduleInfo.setTaskDefinitionName(taskDefinitionName);
+		scheduleInfo.setScheduleProperties(scheduleProperties != null ? new HashMap<>(scheduleProperties) : null);
+		return scheduleInfo;
+	}
+
+	@Override
+	public String toString() {
+		return "ScheduleEvent{" +
+				"type=" + type +
+				", sequence=" + sequence +
+				", scheduleName='" + scheduleName + '\'' +
+				'}';
+	}
+
+	/**
+	 * The kinds of change.
+	 */
+	public enum Type {
+
+		/**
+		 * A schedule was created.
+		 */
+		CREATED,
+
+		/**
+		 * An existing schedule was replaced, for example by
+		 * {@link Scheduler#reschedule(ScheduleRequest)}.
+		 */
+		UPDATED,
+
+		/**
+		 * A schedule was deleted.
+		 */
+		DELETED
+	}
+}
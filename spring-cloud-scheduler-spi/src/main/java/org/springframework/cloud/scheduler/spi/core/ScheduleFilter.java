@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Criteria used to select a subset of the {@link ScheduleInfo}s registered with a
+ * {@link Scheduler}.  All criteria are optional and are combined with a logical AND.
+ * The criteria are deliberately simple (prefix and equality matches) so that
+ * implementations can translate them into a query, label selector or similar
+ * construct of the underlying scheduler system instead of filtering in memory.
+ *
+ * @author agent
+ */
+public class ScheduleFilter {
+
+	private static final ScheduleFilter ALL = new Builder().build();
+
+	/**
+	 * The prefix that schedule names must start with, or {@code null} for any name.
+	 */
+	private final String scheduleNamePrefix;
+
+	/**
+	 * The task definition name schedules must be associated with, or {@code null} for
+	 * any task definition.
+	 */
+	private final String taskDefinitionName;
+
+	/**
+	 * The schedule properties, and their values, that schedules must contain.
+	 */
+	private final Map<String, String> scheduleProperties;
+
+	private ScheduleFilter(String scheduleNamePrefix, String taskDefinitionName,
+			Map<String, String> scheduleProperties) {
+		this.scheduleNamePrefix = scheduleNamePrefix;
+		this.taskDefinitionName = taskDefinitionName;
+		this.scheduleProperties = Collections.unmodifiableMap(scheduleProperties);
+	}
+
+	/**
+	 * @return a filter that matches every schedule.
+	 */
+	public static ScheduleFilter all() {
+		return ALL;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public String getScheduleNamePrefix() {
+		return scheduleNamePrefix;
+	}
+
+	public String getTaskDefinitionName() {
+		return taskDefinitionName;
+	}
+
+	public Map<String, String> getScheduleProperties() {
+		return scheduleProperties;
+	}
+
+	/**
+	 * Evaluates the filter against a {@link ScheduleInfo} in memory.  Implementations
+	 * that cannot push a criterion down to the underlying scheduler system can use this
+	 * method to apply it to the results.
+	 *
+	 * @param scheduleInfo the schedule to evaluate.
+	 * @return {@code true} if the schedule satisfies all of the criteria.
+	 */
+	public boolean matches(ScheduleInfo scheduleInfo) {
+		if (this.scheduleNamePrefix != null && (scheduleInfo.getScheduleName() == null
+				|| !scheduleInfo.getScheduleName().startsWith(this.scheduleNamePrefix))) {
+			return false;
+		}
+		if (this.taskDefinitionName != null
+				&& !this.taskDefinitionName.equals(scheduleInfo.getTaskDefinitionName())) {
+			return false;
+		}
+		if (!this.scheduleProperties.isEmpty()) {
+			Map<String, String> properties = scheduleInfo.getScheduleProperties();
+			if (properties == null) {
+				return false;
+			}
+			for (Map.Entry<String, String> entry : this.scheduleProperties.entrySet()) {
+				if (!entry.getValue().equals(properties.get(entry.getKey()))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "ScheduleFilter{" +
+				"scheduleNamePrefix='" + scheduleNamePrefix + '\'' +
+				", taskDefinitionName='" + taskDefinitionName + '\'' +
+				", scheduleProperties=" + scheduleProperties +
+				'}';
+	}
+
+	/**
+	 * Builder for {@link ScheduleFilter}.
+	 */
+	public static class Builder {
+
+		private String scheduleNamePrefix;
+
+		private String taskDefinitionName;
+
+		private final Map<String, String> scheduleProperties = new LinkedHashMap<>();
+
+		private Builder() {
+		}
+
+		public Builder scheduleNamePrefix(String scheduleNamePrefix) {
+			this.scheduleNamePrefix = scheduleNamePrefix;
+			return this;
+		}
+
+		public Builder taskDefinitionName(String taskDefinitionName) {
+			this.taskDefinitionName = taskDefinitionName;
+			return this;
+		}
+
+		/**
+		 * Requires matching schedules to contain the specified schedule property with
+		 * the specified value.
+		 *
+		 * @param key the schedule property key.
+		 * @param value the required value.
+		 * @return this builder.
+		 */
+		public Builder scheduleProperty(String key, String value) {
+			this.scheduleProperties.put(key, value);
+			return this;
+		}
+
+		public ScheduleFilter build() {
+			return new ScheduleFilter(this.scheduleNamePrefix, this.taskDefinitionName,
+					new LinkedHashMap<>(this.scheduleProperties));
+		}
+	}
+}
@@ -81,6 +81,11 @@ public class ScheduleInfo {
 		return true;
 	}
 
+	@Override
+	public int hashCode() {
+		return scheduleName != null ? scheduleName.hashCode() : 0;
+	}
+
 	@Override
 	public String toString() {
 		return "ScheduleInfo{" +
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single page of {@link ScheduleInfo}s returned by
+ * {@link Scheduler#list(ScheduleFilter, String, int)}.  The {@link #getNextCursor()}
+ * is an opaque token that is passed back to the scheduler to retrieve the page that
+ * follows this one.
+ *
+ * @author agent
+ */
+public class SchedulePage {
+
+	private final List<ScheduleInfo> content;
+
+	private final String nextCursor;
+
+	/**
+	 * @param content the {@link ScheduleInfo}s contained in this page.
+	 * @param nextCursor the cursor for the next page, {@code null} if this is the last page.
+	 */
+	public SchedulePage(List<ScheduleInfo> content, String nextCursor) {
+		this.content = content == null
+				? Collections.<ScheduleInfo>emptyList()
+				: Collections.unmodifiableList(content);
+		this.nextCursor = nextCursor;
+	}
+
+	public List<ScheduleInfo> getContent() {
+		return content;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	@Override
+	public String toString() {
+		return "SchedulePage{" +
+				"size=" + content.size() +
+				", nextCursor='" + nextCursor + '\'' +
+				'}';
+	}
+}
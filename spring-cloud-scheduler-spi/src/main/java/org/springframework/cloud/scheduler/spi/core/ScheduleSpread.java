@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Computes the offset by which the fire times of a schedule are delayed when the
+ * {@link SchedulerPropertyKeys#CRON_SPREAD_WINDOW} scheduler property is set.
+ *
+ * The offset is a whole number of seconds within the window, derived from a hash of the
+ * schedule name.  It is therefore the same for every fire time of a schedule and on
+ * every node, while schedules sharing a cron expression, such as the common
+ * {@code 0 * * * *}, are spread evenly over the window.
+ *
+ * @author agent
+ */
+public final class ScheduleSpread {
+
+	private ScheduleSpread() {
+	}
+
+	/**
+	 * Returns the offset for the schedule described by the request, based on its
+	 * {@link SchedulerPropertyKeys#CRON_SPREAD_WINDOW} scheduler property.
+	 *
+	 * @param scheduleRequest the request of the schedule.
+	 * @return the offset in milliseconds, zero if the property is not set.
+	 * @throws CreateScheduleException if the property is not a valid window.
+	 */
+	public static long offsetMillis(ScheduleRequest scheduleRequest) {
+		String window = scheduleRequest.getSchedulerProperties().get(SchedulerPropertyKeys.CRON_SPREAD_WINDOW);
+		if (!StringUtils.hasText(window)) {
+			return 0;
+		}
+		long windowSeconds;
+		try {
+			windowSeconds = parseWindowSeconds(window.trim());
+		}
+		catch (IllegalArgumentException e) {
+			throw new CreateScheduleException(scheduleRequest.getScheduleName(), e.getMessage(), e);
+		}
+		return offsetMillis(scheduleRequest.getScheduleName(), TimeUnit.SECONDS.toMillis(windowSeconds));
+	}
+
+	/**
+	 * Returns the offset of the specified schedule within a window.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @param windowMillis the length of the window in milliseconds.
+	 * @return the offset in milliseconds, a whole number of seconds less than the window.
+	 */
+	public static long offsetMillis(String scheduleName, long windowMillis) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		long windowSeconds = windowMillis / 1000;
+		if (windowSeconds <= 0) {
+			return 0;
+		}
+		return Math.floorMod(mix(scheduleName.hashCode()), windowSeconds) * 1000;
+	}
+
+	private static long parseWindowSeconds(String window) {
+		long multiplier = 1;
+		String amount = window;
+		char unit = Character.toLowerCase(window.charAt(window.length() - 1));
+		if (unit == 's' || unit == 'm' || unit == 'h') {
+			multiplier = unit == 'h' ? 3600 : unit == 'm' ? 60 : 1;
+			amount = window.substring(0, window.length() - 1);
+		}
+		try {
+			long seconds = Long.parseLong(amount.trim()) * multiplier;
+			if (seconds < 0) {
+				throw new NumberFormatException();
+			}
+			return seconds;
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(String.format("invalid %s '%s': expected a number of seconds, "
+					+ "optionally followed by s, m or h", SchedulerPropertyKeys.CRON_SPREAD_WINDOW, window));
+		}
+	}
+
+	/**
+	 * Spreads the bits of a string hash code, whose low bits are poorly distributed for
+	 * names that only differ in a suffix.
+	 */
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.scheduler.spi.core;
+
+/**
+ * Delivers incremental {@link ScheduleEvent}s for the schedules registered with a
+ * {@link Scheduler}, so that consumers can keep a view of the schedules up to date
+ * without repeatedly retrieving the full listing.
+ *
+ * A consumer typically reads the {@link #getLatestSequence() latest sequence}, retrieves
+ * the current schedules with {@link Scheduler#list()} and then watches for the events
+ * that follow that sequence.  Events that were published between the two calls are
+ * delivered as well, so consumers should apply events idempotently.  After a
+ * disconnect, watching can be resumed from the sequence of the last event processed.
+ *
+ * {@link Scheduler} implementations whose underlying scheduler system publishes change
+ * notifications should implement this interface, others can be watched using
+ * {@link org.springframework.cloud.scheduler.spi.support.PollingScheduleWatcher}.
+ *
+ * @author agent
+ */
+public interface ScheduleWatcher {
+
+	/**
+	 * @return the sequence number of the most recent event, or {@code 0} if no event
+	 * has been published yet.
+	 */
+	long getLatestSequence();
+
+	/**
+	 * Delivers the events that are published from now on to the listener.
+	 *
+	 * @param listener the listener to be notified.
+	 * @return the subscription, to be closed once events are no longer required.
+	 */
+	default ScheduleSubscription watch(ScheduleEventListener listener) {
+		return watch(getLatestSequence(), listener);
+	}
+
+	/**
+	 * Delivers the events whose sequence number is greater than the specified one to
+	 * the listener, starting with those that have already been published.  If those
+	 * events are no longer retained by the watcher a {@link SchedulerException} is
+	 * thrown, in which case the consumer should retrieve the current schedules again.
+	 *
+	 * @param afterSequence the sequence number of the last event already processed.
+	 * @param listener the listener to be notified.
+	 * @return the subscription, to be closed once events are no longer required.
+	 */
+	ScheduleSubscription watch(long afterSequence, ScheduleEventListener listener);
+}
@@ -17,9 +17,15 @@
 
 package org.springframework.cloud.scheduler.spi.core;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
 
 /**
  * A {@code Scheduler} is a component that provides a way to register the execution of a
@@ -68,5 +74,170 @@ public interface Scheduler {
 	 * @return A List of {@link ScheduleInfo}s for the given system.
 	 */
 	List<ScheduleInfo> list();
+
+	/**
+	 * Returns the {@link ScheduleInfo} of a single schedule.  If an error occurs during
+	 * the lookup then a {@link SchedulerException} should be thrown.
+	 *
+	 * The default implementation scans the schedules whose names start with the
+	 * schedule name using {@link #stream(ScheduleFilter)}.  Implementations whose
+	 * underlying scheduler system can look up a schedule by name should override this
+	 * method so that the whole set of schedules is not retrieved to inspect one entry.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @return the schedule, or an empty {@link Optional} if it does not exist.
+	 */
+	default Optional<ScheduleInfo> get(String scheduleName) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		return stream(ScheduleFilter.builder().scheduleNamePrefix(scheduleName).build())
+				.filter(scheduleInfo -> scheduleName.equals(scheduleInfo.getScheduleName()))
+				.findFirst();
+	}
+
+	/**
+	 * Returns whether a schedule exists.  The default implementation uses
+	 * {@link #get(String)}, implementations that can answer more cheaply, for example
+	 * without retrieving the schedule properties, should override this method.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @return {@code true} if the schedule exists.
+	 */
+	default boolean exists(String scheduleName) {
+		return get(scheduleName).isPresent();
+	}
+
+	/**
+	 * Returns the {@link ScheduleInfo}s that satisfy the provided filter as a
+	 * {@link Stream}, allowing implementations to retrieve the schedules lazily
+	 * from the underlying scheduler system.  If an error occurs during list generation
+	 * then a {@link SchedulerException} should be thrown.
+	 *
+	 * The default implementation retrieves the schedules using {@link #list(String)} or
+	 * {@link #list()} and applies the filter in memory.  Implementations should
+	 * override this method to push the filter down to the underlying scheduler system.
+	 *
+	 * @param filter the criteria the returned schedules must satisfy.
+	 * @return a Stream of the matching {@link ScheduleInfo}s.
+	 */
+	default Stream<ScheduleInfo> stream(ScheduleFilter filter) {
+		Assert.notNull(filter, "filter must not be null");
+		List<ScheduleInfo> schedules = filter.getTaskDefinitionName() != null
+				? list(filter.getTaskDefinitionName())
+				: list();
+		return schedules.stream().filter(filter::matches);
+	}
+
+	/**
+	 * Returns a single page of the {@link ScheduleInfo}s that satisfy the provided
+	 * filter.  To retrieve the first page pass a {@code null} cursor, subsequent pages
+	 * are retrieved by passing the {@link SchedulePage#getNextCursor()} of the previous
+	 * page.  If an error occurs during list generation then a {@link SchedulerException}
+	 * should be thrown.
+	 *
+	 * The default implementation orders the schedules by name, uses the name of the
+	 * last schedule of a page as the cursor and is based on {@link #stream(ScheduleFilter)}.
+	 * Implementations should override this method to use the paging support of the
+	 * underlying scheduler system.
+	 *
+	 * @param filter the criteria the returned schedules must satisfy.
+	 * @param cursor the cursor returned with the previous page, {@code null} for the first page.
+	 * @param pageSize the maximum number of {@link ScheduleInfo}s to be returned.
+	 * @return the requested page of {@link ScheduleInfo}s.
+	 */
+	default SchedulePage list(ScheduleFilter filter, String cursor, int pageSize) {
+		Assert.isTrue(pageSize > 0, "pageSize must be greater than zero");
+		List<ScheduleInfo> schedules = stream(filter)
+				.filter(scheduleInfo -> cursor == null || scheduleInfo.getScheduleName().compareTo(cursor) > 0)
+				.sorted(Comparator.comparing(ScheduleInfo::getScheduleName))
+				.limit(pageSize + 1L)
+				.collect(Collectors.toList());
+		if (schedules.size() <= pageSize) {
+			return new SchedulePage(schedules, null);
+		}
+		List<ScheduleInfo> content = schedules.subList(0, pageSize);
+		return new SchedulePage(content, content.get(pageSize - 1).getScheduleName());
+	}
+
+	/**
+	 * Replaces the existing schedule that has the name of the {@link ScheduleRequest}
+	 * provided, for example to change its cron expression.  If no such schedule exists
+	 * a {@link SchedulerException} (typically an {@link UnScheduleException}) is thrown.
+	 * If the new schedule could not be created then a {@link CreateScheduleException}
+	 * is thrown.
+	 *
+	 * The default implementation calls {@link #unschedule(String)} followed by
+	 * {@link #schedule(ScheduleRequest)}, which takes two round-trips, leaves a window in
+	 * which the schedule does not exist and does not restore the existing schedule when
+	 * the second call fails.  Implementations whose underlying scheduler system can
+	 * update a schedule in place should override this method so that the replacement
+	 * takes a single round-trip and is atomic: either the new schedule is in effect or
+	 * the existing schedule remains unchanged.
+	 *
+	 * @param scheduleRequest the request replacing the schedule of the same name.
+	 */
+	default void reschedule(ScheduleRequest scheduleRequest) {
+		unschedule(scheduleRequest.getScheduleName());
+		schedule(scheduleRequest);
+	}
+
+	/**
+	 * Registers each of the {@link ScheduleRequest}s provided.  A failure to create one
+	 * schedule does not prevent the remaining requests from being processed, instead
+	 * each outcome is reported in the returned {@link ScheduleBatchResult}.
+	 *
+	 * The default implementation calls {@link #schedule(ScheduleRequest)} for each
+	 * request.  Implementations whose underlying scheduler system supports bulk
+	 * operations should override this method to reduce the number of round-trips.
+	 *
+	 * @param scheduleRequests the requests to be scheduled.
+	 * @return the per-schedule outcome of the batch.
+	 * @throws IllegalArgumentException if the requests contain the same schedule name
+	 * more than once, in which case none of them is processed.
+	 */
+	default ScheduleBatchResult scheduleAll(Collection<ScheduleRequest> scheduleRequests) {
+		ScheduleBatchResult.assertDistinctScheduleNames(scheduleRequests.stream()
+				.map(ScheduleRequest::getScheduleName)
+				.collect(Collectors.toList()));
+		ScheduleBatchResult result = new ScheduleBatchResult();
+		for (ScheduleRequest scheduleRequest : scheduleRequests) {
+			try {
+				schedule(scheduleRequest);
+				result.addSuccess(scheduleRequest.getScheduleName());
+			}
+			catch (SchedulerException e) {
+				result.addFailure(scheduleRequest.getScheduleName(), e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes each of the schedules provided.  A failure to delete one schedule does
+	 * not prevent the remaining schedules from being processed, instead each outcome
+	 * is reported in the returned {@link ScheduleBatchResult}.
+	 *
+	 * The default implementation calls {@link #unschedule(String)} for each schedule
+	 * name.  Implementations whose underlying scheduler system supports bulk
+	 * operations should override this method to reduce the number of round-trips.
+	 *
+	 * @param scheduleNames the names of the schedules to be removed.
+	 * @return the per-schedule outcome of the batch.
+	 * @throws IllegalArgumentException if the same schedule name occurs more than once,
+	 * in which case none of the schedules is removed.
+	 */
+	default ScheduleBatchResult unscheduleAll(Collection<String> scheduleNames) {
+		ScheduleBatchResult.assertDistinctScheduleNames(scheduleNames);
+		ScheduleBatchResult result = new ScheduleBatchResult();
+		for (String scheduleName : scheduleNames) {
+			try {
+				unschedule(scheduleName);
+				result.addSuccess(scheduleName);
+			}
+			catch (SchedulerException e) {
+				result.addFailure(scheduleName, e);
+			}
+		}
+		return result;
+	}
 }
 
@@ -35,4 +35,15 @@ public class SchedulerPropertyKeys {
 	 */
 	public static final String CRON_EXPRESSION = CRON_PREFIX + "expression";
 
+	/**
+	 * Scheduler cron spread window property key.  When set, each fire time of the
+	 * schedule is delayed by an offset within the window that is derived from the
+	 * schedule name, spreading schedules that share a cron expression over the window.
+	 * The value is a number of seconds, optionally followed by an {@code s}, {@code m}
+	 * or {@code h} unit.
+	 *
+	 * @see ScheduleSpread
+	 */
+	public static final String CRON_SPREAD_WINDOW = CRON_PREFIX + "spread-window";
+
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.cloud.scheduler.spi.core.AsyncScheduler;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.util.Assert;
+
+/**
+ * Exposes a blocking {@link Scheduler} as an {@link AsyncScheduler} by running each
+ * operation on a bounded {@link Executor}.  When the executor cannot accept more work
+ * the returned future is completed with a {@link SchedulerException} rather than
+ * blocking the caller.
+ *
+ * The futures are completed with the exceptions thrown by the blocking scheduler, as
+ * described by {@link AsyncScheduler}.
+ *
+ * @author agent
+ */
+public class AsyncSchedulerAdapter implements AsyncScheduler, AutoCloseable {
+
+	private final Scheduler scheduler;
+
+	private final Executor executor;
+
+	private final boolean ownsExecutor;
+
+	/**
+	 * Creates an adapter that runs operations on the provided executor.  The executor
+	 * is not shut down when this adapter is closed.
+	 *
+	 * @param scheduler the blocking scheduler to delegate to.
+	 * @param executor the executor to run the blocking operations on.
+	 */
+	public AsyncSchedulerAdapter(Scheduler scheduler, Executor executor) {
+		this(scheduler, executor, false);
+	}
+
+	/**
+	 * Creates an adapter that runs operations on a dedicated pool of
+	 * {@code maxConcurrency} threads that queues at most {@code queueCapacity}
+	 * operations.  The pool is shut down when this adapter is closed.
+	 *
+	 * @param scheduler the blocking scheduler to delegate to.
+	 * @param maxConcurrency the maximum number of operations executing at once.
+	 * @param queueCapacity the maximum number of operations waiting to execute.
+	 */
+	public AsyncSchedulerAdapter(Scheduler scheduler, int maxConcurrency, int queueCapacity) {
+		this(scheduler, createExecutor(maxConcurrency, queueCapacity), true);
+	}
+
+	private AsyncSchedulerAdapter(Scheduler scheduler, Executor executor, boolean ownsExecutor) {
+		Assert.notNull(scheduler, "scheduler must not be null");
+		Assert.notNull(executor, "executor must not be null");
+		this.scheduler = scheduler;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	@Override
+	public CompletableFuture<Void> schedule(ScheduleRequest scheduleRequest) {
+		return submit(() -> {
+			this.scheduler.schedule(scheduleRequest);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> unschedule(String scheduleName) {
+		return submit(() -> {
+			this.scheduler.unschedule(scheduleName);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> reschedule(ScheduleRequest scheduleRequest) {
+		return submit(() -> {
+			this.scheduler.reschedule(scheduleRequest);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<List<ScheduleInfo>> list(String taskDefinitionName) {
+		return submit(() -> this.scheduler.list(taskDefinitionName));
+	}
+
+	@Override
+	public CompletableFuture<List<ScheduleInfo>> list() {
+		return submit(this.scheduler::list);
+	}
+
+	/**
+	 * @return the blocking scheduler this adapter delegates to.
+	 */
+	public Scheduler getScheduler() {
+		return this.scheduler;
+	}
+
+	@Override
+	public void close() {
+		if (this.ownsExecutor) {
+			((ExecutorService) this.executor).shutdown();
+		}
+	}
+
+	/**
+	 * Runs the operation on the executor.  Unlike
+	 * {@link CompletableFuture#supplyAsync(Supplier, Executor)} the future is completed
+	 * with the exception thrown by the operation itself rather than with a
+	 * {@link java.util.concurrent.CompletionException} wrapping it.
+	 */
+	private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		try {
+			this.executor.execute(() -> {
+				try {
+					result.complete(operation.get());
+				}
+				catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			result.completeExceptionally(new SchedulerException(
+					"Scheduler operation rejected, too many operations are pending", e));
+		}
+		return result;
+	}
+
+	private static ExecutorService createExecutor(int maxConcurrency, int queueCapacity) {
+		Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be greater than zero");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be greater than zero");
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, "async-scheduler-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+				60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), threadFactory,
+				new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleBatchResult;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.util.Assert;
+
+/**
+ * A decorator for {@link Scheduler} that caches the results of {@link #list()} and
+ * {@link #list(String)} for a configurable time to live.
+ *
+ * Cached results are invalidated when schedules are created or removed through this
+ * decorator.  Only the entries that may be affected are invalidated: creating a
+ * schedule invalidates the full listing and the listing of its task definition,
+ * removing a schedule invalidates the full listing and any listing that contains it.
+ * Changes made to the underlying scheduler system by other means become visible once
+ * the time to live has elapsed.
+ *
+ * Concurrent requests for an entry that is not cached are coalesced, so that only one
+ * of them calls the delegate while the others wait for its result.
+ *
+ * Listings are cached as {@link ImmutableScheduleInfo}s and each call returns a new list
+ * of {@link ScheduleInfo} copies, so callers may modify the results as they would the
+ * results of the delegate.
+ *
+ * @author agent
+ */
+public class CachingScheduler implements Scheduler {
+
+	/**
+	 * The cache key of the listing of all schedules.
+	 */
+	private static final Object ALL_SCHEDULES = new Object();
+
+	private final Scheduler delegate;
+
+	private final long timeToLiveNanos;
+
+	private final int maxSize;
+
+	private final ConcurrentMap<Object, CacheEntry> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * @param delegate the scheduler whose results are cached.
+	 * @param timeToLive the time a listing is cached after it has been retrieved.
+	 * @param maxSize the maximum number of listings to be cached.
+	 */
+	public CachingScheduler(Scheduler delegate, Duration timeToLive, int maxSize) {
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.notNull(timeToLive, "timeToLive must not be null");
+		Assert.isTrue(!timeToLive.isNegative(), "timeToLive must not be negative");
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than zero");
+		this.delegate = delegate;
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public void schedule(ScheduleRequest scheduleRequest) {
+		try {
+			this.delegate.schedule(scheduleRequest);
+		}
+		finally {
+			invalidateScheduled(scheduleRequest);
+		}
+	}
+
+	@Override
+	public void unschedule(String scheduleName) {
+		try {
+			this.delegate.unschedule(scheduleName);
+		}
+		finally {
+			invalidateUnscheduled(scheduleName);
+		}
+	}
+
+	@Override
+	public void reschedule(ScheduleRequest scheduleRequest) {
+		try {
+			this.delegate.reschedule(scheduleRequest);
+		}
+		finally {
+			invalidateUnscheduled(scheduleRequest.getScheduleName());
+			invalidateScheduled(scheduleRequest);
+		}
+	}
+
+	@Override
+	public ScheduleBatchResult scheduleAll(Collection<ScheduleRequest> scheduleRequests) {
+		try {
+			return this.delegate.scheduleAll(scheduleRequests);
+		}
+		finally {
+			for (ScheduleRequest scheduleRequest : scheduleRequests) {
+				invalidateScheduled(scheduleRequest);
+			}
+		}
+	}
+
+	@Override
+	public ScheduleBatchResult unscheduleAll(Collection<String> scheduleNames) {
+		try {
+			return this.delegate.unscheduleAll(scheduleNames);
+		}
+		finally {
+			for (String scheduleName : scheduleNames) {
+				invalidateUnscheduled(scheduleName);
+			}
+		}
+	}
+
+	@Override
+	public List<ScheduleInfo> list(String taskDefinitionName) {
+		Assert.notNull(taskDefinitionName, "taskDefinitionName must not be null");
+		return copy(get(taskDefinitionName, () -> this.delegate.list(taskDefinitionName)));
+	}
+
+	@Override
+	public List<ScheduleInfo> list() {
+		return copy(get(ALL_SCHEDULES, this.delegate::list));
+	}
+
+	/**
+	 * Discards all cached listings.
+	 */
+	public void invalidateAll() {
+		this.cache.clear();
+	}
+
+	private List<ImmutableScheduleInfo> get(Object key, Supplier<List<ScheduleInfo>> loader) {
+		while (true) {
+			long now = System.nanoTime();
+			CacheEntry entry = this.cache.get(key);
+			if (entry != null && !entry.isExpired(now)) {
+				return entry.join();
+			}
+			CacheEntry loading = new CacheEntry();
+			boolean acquired = entry == null
+					? this.cache.putIfAbsent(key, loading) == null
+					: this.cache.replace(key, entry, loading);
+			if (!acquired) {
+				// another caller started loading this entry, wait for its result instead
+				continue;
+			}
+			evictIfNecessary(now);
+			List<ImmutableScheduleInfo> result;
+			try {
+				List<ScheduleInfo> loaded = loader.get();
+				List<ImmutableScheduleInfo> immutable = new ArrayList<>(loaded.size());
+				for (ScheduleInfo scheduleInfo : loaded) {
+					immutable.add(ImmutableScheduleInfo.of(scheduleInfo));
+				}
+				result = Collections.unmodifiableList(immutable);
+			}
+			catch (Throwable t) {
+				// complete the entry even on an Error, otherwise the callers waiting for it would block forever
+				this.cache.remove(key, loading);
+				loading.future.completeExceptionally(t);
+				throw t;
+			}
+			loading.expiresAt = System.nanoTime() + this.timeToLiveNanos;
+			loading.future.complete(result);
+			return result;
+		}
+	}
+
+	private static List<ScheduleInfo> copy(List<ImmutableScheduleInfo> scheduleInfos) {
+		List<ScheduleInfo> result = new ArrayList<>(scheduleInfos.size());
+		for (ImmutableScheduleInfo scheduleInfo : scheduleInfos) {
+			result.add(scheduleInfo.toScheduleInfo());
+		}
+		return result;
+	}
+
+	private void invalidateScheduled(ScheduleRequest scheduleRequest) {
+		this.cache.remove(ALL_SCHEDULES);
+		this.cache.remove(scheduleRequest.getDefinition().getName());
+	}
+
+	private void invalidateUnscheduled(String scheduleName) {
+		for (Map.Entry<Object, CacheEntry> entry : this.cache.entrySet()) {
+			if (entry.getKey() == ALL_SCHEDULES || entry.getValue().mayContain(scheduleName)) {
+				this.cache.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private void evictIfNecessary(long now) {
+		while (this.cache.size() > this.maxSize) {
+			Map.Entry<Object, CacheEntry> eldest = null;
+			for (Map.Entry<Object, CacheEntry> entry : this.cache.entrySet()) {
+				if (entry.getValue().isExpired(now)) {
+					eldest = entry;
+					break;
+				}
+				if (entry.getValue().future.isDone() && (eldest == null
+						|| entry.getValue().expiresAt - eldest.getValue().expiresAt < 0)) {
+					eldest = entry;
+				}
+			}
+			if (eldest == null) {
+				// every entry is still loading
+				return;
+			}
+			this.cache.remove(eldest.getKey(), eldest.getValue());
+		}
+	}
+
+	/**
+	 * A cached listing, or a listing that is being loaded by another caller.
+	 */
+	private static class CacheEntry {
+
+		private final CompletableFuture<List<ImmutableScheduleInfo>> future = new CompletableFuture<>();
+
+		private volatile long expiresAt;
+
+		private boolean isExpired(long now) {
+			return this.future.isDone() && now - this.expiresAt >= 0;
+		}
+
+		/**
+		 * Returns {@code true} if the listing contains the specified schedule, or is
+		 * still being loaded and therefore might.
+		 */
+		private boolean mayContain(String scheduleName) {
+			if (!this.future.isDone() || this.future.isCompletedExceptionally()) {
+				return true;
+			}
+			for (ImmutableScheduleInfo scheduleInfo : this.future.join()) {
+				if (scheduleName.equals(scheduleInfo.getScheduleName())) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private List<ImmutableScheduleInfo> join() {
+			try {
+				return this.future.join();
+			}
+			catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw new SchedulerException("Failed to list schedules", e.getCause());
+			}
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+import org.springframework.util.Assert;
+
+/**
+ * An immutable map of properties that stores its keys and values in two sorted arrays,
+ * taking a fraction of the memory of a {@link java.util.HashMap} with the same
+ * entries.  Lookups are a binary search, which for the handful of properties of a
+ * schedule is as fast as hashing.  The hash code is computed once, so that instances
+ * are cheap to use as keys when they are canonicalized by a
+ * {@link PropertyMapInterner}.
+ *
+ * @author agent
+ */
+public final class CompactPropertyMap extends AbstractMap<String, String> {
+
+	private static final String[] NO_STRINGS = new String[0];
+
+	private static final CompactPropertyMap EMPTY = new CompactPropertyMap(NO_STRINGS, NO_STRINGS);
+
+	private final String[] keys;
+
+	private final String[] values;
+
+	private int hash;
+
+	private CompactPropertyMap(String[] keys, String[] values) {
+		this.keys = keys;
+		this.values = values;
+	}
+
+	/**
+	 * @param properties the properties to be copied, which must not have a {@code null} key.
+	 * @return an immutable copy of the properties.
+	 */
+	public static CompactPropertyMap of(Map<String, String> properties) {
+		Assert.notNull(properties, "properties must not be null");
+		if (properties instanceof CompactPropertyMap) {
+			return (CompactPropertyMap) properties;
+		}
+		if (properties.isEmpty()) {
+			return EMPTY;
+		}
+		String[] keys = properties.keySet().toArray(new String[0]);
+		Assert.noNullElements(keys, "properties must not have a null key");
+		Arrays.sort(keys);
+		String[] values = new String[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			values[i] = properties.get(keys[i]);
+		}
+		return new CompactPropertyMap(keys, values);
+	}
+
+	/**
+	 * Returns a map with the same entries, whose keys and values have been replaced by
+	 * the result of applying the specified function to them.
+	 */
+	CompactPropertyMap mapStrings(UnaryOperator<String> function) {
+		String[] keys = new String[this.keys.length];
+		String[] values = new String[this.values.length];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = function.apply(this.keys[i]);
+			values[i] = this.values[i] != null ? function.apply(this.values[i]) : null;
+		}
+		return new CompactPropertyMap(keys, values);
+	}
+
+	@Override
+	public int size() {
+		return this.keys.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.keys.length == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public String get(Object key) {
+		int index = indexOf(key);
+		return index >= 0 ? this.values[index] : null;
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super String, ? super String> action) {
+		for (int i = 0; i < this.keys.length; i++) {
+			action.accept(this.keys[i], this.values[i]);
+		}
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		return new AbstractSet<Entry<String, String>>() {
+
+			@Override
+			public Iterator<Entry<String, String>> iterator() {
+				return new Iterator<Entry<String, String>>() {
+
+					private int index;
+
+					@Override
+					public boolean hasNext() {
+						return this.index < keys.length;
+					}
+
+					@Override
+					public Entry<String, String> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						int current = this.index++;
+						return new SimpleImmutableEntry<>(keys[current], values[current]);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return keys.length;
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o instanceof CompactPropertyMap) {
+			CompactPropertyMap that = (CompactPropertyMap) o;
+			return hashCode() == that.hashCode() && Arrays.equals(this.keys, that.keys)
+					&& Arrays.equals(this.values, that.values);
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = this.hash;
+		if (hash == 0 && this.keys.length > 0) {
+			for (int i = 0; i < this.keys.length; i++) {
+				hash += this.keys[i].hashCode() ^ Objects.hashCode(this.values[i]);
+			}
+			this.hash = hash;
+		}
+		return hash;
+	}
+
+	private int indexOf(Object key) {
+		if (!(key instanceof String)) {
+			return -1;
+		}
+		return Arrays.binarySearch(this.keys, key);
+	}
+}
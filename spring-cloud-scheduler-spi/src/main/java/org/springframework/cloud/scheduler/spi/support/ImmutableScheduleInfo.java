@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.util.Assert;
+
+/**
+ * An immutable value holding the same information as a {@link ScheduleInfo}, created
+ * with a {@link Builder} or copied from a {@link ScheduleInfo} with {@link #of}.  Its
+ * properties are held in a {@link CompactPropertyMap} and its hash code, which like
+ * equality is based on the schedule name, is computed once, so instances can be shared
+ * freely and used efficiently in hash based collections, for example to compare large
+ * listings in linear time.
+ *
+ * Decorators use it to retain schedules, and hand out {@link #toScheduleInfo() copies}
+ * so that callers are free to modify the {@link ScheduleInfo}s they receive.
+ *
+ * @author agent
+ */
+public final class ImmutableScheduleInfo {
+
+	private final String scheduleName;
+
+	private final String taskDefinitionName;
+
+	private final CompactPropertyMap scheduleProperties;
+
+	private final int hash;
+
+	private ImmutableScheduleInfo(String scheduleName, String taskDefinitionName,
+			CompactPropertyMap scheduleProperties) {
+		this.scheduleName = scheduleName;
+		this.taskDefinitionName = taskDefinitionName;
+		this.scheduleProperties = scheduleProperties;
+		this.hash = scheduleName.hashCode();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @param scheduleInfo the schedule to be copied.
+	 * @return an immutable copy of the schedule.
+	 */
+	public static ImmutableScheduleInfo of(ScheduleInfo scheduleInfo) {
+		Assert.notNull(scheduleInfo, "scheduleInfo must not be null");
+		return builder()
+				.scheduleName(scheduleInfo.getScheduleName())
+				.taskDefinitionName(scheduleInfo.getTaskDefinitionName())
+				.scheduleProperties(scheduleInfo.getScheduleProperties())
+				.build();
+	}
+
+	/**
+	 * @return a builder initialized with the values of this schedule.
+	 */
+	public Builder toBuilder() {
+		return builder()
+				.scheduleName(this.scheduleName)
+				.taskDefinitionName(this.taskDefinitionName)
+				.scheduleProperties(this.scheduleProperties);
+	}
+
+	/**
+	 * @return a new, modifiable {@link ScheduleInfo} holding the values of this schedule.
+	 */
+	public ScheduleInfo toScheduleInfo() {
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(this.scheduleName);
+		scheduleInfo.setTaskDefinitionName(this.taskDefinitionName);
+		scheduleInfo.setScheduleProperties(this.scheduleProperties != null
+				? new HashMap<>(this.scheduleProperties)
+				: null);
+		return scheduleInfo;
+	}
+
+	public String getScheduleName() {
+		return this.scheduleName;
+	}
+
+	public String getTaskDefinitionName() {
+		return this.taskDefinitionName;
+	}
+
+	/**
+	 * @return the unmodifiable schedule properties, may be {@code null}.
+	 */
+	public Map<String, String> getScheduleProperties() {
+		return this.scheduleProperties;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ImmutableScheduleInfo)) {
+			return false;
+		}
+		return this.scheduleName.equals(((ImmutableScheduleInfo) o).scheduleName);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+
+	@Override
+	public String toString() {
+		return "ImmutableScheduleInfo{" +
+				"scheduleName='" + this.scheduleName + '\'' +
+				", taskDefinitionName='" + this.taskDefinitionName + '\'' +
+				", scheduleProperties=" + this.scheduleProperties +
+				'}';
+	}
+	/**
+	 * Builds {@link ImmutableScheduleInfo}s.
+	 */
+	public static class Builder {
+
+		private String scheduleName;
+
+		private String taskDefinitionName;
+
+		private CompactPropertyMap scheduleProperties;
+
+		private Map<String, String> pendingProperties;
+
+		public Builder scheduleName(String scheduleName) {
+			this.scheduleName = scheduleName;
+			return this;
+		}
+
+		public Builder taskDefinitionName(String taskDefinitionName) {
+			this.taskDefinitionName = taskDefinitionName;
+			return this;
+		}
+
+		/**
+		 * Replaces the schedule properties.
+		 *
+		 * @param scheduleProperties the schedule properties, may be {@code null}.
+		 * @return this builder.
+		 */
+		public Builder scheduleProperties(Map<String, String> scheduleProperties) {
+			this.scheduleProperties = scheduleProperties != null ? CompactPropertyMap.of(scheduleProperties) : null;
+			this.pendingProperties = null;
+			return this;
+		}
+
+		public Builder scheduleProperty(String key, String value) {
+			Assert.notNull(key, "key must not be null");
+			if (this.pendingProperties == null) {
+				this.pendingProperties = this.scheduleProperties != null
+						? new LinkedHashMap<>(this.scheduleProperties)
+						: new LinkedHashMap<>();
+			}
+			this.pendingProperties.put(key, value);
+			return this;
+		}
+
+		public ImmutableScheduleInfo build() {
+			Assert.notNull(this.scheduleName, "scheduleName must not be null");
+			if (this.pendingProperties != null) {
+				this.scheduleProperties = CompactPropertyMap.of(this.pendingProperties);
+				this.pendingProperties = null;
+			}
+			return new ImmutableScheduleInfo(this.scheduleName, this.taskDefinitionName, this.scheduleProperties);
+		}
+	}
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleBatchResult;
+import org.springframework.cloud.scheduler.spi.core.ScheduleFilter;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.SchedulePage;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+import org.springframework.util.Assert;
+
+/**
+ * A decorator for {@link Scheduler} that records Micrometer metrics for each operation:
+ *
+ * <ul>
+ * <li>{@value #OPERATIONS_METRIC}: a timer, with percentiles, of each operation tagged
+ * with the {@code operation}, the {@code taskDefinitionName} and the {@code outcome}</li>
+ * <li>{@value #ERRORS_METRIC}: a counter of failures tagged with the {@code operation},
+ * the {@code taskDefinitionName} and the {@code exception} type</li>
+ * <li>{@value #LIST_SIZE_METRIC}: a distribution summary of the number of schedules
+ * returned by list operations tagged with the {@code operation} and the
+ * {@code taskDefinitionName}</li>
+ * <li>{@value #SCHEDULES_METRIC}: a gauge of the number of schedules known to this
+ * decorator, updated by full listings and by the schedules created and removed through
+ * it</li>
+ * </ul>
+ *
+ * To bound the number of time series, at most a configured number of distinct task
+ * definition names are used as tag values, any others are tagged as
+ * {@value #OTHER_TAG_VALUE}.  Operations that are not related to a single task
+ * definition are tagged as {@value #NONE_TAG_VALUE}.
+ *
+ * Every metric is also tagged with the name of the scheduler, {@value #DEFAULT_SCHEDULER_NAME}
+ * unless one is provided, so that several instances can record in the same registry.
+ * Instances sharing a registry must have distinct names: meters are shared by name and
+ * tags, so an instance would otherwise report the gauge of the instance registered first.
+ *
+ * The meters of each operation are registered on first use and reused by later calls,
+ * so recording an operation does not look them up in the registry.
+ *
+ * @author agent
+ */
+public class InstrumentedScheduler implements Scheduler {
+
+	public static final String OPERATIONS_METRIC = "spring.cloud.scheduler.operations";
+
+	public static final String ERRORS_METRIC = "spring.cloud.scheduler.errors";
+
+	public static final String LIST_SIZE_METRIC = "spring.cloud.scheduler.list.size";
+
+	public static final String SCHEDULES_METRIC = "spring.cloud.scheduler.schedules";
+
+	public static final String NONE_TAG_VALUE = "none";
+
+	public static final String OTHER_TAG_VALUE = "other";
+
+	public static final String DEFAULT_SCHEDULER_NAME = "default";
+
+	private static final int DEFAULT_MAX_TASK_DEFINITION_TAGS = 100;
+
+	private final Scheduler delegate;
+
+	private final MeterRegistry meterRegistry;
+
+	private final String schedulerName;
+
+	private final int maxTaskDefinitionTags;
+
+	private final Set<String> taskDefinitionTags = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong knownSchedules = new AtomicLong();
+
+	private final OperationMeters scheduleMeters;
+
+	private final OperationMeters unscheduleMeters;
+
+	private final OperationMeters rescheduleMeters;
+
+	private final OperationMeters scheduleAllMeters;
+
+	private final OperationMeters unscheduleAllMeters;
+
+	private final OperationMeters listMeters;
+
+	private final OperationMeters listPageMeters;
+
+	private final OperationMeters getMeters;
+
+	private final OperationMeters existsMeters;
+
+	public InstrumentedScheduler(Scheduler delegate, MeterRegistry meterRegistry) {
+		this(delegate, meterRegistry, DEFAULT_SCHEDULER_NAME, DEFAULT_MAX_TASK_DEFINITION_TAGS);
+	}
+
+	public InstrumentedScheduler(Scheduler delegate, MeterRegistry meterRegistry, int maxTaskDefinitionTags) {
+		this(delegate, meterRegistry, DEFAULT_SCHEDULER_NAME, maxTaskDefinitionTags);
+	}
+
+	public InstrumentedScheduler(Scheduler delegate, MeterRegistry meterRegistry, String schedulerName) {
+		this(delegate, meterRegistry, schedulerName, DEFAULT_MAX_TASK_DEFINITION_TAGS);
+	}
+
+	/**
+	 * @param delegate the scheduler to be instrumented.
+	 * @param meterRegistry the registry the metrics are recorded in.
+	 * @param schedulerName the value of the {@code scheduler} tag, unique among the
+	 * instances recording in the registry.
+	 * @param maxTaskDefinitionTags the maximum number of distinct task definition names
+	 * used as tag values.
+	 */
+	public InstrumentedScheduler(Scheduler delegate, MeterRegistry meterRegistry, String schedulerName,
+			int maxTaskDefinitionTags) {
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		Assert.hasText(schedulerName, "schedulerName must not be empty");
+		Assert.isTrue(maxTaskDefinitionTags >= 0, "maxTaskDefinitionTags must not be negative");
+		this.delegate = delegate;
+		this.meterRegistry = meterRegistry;
+		this.schedulerName = schedulerName;
+		this.maxTaskDefinitionTags = maxTaskDefinitionTags;
+		this.scheduleMeters = new OperationMeters("schedule");
+		this.unscheduleMeters = new OperationMeters("unschedule");
+		this.rescheduleMeters = new OperationMeters("reschedule");
+		this.scheduleAllMeters = new OperationMeters("scheduleAll");
+		this.unscheduleAllMeters = new OperationMeters("unscheduleAll");
+		this.listMeters = new OperationMeters("list");
+		this.listPageMeters = new OperationMeters("listPage");
+		this.getMeters = new OperationMeters("get");
+		this.existsMeters = new OperationMeters("exists");
+		Gauge.builder(SCHEDULES_METRIC, this.knownSchedules, AtomicLong::get)
+				.description("Number of schedules known to the scheduler")
+				.tag("scheduler", schedulerName)
+				.register(meterRegistry);
+	}
+
+	@Override
+	public void schedule(ScheduleRequest scheduleRequest) {
+		String taskDefinitionTag = taskDefinitionTag(scheduleRequest.getDefinition().getName());
+		record(this.scheduleMeters, taskDefinitionTag, () -> {
+			this.delegate.schedule(scheduleRequest);
+			return null;
+		});
+		this.knownSchedules.incrementAndGet();
+	}
+
+	@Override
+	public void unschedule(String scheduleName) {
+		record(this.unscheduleMeters, NONE_TAG_VALUE, () -> {
+			this.delegate.unschedule(scheduleName);
+			return null;
+		});
+		decrementKnownSchedules(1);
+	}
+
+	@Override
+	public void reschedule(ScheduleRequest scheduleRequest) {
+		String taskDefinitionTag = taskDefinitionTag(scheduleRequest.getDefinition().getName());
+		record(this.rescheduleMeters, taskDefinitionTag, () -> {
+			this.delegate.reschedule(scheduleRequest);
+			return null;
+		});
+	}
+
+	@Override
+	public ScheduleBatchResult scheduleAll(Collection<ScheduleRequest> scheduleRequests) {
+		ScheduleBatchResult result = record(this.scheduleAllMeters, NONE_TAG_VALUE,
+				() -> this.delegate.scheduleAll(scheduleRequests));
+		countFailures(this.scheduleAllMeters, result);
+		this.knownSchedules.addAndGet(result.getSucceeded().size());
+		return result;
+	}
+
+	@Override
+	public ScheduleBatchResult unscheduleAll(Collection<String> scheduleNames) {
+		ScheduleBatchResult result = record(this.unscheduleAllMeters, NONE_TAG_VALUE,
+				() -> this.delegate.unscheduleAll(scheduleNames));
+		countFailures(this.unscheduleAllMeters, result);
+		decrementKnownSchedules(result.getSucceeded().size());
+		return result;
+	}
+
+	@Override
+	public List<ScheduleInfo> list(String taskDefinitionName) {
+		String taskDefinitionTag = taskDefinitionTag(taskDefinitionName);
+		List<ScheduleInfo> result = record(this.listMeters, taskDefinitionTag,
+				() -> this.delegate.list(taskDefinitionName));
+		this.listMeters.listSize(taskDefinitionTag).record(result.size());
+		return result;
+	}
+
+	@Override
+	public List<ScheduleInfo> list() {
+		List<ScheduleInfo> result = record(this.listMeters, NONE_TAG_VALUE, this.delegate::list);
+		this.listMeters.listSize(NONE_TAG_VALUE).record(result.size());
+		this.knownSchedules.set(result.size());
+		return result;
+	}
+
+	@Override
+	public Optional<ScheduleInfo> get(String scheduleName) {
+		return record(this.getMeters, NONE_TAG_VALUE, () -> this.delegate.get(scheduleName));
+	}
+
+	@Override
+	public boolean exists(String scheduleName) {
+		return record(this.existsMeters, NONE_TAG_VALUE, () -> this.delegate.exists(scheduleName));
+	}
+
+	@Override
+	public SchedulePage list(ScheduleFilter filter, String cursor, int pageSize) {
+		String taskDefinitionTag = filter.getTaskDefinitionName() != null
+				? taskDefinitionTag(filter.getTaskDefinitionName())
+				: NONE_TAG_VALUE;
+		SchedulePage result = record(this.listPageMeters, taskDefinitionTag,
+				() -> this.delegate.list(filter, cursor, pageSize));
+		this.listPageMeters.listSize(taskDefinitionTag).record(result.getContent().size());
+		return result;
+	}
+
+	private <T> T record(OperationMeters meters, String taskDefinitionTag, Supplier<T> operationCall) {
+		Timer.Sample sample = Timer.start(this.meterRegistry);
+		boolean success = false;
+		try {
+			T result = operationCall.get();
+			success = true;
+			return result;
+		}
+		catch (RuntimeException e) {
+			meters.errors(taskDefinitionTag, exceptionTag(e)).increment();
+			throw e;
+		}
+		finally {
+			sample.stop(meters.timer(taskDefinitionTag, success));
+		}
+	}
+
+	private void countFailures(OperationMeters meters, ScheduleBatchResult result) {
+		for (Map.Entry<String, SchedulerException> failure : result.getFailed().entrySet()) {
+			meters.errors(NONE_TAG_VALUE, exceptionTag(failure.getValue())).increment();
+		}
+	}
+
+	private void decrementKnownSchedules(int count) {
+		this.knownSchedules.accumulateAndGet(count, (current, removed) -> Math.max(0, current - removed));
+	}
+
+	private String taskDefinitionTag(String taskDefinitionName) {
+		if (taskDefinitionName == null) {
+			return NONE_TAG_VALUE;
+		}
+		if (this.taskDefinitionTags.contains(taskDefinitionName)) {
+			return taskDefinitionName;
+		}
+		synchronized (this.taskDefinitionTags) {
+			if (this.taskDefinitionTags.size() < this.maxTaskDefinitionTags) {
+				this.taskDefinitionTags.add(taskDefinitionName);
+				return taskDefinitionName;
+			}
+		}
+		return OTHER_TAG_VALUE;
+	}
+
+	private static String exceptionTag(RuntimeException exception) {
+		if (exception instanceof CreateScheduleException) {
+			return CreateScheduleException.class.getSimpleName();
+		}
+		if (exception instanceof UnScheduleException) {
+			return UnScheduleException.class.getSimpleName();
+		}
+		if (exception instanceof SchedulerException) {
+			return SchedulerException.class.getSimpleName();
+		}
+		return exception.getClass().getSimpleName();
+	}
+
+	/**
+	 * The meters of an operation, registered the first time they are used for a
+	 * {@code taskDefinitionName} and {@code outcome} or {@code exception} tag.  The
+	 * number of meters is bounded by the number of task definition tags.
+	 */
+	private final class OperationMeters {
+
+		private final String operation;
+
+		private final ConcurrentMap<String, Timer> successTimers = new ConcurrentHashMap<>();
+
+		private final ConcurrentMap<String, Timer> failureTimers = new ConcurrentHashMap<>();
+
+		private final ConcurrentMap<String, DistributionSummary> listSizes = new ConcurrentHashMap<>();
+
+		private final ConcurrentMap<String, ConcurrentMap<String, Counter>> errors = new ConcurrentHashMap<>();
+
+		private OperationMeters(String operation) {
+			this.operation = operation;
+		}
+
+		private Timer timer(String taskDefinitionTag, boolean success) {
+			ConcurrentMap<String, Timer> timers = success ? this.successTimers : this.failureTimers;
+			return timers.computeIfAbsent(taskDefinitionTag, tag -> Timer.builder(OPERATIONS_METRIC)
+					.description("Time taken by scheduler operations")
+					.tag("scheduler", schedulerName)
+					.tag("operation", this.operation)
+					.tag("taskDefinitionName", tag)
+					.tag("outcome", success ? "success" : "failure")
+					.publishPercentiles(0.5, 0.95, 0.99)
+					.register(meterRegistry));
+		}
+
+		private Counter errors(String taskDefinitionTag, String exceptionTag) {
+			return this.errors.computeIfAbsent(taskDefinitionTag, tag -> new ConcurrentHashMap<>())
+					.computeIfAbsent(exceptionTag, exception -> Counter.builder(ERRORS_METRIC)
+							.description("Number of failed scheduler operations")
+							.tag("scheduler", schedulerName)
+							.tag("operation", this.operation)
+							.tag("taskDefinitionName", taskDefinitionTag)
+							.tag("exception", exception)
+							.register(meterRegistry));
+		}
+
+		private DistributionSummary listSize(String taskDefinitionTag) {
+			return this.listSizes.computeIfAbsent(taskDefinitionTag, tag -> DistributionSummary.builder(LIST_SIZE_METRIC)
+					.description("Number of schedules returned by list operations")
+					.tag("scheduler", schedulerName)
+					.tag("operation", this.operation)
+					.tag("taskDefinitionName", tag)
+					.register(meterRegistry));
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleEvent;
+import org.springframework.cloud.scheduler.spi.core.ScheduleEventListener;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleSubscription;
+import org.springframework.cloud.scheduler.spi.core.ScheduleWatcher;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ScheduleWatcher} for {@link Scheduler} implementations that do not publish
+ * change notifications.  The schedules are listed periodically and each listing is
+ * compared with the previous one by schedule name, task definition name and schedule
+ * properties to derive the events.  The first listing establishes the baseline and
+ * does not produce any events.
+ *
+ * Changes that are undone between two listings are not observed, and a schedule that
+ * was replaced is only reported as {@link ScheduleEvent.Type#UPDATED updated} if its
+ * listed content changed.  Polling, and the delivery of events, takes place on a single
+ * daemon thread owned by the watcher, which is stopped when the watcher is closed.  A
+ * single shared watcher should therefore be used rather than one per consumer.
+ *
+ * @author agent
+ */
+public class PollingScheduleWatcher implements ScheduleWatcher, AutoCloseable {
+
+	private static final Log logger = LogFactory.getLog(PollingScheduleWatcher.class);
+
+	private final Scheduler scheduler;
+
+	private final ScheduledExecutorService executor;
+
+	private final ScheduleEventPublisher publisher;
+
+	/**
+	 * The schedules found by the previous listing, or {@code null} before the first
+	 * listing.  Only accessed while holding the monitor of this watcher.
+	 */
+	private Map<String, ImmutableScheduleInfo> known;
+
+	/**
+	 * @param scheduler the scheduler to be watched.
+	 * @param interval the delay between the end of a listing and the start of the next.
+	 * @param historySize the number of most recent events retained for resumption.
+	 */
+	public PollingScheduleWatcher(Scheduler scheduler, Duration interval, int historySize) {
+		Assert.notNull(scheduler, "scheduler must not be null");
+		Assert.notNull(interval, "interval must not be null");
+		Assert.isTrue(!interval.isNegative() && !interval.isZero(), "interval must be positive");
+		this.scheduler = scheduler;
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "schedule-watcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		this.executor = executor;
+		this.publisher = new ScheduleEventPublisher(historySize, executor);
+		this.executor.scheduleWithFixedDelay(this::pollQuietly, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public long getLatestSequence() {
+		return this.publisher.getLatestSequence();
+	}
+
+	@Override
+	public ScheduleSubscription watch(long afterSequence, ScheduleEventListener listener) {
+		return this.publisher.watch(afterSequence, listener);
+	}
+
+	/**
+	 * Lists the schedules and publishes the changes since the previous listing
+	 * immediately, rather than waiting for the next poll.
+	 */
+	public synchronized void poll() {
+		Map<String, ImmutableScheduleInfo> previous = this.known;
+		Map<String, ImmutableScheduleInfo> current = new HashMap<>();
+		for (ScheduleInfo scheduleInfo : this.scheduler.list()) {
+			current.put(scheduleInfo.getScheduleName(), ImmutableScheduleInfo.of(scheduleInfo));
+		}
+		this.known = current;
+		if (previous == null) {
+			return;
+		}
+		for (ImmutableScheduleInfo scheduleInfo : current.values()) {
+			ImmutableScheduleInfo previousScheduleInfo = previous.remove(scheduleInfo.getScheduleName());
+			if (previousScheduleInfo == null) {
+				this.publisher.publish(ScheduleEvent.Type.CREATED, scheduleInfo.toScheduleInfo());
+			}
+			else if (!hasSameContent(previousScheduleInfo, scheduleInfo)) {
+				this.publisher.publish(ScheduleEvent.Type.UPDATED, scheduleInfo.toScheduleInfo());
+			}
+		}
+		for (ImmutableScheduleInfo scheduleInfo : previous.values()) {
+			this.publisher.publish(ScheduleEvent.Type.DELETED, scheduleInfo.toScheduleInfo());
+		}
+	}
+
+	@Override
+	public void close() {
+		this.executor.shutdownNow();
+	}
+
+	private void pollQuietly() {
+		try {
+			poll();
+		}
+		catch (RuntimeException e) {
+			logger.warn("Failed to list the schedules to be watched", e);
+		}
+	}
+
+	private static boolean hasSameContent(ImmutableScheduleInfo scheduleInfo, ImmutableScheduleInfo other) {
+		return Objects.equals(scheduleInfo.getTaskDefinitionName(), other.getTaskDefinitionName())
+				&& nullToEmpty(scheduleInfo.getScheduleProperties()).equals(nullToEmpty(other.getScheduleProperties()));
+	}
+
+	private static Map<String, String> nullToEmpty(Map<String, String> properties) {
+		return properties != null ? properties : Collections.emptyMap();
+	}
+}
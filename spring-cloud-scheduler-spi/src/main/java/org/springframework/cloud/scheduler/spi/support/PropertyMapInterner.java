@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Canonicalizes the property maps of schedules, so that schedules with identical
+ * properties share a single immutable {@link CompactPropertyMap} whose keys and values
+ * are shared as well.  Schedulers that hold many schedules of the same task
+ * definitions can use it to reduce their memory footprint substantially.
+ *
+ * {@link ScheduleRequest} wraps its maps as unmodifiable, so interned maps can safely be
+ * shared between requests.  {@link AppDefinition} copies its properties, so the
+ * definitions themselves are canonicalized instead.
+ *
+ * The canonical instances are softly referenced, so they may be discarded under memory
+ * pressure, after which an equal instance is canonicalized anew.  Instances are
+ * thread-safe.
+ *
+ * @author agent
+ */
+public class PropertyMapInterner {
+
+	private final ConcurrentMap<String, String> strings = new ConcurrentReferenceHashMap<>();
+
+	private final ConcurrentMap<CompactPropertyMap, CompactPropertyMap> maps = new ConcurrentReferenceHashMap<>();
+
+	private final ConcurrentMap<AppDefinitionKey, AppDefinition> definitions = new ConcurrentReferenceHashMap<>();
+
+	/**
+	 * @param value the string to be interned, may be {@code null}.
+	 * @return the canonical instance equal to the string.
+	 */
+	public String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+		String existing = this.strings.putIfAbsent(value, value);
+		return existing != null ? existing : value;
+	}
+
+	/**
+	 * @param properties the properties to be interned, may be {@code null}.
+	 * @return the canonical immutable map equal to the properties.
+	 */
+	public Map<String, String> intern(Map<String, String> properties) {
+		if (properties == null) {
+			return null;
+		}
+		CompactPropertyMap candidate = CompactPropertyMap.of(properties);
+		CompactPropertyMap existing = this.maps.get(candidate);
+		if (existing != null) {
+			return existing;
+		}
+		CompactPropertyMap canonical = candidate.mapStrings(this::intern);
+		existing = this.maps.putIfAbsent(canonical, canonical);
+		return existing != null ? existing : canonical;
+	}
+
+	/**
+	 * @param definition the definition to be interned.
+	 * @return the canonical definition with the same name and properties.
+	 */
+	public AppDefinition intern(AppDefinition definition) {
+		AppDefinitionKey key = new AppDefinitionKey(definition.getName(),
+				CompactPropertyMap.of(definition.getProperties()));
+		AppDefinition existing = this.definitions.get(key);
+		if (existing != null) {
+			return existing;
+		}
+		key = new AppDefinitionKey(intern(key.name), (CompactPropertyMap) intern(key.properties));
+		AppDefinition canonical = new AppDefinition(key.name, key.properties);
+		existing = this.definitions.putIfAbsent(key, canonical);
+		return existing != null ? existing : canonical;
+	}
+
+	/**
+	 * @param scheduleRequest the request whose properties are to be interned.
+	 * @return an equivalent request that shares its definition and properties with the
+	 * other requests interned by this instance.
+	 */
+	public ScheduleRequest intern(ScheduleRequest scheduleRequest) {
+		return new ScheduleRequest(intern(scheduleRequest.getDefinition()),
+				intern(scheduleRequest.getSchedulerProperties()),
+				intern(scheduleRequest.getDeploymentProperties()),
+				scheduleRequest.getCommandlineArguments(),
+				scheduleRequest.getScheduleName(),
+				scheduleRequest.getResource());
+	}
+
+	/**
+	 * Replaces the task definition name and the properties of a schedule with their
+	 * canonical instances.
+	 *
+	 * @param scheduleInfo the schedule to be interned.
+	 * @return the schedule.
+	 */
+	public ScheduleInfo intern(ScheduleInfo scheduleInfo) {
+		scheduleInfo.setTaskDefinitionName(intern(scheduleInfo.getTaskDefinitionName()));
+		scheduleInfo.setScheduleProperties(intern(scheduleInfo.getScheduleProperties()));
+		return scheduleInfo;
+	}
+
+	private static final class AppDefinitionKey {
+
+		private final String name;
+
+		private final CompactPropertyMap properties;
+
+		private AppDefinitionKey(String name, CompactPropertyMap properties) {
+			this.name = name;
+			this.properties = properties;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof AppDefinitionKey)) {
+				return false;
+			}
+			AppDefinitionKey that = (AppDefinitionKey) o;
+			return this.name.equals(that.name) && this.properties.equals(that.properties);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.name.hashCode() + this.properties.hashCode();
+		}
+	}
+}
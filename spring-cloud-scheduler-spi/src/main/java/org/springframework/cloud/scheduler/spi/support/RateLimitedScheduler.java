@@ -0,0 +1,517 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleBatchResult;
+import org.springframework.cloud.scheduler.spi.core.ScheduleFilter;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.SchedulePage;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+import org.springframework.util.Assert;
+
+/**
+ * A decorator for {@link Scheduler} that limits the rate and the concurrency of the
+ * calls made to the underlying scheduler system, so that bulk operations proceed at the
+ * rate the platform sustains instead of failing once it starts to throttle them.
+ *
+ * <ul>
+ * <li>Each {@link Operation} can be limited by a token bucket with its own rate and
+ * burst size.  Callers wait for a token rather than failing.</li>
+ * <li>A bulkhead limits the number of calls in progress across all operations.</li>
+ * <li>Calls that fail because the platform throttled them, as determined by the
+ * throttling predicate, are retried with an exponential backoff.  Each throttling error
+ * halves the rate of the operation's bucket, down to a tenth of its configured rate,
+ * and each successful call increases it again by a hundredth of its configured rate.
+ * {@link Operation#RESCHEDULE} calls are not retried, since a reschedule that is
+ * implemented as an unschedule followed by a schedule cannot be repeated once the
+ * unschedule has succeeded.</li>
+ * </ul>
+ *
+ * A caller that could not obtain a token or a place in the bulkhead within the maximum
+ * wait receives a {@link CreateScheduleException}, an {@link UnScheduleException} or a
+ * {@link SchedulerException} depending on the operation.  The batch operations are
+ * applied one schedule at a time, each of which is limited and retried individually.
+ *
+ * @author agent
+ */
+public class RateLimitedScheduler implements Scheduler {
+
+	private static final double MULTIPLICATIVE_DECREASE = 0.5;
+
+	private static final double ADDITIVE_INCREASE_FRACTION = 0.01;
+
+	private static final double MIN_RATE_FRACTION = 0.1;
+
+	private static final Pattern THROTTLING_MESSAGE = Pattern.compile(
+			"\\b429\\b|too many requests|rate limit", Pattern.CASE_INSENSITIVE);
+
+	private final Scheduler delegate;
+
+	private final Map<Operation, TokenBucket> buckets;
+
+	private final Semaphore bulkhead;
+
+	private final long maxWaitNanos;
+
+	private final int maxRetries;
+
+	private final long initialBackoffNanos;
+
+	private final long maxBackoffNanos;
+
+	private final Predicate<Throwable> throttled;
+
+	private RateLimitedScheduler(Builder builder) {
+		this.delegate = builder.delegate;
+		this.buckets = new EnumMap<>(Operation.class);
+		builder.rateLimits.forEach((operation, limit) ->
+				this.buckets.put(operation, new TokenBucket(limit[0], limit[1])));
+		this.bulkhead = builder.maxConcurrency > 0 ? new Semaphore(builder.maxConcurrency, true) : null;
+		this.maxWaitNanos = builder.maxWait.toNanos();
+		this.maxRetries = builder.maxRetries;
+		this.initialBackoffNanos = builder.initialBackoff.toNanos();
+		this.maxBackoffNanos = builder.maxBackoff.toNanos();
+		this.throttled = builder.throttled;
+	}
+
+	public static Builder builder(Scheduler delegate) {
+		return new Builder(delegate);
+	}
+
+	/**
+	 * The default throttling predicate: the exception, or one of its causes, has a
+	 * message that mentions HTTP status 429 as a separate number, "Too Many Requests" or a rate limit, as
+	 * reported by the Kubernetes API server and the Cloud Foundry Cloud Controller.
+	 *
+	 * @param throwable the exception thrown by the underlying scheduler.
+	 * @return {@code true} if the exception indicates throttling.
+	 */
+	public static boolean isThrottlingError(Throwable throwable) {
+		for (Throwable t = throwable; t != null; t = t.getCause()) {
+			String message = t.getMessage();
+			if (message != null && THROTTLING_MESSAGE.matcher(message).find()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void schedule(ScheduleRequest scheduleRequest) {
+		String scheduleName = scheduleRequest.getScheduleName();
+		call(Operation.SCHEDULE, e -> new CreateScheduleException(scheduleName, e), () -> {
+			this.delegate.schedule(scheduleRequest);
+			return null;
+		});
+	}
+
+	@Override
+	public void unschedule(String scheduleName) {
+		call(Operation.UNSCHEDULE, e -> new UnScheduleException(scheduleName, e), () -> {
+			this.delegate.unschedule(scheduleName);
+			return null;
+		});
+	}
+
+	@Override
+	public void reschedule(ScheduleRequest scheduleRequest) {
+		String scheduleName = scheduleRequest.getScheduleName();
+		call(Operation.RESCHEDULE, e -> new CreateScheduleException(scheduleName, e), () -> {
+			this.delegate.reschedule(scheduleRequest);
+			return null;
+		});
+	}
+
+	@Override
+	public ScheduleBatchResult scheduleAll(Collection<ScheduleRequest> scheduleRequests) {
+		ScheduleBatchResult.assertDistinctScheduleNames(scheduleRequests.stream()
+				.map(ScheduleRequest::getScheduleName)
+				.collect(Collectors.toList()));
+		ScheduleBatchResult result = new ScheduleBatchResult();
+		for (ScheduleRequest scheduleRequest : scheduleRequests) {
+			try {
+				schedule(scheduleRequest);
+				result.addSuccess(scheduleRequest.getScheduleName());
+			}
+			catch (SchedulerException e) {
+				result.addFailure(scheduleRequest.getScheduleName(), e);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public ScheduleBatchResult unscheduleAll(Collection<String> scheduleNames) {
+		ScheduleBatchResult.assertDistinctScheduleNames(scheduleNames);
+		ScheduleBatchResult result = new ScheduleBatchResult();
+		for (String scheduleName : scheduleNames) {
+			try {
+				unschedule(scheduleName);
+				result.addSuccess(scheduleName);
+			}
+			catch (SchedulerException e) {
+				result.addFailure(scheduleName, e);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<ScheduleInfo> list(String taskDefinitionName) {
+		return call(Operation.LIST, Function.identity(), () -> this.delegate.list(taskDefinitionName));
+	}
+
+	@Override
+	public List<ScheduleInfo> list() {
+		return call(Operation.LIST, Function.identity(), this.delegate::list);
+	}
+
+	@Override
+	public Stream<ScheduleInfo> stream(ScheduleFilter filter) {
+		return call(Operation.LIST, Function.identity(), () -> this.delegate.stream(filter));
+	}
+
+	@Override
+	public SchedulePage list(ScheduleFilter filter, String cursor, int pageSize) {
+		return call(Operation.LIST, Function.identity(), () -> this.delegate.list(filter, cursor, pageSize));
+	}
+
+	@Override
+	public Optional<ScheduleInfo> get(String scheduleName) {
+		return call(Operation.GET, Function.identity(), () -> this.delegate.get(scheduleName));
+	}
+
+	@Override
+	public boolean exists(String scheduleName) {
+		return call(Operation.GET, Function.identity(), () -> this.delegate.exists(scheduleName));
+	}
+
+	/**
+	 * @param operation the operation.
+	 * @return the current rate of the operation in calls per second, adjusted for
+	 * throttling, or {@code -1} if the operation is not rate limited.
+	 */
+	public double getCurrentRate(Operation operation) {
+		TokenBucket bucket = this.buckets.get(operation);
+		return bucket != null ? bucket.getRate() : -1;
+	}
+
+	private <T> T call(Operation operation, Function<SchedulerException, SchedulerException> rejection,
+			Supplier<T> call) {
+		TokenBucket bucket = this.buckets.get(operation);
+		int maxRetries = operation != Operation.RESCHEDULE ? this.maxRetries : 0;
+		long deadline = System.nanoTime() + this.maxWaitNanos;
+		for (int attempt = 0; ; attempt++) {
+			if (bucket != null) {
+				acquireToken(bucket, operation, deadline, rejection);
+			}
+			acquireBulkhead(operation, deadline, rejection);
+			long backoff;
+			try {
+				T result = call.get();
+				if (bucket != null) {
+					bucket.onSuccess();
+				}
+				return result;
+			}
+			catch (RuntimeException e) {
+				if (!this.throttled.test(e)) {
+					throw e;
+				}
+				if (bucket != null) {
+					bucket.onThrottled();
+				}
+				if (attempt >= maxRetries) {
+					throw e;
+				}
+				backoff = Math.min(this.maxBackoffNanos, this.initialBackoffNanos << Math.min(attempt, 30));
+				backoff = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+				if (System.nanoTime() + backoff - deadline > 0) {
+					throw e;
+				}
+			}
+			finally {
+				if (this.bulkhead != null) {
+					this.bulkhead.release();
+				}
+			}
+			// back off without holding a place in the bulkhead
+			sleep(backoff, rejection);
+		}
+	}
+
+	private void acquireToken(TokenBucket bucket, Operation operation, long deadline,
+			Function<SchedulerException, SchedulerException> rejection) {
+		long now = System.nanoTime();
+		long wait = bucket.reserve(now);
+		if (wait == 0) {
+			return;
+		}
+		if (now + wait - deadline > 0) {
+			bucket.cancel();
+			throw rejection.apply(new SchedulerException(String.format(
+					"Rate limit of %s exceeded, no permit available within %d ms",
+					operation, TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos))));
+		}
+		sleep(wait, rejection);
+	}
+
+	private void acquireBulkhead(Operation operation, long deadline,
+			Function<SchedulerException, SchedulerException> rejection) {
+		if (this.bulkhead == null) {
+			return;
+		}
+		boolean acquired;
+		try {
+			acquired = this.bulkhead.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw rejection.apply(new SchedulerException("Interrupted while waiting for the bulkhead", e));
+		}
+		if (!acquired) {
+			throw rejection.apply(new SchedulerException(String.format(
+					"Too many concurrent operations, %s could not be started within %d ms",
+					operation, TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos))));
+		}
+	}
+
+	private static void sleep(long nanos, Function<SchedulerException, SchedulerException> rejection) {
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw rejection.apply(new SchedulerException("Interrupted while waiting for the rate limit", e));
+		}
+	}
+
+	/**
+	 * The operations that are rate limited separately.
+	 */
+	public enum Operation {
+
+		SCHEDULE,
+
+		UNSCHEDULE,
+
+		RESCHEDULE,
+
+		/**
+		 * All list and stream operations.
+		 */
+		LIST,
+
+		/**
+		 * The lookup of a single schedule by {@link Scheduler#get(String)} or
+		 * {@link Scheduler#exists(String)}.
+		 */
+		GET
+	}
+
+	/**
+	 * A token bucket whose tokens can be reserved ahead of time, so that waiting callers
+	 * are served in the order they arrived.  The balance becomes negative while tokens
+	 * are reserved.
+	 */
+	private static final class TokenBucket {
+
+		private final double maxRate;
+
+		private final double minRate;
+
+		private final double capacity;
+
+		private double rate;
+
+		private double tokens;
+
+		private long refilledAt;
+
+		private TokenBucket(double rate, double capacity) {
+			this.maxRate = rate;
+			this.minRate = rate * MIN_RATE_FRACTION;
+			this.capacity = capacity;
+			this.rate = rate;
+			this.tokens = capacity;
+			this.refilledAt = System.nanoTime();
+		}
+
+		/**
+		 * Takes a token.
+		 *
+		 * @return the number of nanoseconds to wait until the token is available.
+		 */
+		private synchronized long reserve(long now) {
+			refill(now);
+			this.tokens -= 1;
+			return this.tokens >= 0 ? 0 : (long) (-this.tokens / this.rate * TimeUnit.SECONDS.toNanos(1));
+		}
+
+		private synchronized void cancel() {
+			this.tokens += 1;
+		}
+
+		private synchronized void onSuccess() {
+			this.rate = Math.min(this.maxRate, this.rate + this.maxRate * ADDITIVE_INCREASE_FRACTION);
+		}
+
+		private synchronized void onThrottled() {
+			refill(System.nanoTime());
+			this.rate = Math.max(this.minRate, this.rate * MULTIPLICATIVE_DECREASE);
+		}
+
+		private synchronized double getRate() {
+			return this.rate;
+		}
+
+		private void refill(long now) {
+			this.tokens = Math.min(this.capacity,
+					this.tokens + (now - this.refilledAt) * this.rate / TimeUnit.SECONDS.toNanos(1));
+			this.refilledAt = now;
+		}
+	}
+
+	/**
+	 * Builder for {@link RateLimitedScheduler}.
+	 */
+	public static class Builder {
+
+		private final Scheduler delegate;
+
+		private final Map<Operation, double[]> rateLimits = new EnumMap<>(Operation.class);
+
+		private int maxConcurrency;
+
+		private Duration maxWait = Duration.ofSeconds(30);
+
+		private int maxRetries = 3;
+
+		private Duration initialBackoff = Duration.ofMillis(200);
+
+		private Duration maxBackoff = Duration.ofSeconds(10);
+
+		private Predicate<Throwable> throttled = RateLimitedScheduler::isThrottlingError;
+
+		private Builder(Scheduler delegate) {
+			Assert.notNull(delegate, "delegate must not be null");
+			this.delegate = delegate;
+		}
+
+		/**
+		 * Limits the rate of an operation, which is unlimited by default.
+		 *
+		 * @param operation the operation to be limited.
+		 * @param permitsPerSecond the sustained number of calls per second.
+		 * @param burst the number of calls that may be made at once after a quiet period.
+		 * @return this builder.
+		 */
+		public Builder rateLimit(Operation operation, double permitsPerSecond, int burst) {
+			Assert.notNull(operation, "operation must not be null");
+			Assert.isTrue(permitsPerSecond > 0, "permitsPerSecond must be greater than zero");
+			Assert.isTrue(burst > 0, "burst must be greater than zero");
+			this.rateLimits.put(operation, new double[] { permitsPerSecond, burst });
+			return this;
+		}
+
+		/**
+		 * @param maxConcurrency the maximum number of calls in progress at once, zero for
+		 * no limit, which is the default.
+		 * @return this builder.
+		 */
+		public Builder maxConcurrency(int maxConcurrency) {
+			Assert.isTrue(maxConcurrency >= 0, "maxConcurrency must not be negative");
+			this.maxConcurrency = maxConcurrency;
+			return this;
+		}
+
+		/**
+		 * @param maxWait the maximum time a call waits for permits and retries, 30
+		 * seconds by default.
+		 * @return this builder.
+		 */
+		public Builder maxWait(Duration maxWait) {
+			Assert.notNull(maxWait, "maxWait must not be null");
+			Assert.isTrue(!maxWait.isNegative(), "maxWait must not be negative");
+			this.maxWait = maxWait;
+			return this;
+		}
+
+		/**
+		 * @param maxRetries the maximum number of times a throttled call is retried, 3 by
+		 * default.
+		 * @return this builder.
+		 */
+		public Builder maxRetries(int maxRetries) {
+			Assert.isTrue(maxRetries >= 0, "maxRetries must not be negative");
+			this.maxRetries = maxRetries;
+			return this;
+		}
+
+		/**
+		 * @param initialBackoff the delay before the first retry, doubled for each
+		 * subsequent retry up to the maximum backoff.
+		 * @param maxBackoff the maximum delay between retries.
+		 * @return this builder.
+		 */
+		public Builder backoff(Duration initialBackoff, Duration maxBackoff) {
+			Assert.notNull(initialBackoff, "initialBackoff must not be null");
+			Assert.notNull(maxBackoff, "maxBackoff must not be null");
+			Assert.isTrue(!initialBackoff.isNegative() && initialBackoff.compareTo(maxBackoff) <= 0,
+					"initialBackoff must not be negative or greater than maxBackoff");
+			this.initialBackoff = initialBackoff;
+			this.maxBackoff = maxBackoff;
+			return this;
+		}
+
+		/**
+		 * @param throttled determines whether an exception thrown by the underlying
+		 * scheduler indicates that the call was throttled, by default
+		 * {@link RateLimitedScheduler#isThrottlingError(Throwable)}.
+		 * @return this builder.
+		 */
+		public Builder throttlingPredicate(Predicate<Throwable> throttled) {
+			Assert.notNull(throttled, "throttled must not be null");
+			this.throttled = throttled;
+			return this;
+		}
+
+		public RateLimitedScheduler build() {
+			return new RateLimitedScheduler(this);
+		}
+	}
+}
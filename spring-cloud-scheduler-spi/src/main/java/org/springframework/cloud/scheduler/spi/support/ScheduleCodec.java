@@ -0,0 +1,461 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cloud.deployer.spi.app.AppDeployer;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.Assert;
+
+/**
+ * A compact, versioned binary encoding of {@link ScheduleRequest}s and
+ * {@link ScheduleInfo}s, for persisting, caching and transferring them between nodes.
+ *
+ * An encoded value starts with the format version and the kind of value, followed by
+ * its fields.  Lengths and counts are unsigned variable length integers.  Strings are
+ * written as a variable length tag: {@code 0} for {@code null}, {@code 1} for a literal
+ * that follows as its UTF-8 length and bytes, or {@code 2 + n} for the {@code n}th
+ * entry of a table holding a dictionary of well known property keys and values
+ * followed by the literals already written in the same value.  The heavily repeated
+ * keys such as {@link SchedulerPropertyKeys#CRON_EXPRESSION} therefore take a single
+ * byte, as does any string repeated within a value.  Maps and lists are written as
+ * their size plus one, zero denoting {@code null}, followed by their elements.
+ *
+ * The {@link Resource} of a request is written as its URI and resolved with a
+ * {@link ResourceLoader} when decoding, so only resources with a URI can be encoded.
+ *
+ * Instances are thread-safe.
+ *
+ * @author agent
+ */
+public class ScheduleCodec {
+
+	/**
+	 * The version of the format written by this codec.
+	 */
+	public static final int VERSION = 1;
+
+	private static final int SCHEDULE_REQUEST = 1;
+
+	private static final int SCHEDULE_INFO = 2;
+
+	private static final int NULL_TAG = 0;
+
+	private static final int LITERAL_TAG = 1;
+
+	private static final int FIRST_REFERENCE_TAG = 2;
+
+	/**
+	 * The dictionary of the format version 1.  Entries must never be removed or
+	 * reordered, new entries require a new format version.
+	 */
+	private static final List<String> DICTIONARY = Collections.unmodifiableList(Arrays.asList(
+			SchedulerPropertyKeys.CRON_EXPRESSION,
+			SchedulerPropertyKeys.CRON_SPREAD_WINDOW,
+			AppDeployer.COUNT_PROPERTY_KEY,
+			AppDeployer.GROUP_PROPERTY_KEY,
+			AppDeployer.INDEXED_PROPERTY_KEY,
+			AppDeployer.MEMORY_PROPERTY_KEY,
+			AppDeployer.DISK_PROPERTY_KEY,
+			AppDeployer.CPU_PROPERTY_KEY,
+			"spring.cloud.task.name",
+			"spring.cloud.task.closecontextEnabled",
+			"spring.datasource.url",
+			"spring.datasource.username",
+			"spring.datasource.password",
+			"spring.datasource.driverClassName",
+			"true",
+			"false"));
+
+	private static final Map<String, Integer> DICTIONARY_INDEX = new HashMap<>();
+
+	static {
+		for (int i = 0; i < DICTIONARY.size(); i++) {
+			DICTIONARY_INDEX.put(DICTIONARY.get(i), i);
+		}
+	}
+
+	private static final int MAX_CACHED_RESOURCES = 1024;
+
+	private final ResourceLoader resourceLoader;
+
+	/**
+	 * Resources resolved while decoding, keyed by URI, as requests commonly share their
+	 * resources.
+	 */
+	private final ConcurrentMap<String, Resource> resources = new ConcurrentHashMap<>();
+
+	/**
+	 * The URIs of the resources of encoded requests, which may be costly to compute.
+	 */
+	private final ConcurrentMap<Resource, String> uris = new ConcurrentHashMap<>();
+
+	public ScheduleCodec() {
+		this(new DefaultResourceLoader());
+	}
+
+	/**
+	 * @param resourceLoader resolves the resources of decoded requests.
+	 */
+	public ScheduleCodec(ResourceLoader resourceLoader) {
+		Assert.notNull(resourceLoader, "resourceLoader must not be null");
+		this.resourceLoader = resourceLoader;
+	}
+
+	/**
+	 * @param scheduleRequest the request to be encoded.
+	 * @return the encoded request.
+	 * @throws IllegalArgumentException if the resource of the request has no URI.
+	 */
+	public byte[] encode(ScheduleRequest scheduleRequest) {
+		Assert.notNull(scheduleRequest, "scheduleRequest must not be null");
+		Encoder encoder = new Encoder(SCHEDULE_REQUEST);
+		encoder.writeString(scheduleRequest.getScheduleName());
+		encoder.writeString(scheduleRequest.getDefinition().getName());
+		encoder.writeMap(scheduleRequest.getDefinition().getProperties());
+		encoder.writeMap(scheduleRequest.getSchedulerProperties());
+		encoder.writeMap(scheduleRequest.getDeploymentProperties());
+		encoder.writeList(scheduleRequest.getCommandlineArguments());
+		encoder.writeString(uriOf(scheduleRequest.getResource()));
+		return encoder.toByteArray();
+	}
+
+	/**
+	 * @param scheduleInfo the schedule to be encoded.
+	 * @return the encoded schedule.
+	 */
+	public byte[] encode(ScheduleInfo scheduleInfo) {
+		Assert.notNull(scheduleInfo, "scheduleInfo must not be null");
+		Encoder encoder = new Encoder(SCHEDULE_INFO);
+		encoder.writeString(scheduleInfo.getScheduleName());
+		encoder.writeString(scheduleInfo.getTaskDefinitionName());
+		encoder.writeMap(scheduleInfo.getScheduleProperties());
+		return encoder.toByteArray();
+	}
+
+	public ScheduleRequest decodeScheduleRequest(byte[] bytes) {
+		return decodeScheduleRequest(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * @param bytes the array holding the encoded request.
+	 * @param offset the offset of the encoded request in the array.
+	 * @param length the length of the encoded request.
+	 * @return the decoded request.
+	 * @throws IllegalArgumentException if the bytes are not a request encoded in a
+	 * supported version of the format.
+	 */
+	public ScheduleRequest decodeScheduleRequest(byte[] bytes, int offset, int length) {
+		Decoder decoder = new Decoder(bytes, offset, length, SCHEDULE_REQUEST);
+		String scheduleName = decoder.readString();
+		String taskDefinitionName = decoder.readString();
+		Map<String, String> appProperties = decoder.readMap();
+		Map<String, String> schedulerProperties = decoder.readMap();
+		Map<String, String> deploymentProperties = decoder.readMap();
+		List<String> commandlineArguments = decoder.readList();
+		String resourceUri = decoder.readString();
+		decoder.finish();
+		return new ScheduleRequest(new AppDefinition(taskDefinitionName, appProperties), schedulerProperties,
+				deploymentProperties, commandlineArguments, scheduleName, resolve(resourceUri));
+	}
+
+	public ScheduleInfo decodeScheduleInfo(byte[] bytes) {
+		return decodeScheduleInfo(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * @param bytes the array holding the encoded schedule.
+	 * @param offset the offset of the encoded schedule in the array.
+	 * @param length the length of the encoded schedule.
+	 * @return the decoded schedule.
+	 * @throws IllegalArgumentException if the bytes are not a schedule encoded in a
+	 * supported version of the format.
+	 */
+	public ScheduleInfo decodeScheduleInfo(byte[] bytes, int offset, int length) {
+		Decoder decoder = new Decoder(bytes, offset, length, SCHEDULE_INFO);
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(decoder.readString());
+		scheduleInfo.setTaskDefinitionName(decoder.readString());
+		scheduleInfo.setScheduleProperties(decoder.readMap());
+		decoder.finish();
+		return scheduleInfo;
+	}
+
+	private String uriOf(Resource resource) {
+		String uri = this.uris.get(resource);
+		if (uri == null) {
+			try {
+				uri = resource.getURI().toString();
+			}
+			catch (IOException e) {
+				throw new IllegalArgumentException(String.format("Resource %s can not be encoded as it has no URI",
+						resource), e);
+			}
+			if (this.uris.size() >= MAX_CACHED_RESOURCES) {
+				this.uris.clear();
+			}
+			this.uris.put(resource, uri);
+		}
+		return uri;
+	}
+
+	private Resource resolve(String uri) {
+		Assert.notNull(uri, "Malformed schedule request: missing resource");
+		Resource resource = this.resources.get(uri);
+		if (resource == null) {
+			if (this.resources.size() >= MAX_CACHED_RESOURCES) {
+				this.resources.clear();
+			}
+			resource = this.resourceLoader.getResource(uri);
+			this.resources.put(uri, resource);
+		}
+		return resource;
+	}
+
+	/**
+	 * Writes the fields of a single value.
+	 */
+	private static final class Encoder {
+
+		private byte[] buffer = new byte[128];
+
+		private int count;
+
+		/**
+		 * The table indexes of the literals written so far, created on first use.
+		 */
+		private Map<String, Integer> literals;
+
+		private Encoder(int kind) {
+			writeByte(VERSION);
+			writeByte(kind);
+		}
+
+		private void writeString(String value) {
+			if (value == null) {
+				writeVarint(NULL_TAG);
+				return;
+			}
+			Integer index = DICTIONARY_INDEX.get(value);
+			if (index == null && this.literals != null) {
+				index = this.literals.get(value);
+			}
+			if (index != null) {
+				writeVarint(FIRST_REFERENCE_TAG + index);
+				return;
+			}
+			if (this.literals == null) {
+				this.literals = new HashMap<>();
+			}
+			this.literals.put(value, DICTIONARY.size() + this.literals.size());
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarint(LITERAL_TAG);
+			writeVarint(bytes.length);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, this.buffer, this.count, bytes.length);
+			this.count += bytes.length;
+		}
+
+		private void writeMap(Map<String, String> map) {
+			if (map == null) {
+				writeVarint(0);
+				return;
+			}
+			writeVarint(map.size() + 1);
+			for (Map.Entry<String, String> entry : map.entrySet()) {
+				writeString(entry.getKey());
+				writeString(entry.getValue());
+			}
+		}
+
+		private void writeList(List<String> list) {
+			if (list == null) {
+				writeVarint(0);
+				return;
+			}
+			writeVarint(list.size() + 1);
+			for (String value : list) {
+				writeString(value);
+			}
+		}
+
+		private void writeVarint(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				this.buffer[this.count++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.buffer[this.count++] = (byte) value;
+		}
+
+		private void writeByte(int value) {
+			ensureCapacity(1);
+			this.buffer[this.count++] = (byte) value;
+		}
+
+		private void ensureCapacity(int additional) {
+			if (this.count + additional > this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.count + additional));
+			}
+		}
+
+		private byte[] toByteArray() {
+			return Arrays.copyOf(this.buffer, this.count);
+		}
+	}
+
+	/**
+	 * Reads the fields of a single value.
+	 */
+	private static final class Decoder {
+
+		private final byte[] bytes;
+
+		private final int limit;
+
+		private int position;
+
+		/**
+		 * The literals read so far, created on first use.
+		 */
+		private List<String> literals;
+
+		private Decoder(byte[] bytes, int offset, int length, int kind) {
+			Assert.notNull(bytes, "bytes must not be null");
+			Assert.isTrue(offset >= 0 && length >= 0 && offset + length <= bytes.length,
+					"offset and length must be within the bounds of bytes");
+			this.bytes = bytes;
+			this.position = offset;
+			this.limit = offset + length;
+			int version = readByte();
+			if (version != VERSION) {
+				throw new IllegalArgumentException(String.format("Unsupported schedule format version %d", version));
+			}
+			int actualKind = readByte();
+			if (actualKind != kind) {
+				throw new IllegalArgumentException(String.format("Expected value of kind %d but found %d",
+						kind, actualKind));
+			}
+		}
+
+		private String readString() {
+			int tag = readVarint();
+			if (tag == NULL_TAG) {
+				return null;
+			}
+			if (tag == LITERAL_TAG) {
+				int length = readVarint();
+				checkAvailable(length);
+				String value = new String(this.bytes, this.position, length, StandardCharsets.UTF_8);
+				this.position += length;
+				if (this.literals == null) {
+					this.literals = new ArrayList<>();
+				}
+				this.literals.add(value);
+				return value;
+			}
+			int index = tag - FIRST_REFERENCE_TAG;
+			if (index < DICTIONARY.size()) {
+				return DICTIONARY.get(index);
+			}
+			index -= DICTIONARY.size();
+			if (this.literals == null || index >= this.literals.size()) {
+				throw malformed();
+			}
+			return this.literals.get(index);
+		}
+
+		private Map<String, String> readMap() {
+			int size = readVarint() - 1;
+			if (size < 0) {
+				return null;
+			}
+			checkAvailable(size * 2);
+			Map<String, String> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+			for (int i = 0; i < size; i++) {
+				map.put(readString(), readString());
+			}
+			return map;
+		}
+
+		private List<String> readList() {
+			int size = readVarint() - 1;
+			if (size < 0) {
+				return null;
+			}
+			checkAvailable(size);
+			List<String> list = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(readString());
+			}
+			return list;
+		}
+
+		private int readVarint() {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					if (value < 0) {
+						throw malformed();
+					}
+					return value;
+				}
+			}
+			throw malformed();
+		}
+
+		private int readByte() {
+			checkAvailable(1);
+			return this.bytes[this.position++] & 0xFF;
+		}
+
+		private void checkAvailable(int length) {
+			if (length < 0 || length > this.limit - this.position) {
+				throw malformed();
+			}
+		}
+
+		private void finish() {
+			if (this.position != this.limit) {
+				throw malformed();
+			}
+		}
+
+		private static IllegalArgumentException malformed() {
+			return new IllegalArgumentException("Malformed encoded schedule");
+		}
+	}
+}
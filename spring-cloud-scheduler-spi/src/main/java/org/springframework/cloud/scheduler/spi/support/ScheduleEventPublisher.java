@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleEvent;
+import org.springframework.cloud.scheduler.spi.core.ScheduleEventListener;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleSubscription;
+import org.springframework.cloud.scheduler.spi.core.ScheduleWatcher;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ScheduleWatcher} for {@link org.springframework.cloud.scheduler.spi.core.Scheduler}
+ * implementations to publish their changes through.
+ *
+ * Each published event is assigned the next sequence number and is retained in a ring
+ * buffer of a fixed size, so that subscriptions can resume from any of the retained
+ * events.  Events are delivered asynchronously on the provided {@link Executor}, one at
+ * a time and in sequence order for each subscription, so that publishing is cheap and a
+ * slow listener does not delay the scheduler or the other listeners.  The events
+ * pending delivery to a subscription are queued without bound.
+ *
+ * @author agent
+ */
+public class ScheduleEventPublisher implements ScheduleWatcher {
+
+	private static final Log logger = LogFactory.getLog(ScheduleEventPublisher.class);
+
+	private final Object lock = new Object();
+
+	private final ScheduleEvent[] history;
+
+	private final Executor executor;
+
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The sequence number of the most recent event, guarded by the lock.
+	 */
+	private long sequence;
+
+	/**
+	 * @param historySize the number of most recent events retained for resumption.
+	 * @param executor the executor the events are delivered on.
+	 */
+	public ScheduleEventPublisher(int historySize, Executor executor) {
+		Assert.isTrue(historySize > 0, "historySize must be greater than zero");
+		Assert.notNull(executor, "executor must not be null");
+		this.history = new ScheduleEvent[historySize];
+		this.executor = executor;
+	}
+
+	/**
+	 * Publishes an event to the current subscriptions.  Callers that publish changes to
+	 * the same schedule from several threads must serialize the calls in the order the
+	 * changes were applied.
+	 *
+	 * @param type the kind of change.
+	 * @param scheduleInfo the schedule after the change, or its last known state if it
+	 * was deleted.
+	 * @return the published event.
+	 */
+	public ScheduleEvent publish(ScheduleEvent.Type type, ScheduleInfo scheduleInfo) {
+		synchronized (this.lock) {
+			ScheduleEvent event = new ScheduleEvent(type, ++this.sequence, scheduleInfo);
+			this.history[slot(event.getSequence())] = event;
+			for (Subscription subscription : this.subscriptions) {
+				subscription.enqueue(event);
+			}
+			return event;
+		}
+	}
+
+	@Override
+	public long getLatestSequence() {
+		synchronized (this.lock) {
+			return this.sequence;
+		}
+	}
+
+	@Override
+	public ScheduleSubscription watch(long afterSequence, ScheduleEventListener listener) {
+		Assert.isTrue(afterSequence >= 0, "afterSequence must not be negative");
+		Assert.notNull(listener, "listener must not be null");
+		synchronized (this.lock) {
+			if (afterSequence > this.sequence) {
+				throw new SchedulerException(String.format(
+						"Sequence %d has not been published, the latest sequence is %d", afterSequence, this.sequence));
+			}
+			if (this.sequence - afterSequence > this.history.length) {
+				throw new SchedulerException(String.format(
+						"Events after sequence %d are no longer retained", afterSequence));
+			}
+			Subscription subscription = new Subscription(listener);
+			for (long replayed = afterSequence + 1; replayed <= this.sequence; replayed++) {
+				subscription.enqueue(this.history[slot(replayed)]);
+			}
+			this.subscriptions.add(subscription);
+			return subscription;
+		}
+	}
+
+	private int slot(long sequence) {
+		return (int) (sequence % this.history.length);
+	}
+
+	/**
+	 * A listener and the events pending delivery to it.  At most one task draining the
+	 * queue is submitted to the executor at any time.
+	 */
+	private class Subscription implements ScheduleSubscription {
+
+		private final ScheduleEventListener listener;
+
+		private final Queue<ScheduleEvent> pending = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean draining = new AtomicBoolean();
+
+		private volatile boolean closed;
+
+		private Subscription(ScheduleEventListener listener) {
+			this.listener = listener;
+		}
+
+		private void enqueue(ScheduleEvent event) {
+			this.pending.add(event);
+			scheduleDrain();
+		}
+
+		private void scheduleDrain() {
+			if (this.closed || !this.draining.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				executor.execute(this::drain);
+			}
+			catch (RejectedExecutionException e) {
+				this.draining.set(false);
+				logger.warn("Unable to deliver schedule events, the executor rejected the delivery", e);
+			}
+		}
+
+		private void drain() {
+			ScheduleEvent event;
+			while (!this.closed && (event = this.pending.poll()) != null) {
+				try {
+					this.listener.onEvent(event);
+				}
+				catch (Throwable t) {
+					logger.warn(String.format("Schedule event listener failed to process %s", event), t);
+				}
+			}
+			this.draining.set(false);
+			if (!this.pending.isEmpty()) {
+				// an event was enqueued after the queue was found to be empty
+				scheduleDrain();
+			}
+		}
+
+		@Override
+		public void close() {
+			this.closed = true;
+			subscriptions.remove(this);
+			this.pending.clear();
+		}
+	}
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleBatchResult;
+import org.springframework.cloud.scheduler.spi.core.ScheduleFilter;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Brings the schedules registered with a {@link Scheduler} in line with a desired set
+ * of {@link ScheduleRequest}s.
+ *
+ * The current state is retrieved once, using {@link Scheduler#stream(ScheduleFilter)}
+ * with the scope of the reconciliation, and is compared to the desired state by
+ * schedule name in linear time.  A desired schedule that does not exist is created, one
+ * whose content differs from the existing schedule is updated, and an existing schedule
+ * within the scope that is not desired is deleted.
+ *
+ * An existing schedule is compared by its task definition name and schedule properties,
+ * the only parts of its request returned by the scheduler.  In addition, the reconciler
+ * remembers a hash of the complete request, including the resource, the deployment and
+ * application properties and the command line arguments, of each schedule it created or
+ * updated successfully, and also updates such a schedule if its hash differs.  Changes
+ * to the rest of the request are therefore only detected for schedules applied by the
+ * same reconciler instance, not for schedules created elsewhere or before a restart.
+ * Schedules outside of the scope are neither inspected nor modified, so several
+ * independent sets of schedules can be reconciled against the same scheduler.
+ *
+ * The resulting {@link Plan} is applied in three phases, deletions followed by updates
+ * followed by creations, each of which is split into at most {@code parallelism}
+ * chunks that are passed to the batch operations of the scheduler concurrently.
+ * Updates use {@link Scheduler#reschedule(ScheduleRequest)}.  Failures are reported
+ * per schedule in the returned {@link Result} and do not stop the reconciliation.
+ *
+ * @author agent
+ */
+public class ScheduleReconciler {
+
+	private final Scheduler scheduler;
+
+	private final Executor executor;
+
+	private final int parallelism;
+
+	private final ConcurrentMap<String, String> appliedHashes = new ConcurrentHashMap<>();
+
+	/**
+	 * @param scheduler the scheduler to be reconciled.
+	 * @param executor the executor the chunks of each phase are run on.
+	 * @param parallelism the maximum number of batch operations running at once.
+	 */
+	public ScheduleReconciler(Scheduler scheduler, Executor executor, int parallelism) {
+		Assert.notNull(scheduler, "scheduler must not be null");
+		Assert.notNull(executor, "executor must not be null");
+		Assert.isTrue(parallelism > 0, "parallelism must be greater than zero");
+		this.scheduler = scheduler;
+		this.executor = executor;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Computes the changes required to reconcile all schedules with the desired state.
+	 *
+	 * @param desired the schedules that should exist.
+	 * @return the changes required.
+	 */
+	public Plan plan(Collection<ScheduleRequest> desired) {
+		return plan(desired, ScheduleFilter.all());
+	}
+
+	/**
+	 * Computes the changes required to reconcile the schedules within the scope with
+	 * the desired state.
+	 *
+	 * @param desired the schedules that should exist, all of which must be within the scope.
+	 * @param scope the schedules that are subject to the reconciliation.
+	 * @return the changes required.
+	 * @throws IllegalArgumentException if the desired schedules contain duplicate names
+	 * or schedules outside of the scope.
+	 */
+	public Plan plan(Collection<ScheduleRequest> desired, ScheduleFilter scope) {
+		Assert.notNull(desired, "desired must not be null");
+		Assert.notNull(scope, "scope must not be null");
+		Map<String, ScheduleRequest> desiredByName = new HashMap<>(desired.size() * 4 / 3 + 1);
+		Map<String, String> desiredHashes = new HashMap<>(desired.size() * 4 / 3 + 1);
+		for (ScheduleRequest scheduleRequest : desired) {
+			Assert.notNull(scheduleRequest, "desired must not contain null elements");
+			Assert.isTrue(scope.matches(toScheduleInfo(scheduleRequest)), () ->
+					"schedule " + scheduleRequest.getScheduleName() + " is not within the scope " + scope);
+			Assert.isNull(desiredByName.putIfAbsent(scheduleRequest.getScheduleName(), scheduleRequest),
+					() -> "duplicate schedule " + scheduleRequest.getScheduleName());
+			desiredHashes.put(scheduleRequest.getScheduleName(), contentHash(scheduleRequest));
+		}
+		Map<String, String> contentHashes = new HashMap<>();
+		List<ScheduleRequest> toCreate = new ArrayList<>();
+		List<ScheduleRequest> toUpdate = new ArrayList<>();
+		List<String> toDelete = new ArrayList<>();
+		Map<String, ScheduleInfo> current = this.scheduler.stream(scope)
+				.collect(Collectors.toMap(ScheduleInfo::getScheduleName, Function.identity(),
+						(first, second) -> first));
+		for (ScheduleInfo scheduleInfo : current.values()) {
+			ScheduleRequest scheduleRequest = desiredByName.get(scheduleInfo.getScheduleName());
+			if (scheduleRequest == null) {
+				toDelete.add(scheduleInfo.getScheduleName());
+			}
+			else {
+				String contentHash = desiredHashes.get(scheduleInfo.getScheduleName());
+				if (!hasSameContent(scheduleRequest, contentHash, scheduleInfo)) {
+					toUpdate.add(scheduleRequest);
+					contentHashes.put(scheduleRequest.getScheduleName(), contentHash);
+				}
+			}
+		}
+		for (ScheduleRequest scheduleRequest : desired) {
+			if (!current.containsKey(scheduleRequest.getScheduleName())) {
+				toCreate.add(scheduleRequest);
+				contentHashes.put(scheduleRequest.getScheduleName(),
+						desiredHashes.get(scheduleRequest.getScheduleName()));
+			}
+		}
+		int unchanged = current.size() - toDelete.size() - toUpdate.size();
+		return new Plan(toCreate, toUpdate, toDelete, unchanged, contentHashes);
+	}
+
+	/**
+	 * Computes and applies the changes required to reconcile all schedules with the
+	 * desired state.
+	 *
+	 * @param desired the schedules that should exist.
+	 * @return the plan that was applied and its outcome.
+	 */
+	public Result reconcile(Collection<ScheduleRequest> desired) {
+		return apply(plan(desired));
+	}
+
+	/**
+	 * Computes and applies the changes required to reconcile the schedules within the
+	 * scope with the desired state.
+	 *
+	 * @param desired the schedules that should exist, all of which must be within the scope.
+	 * @param scope the schedules that are subject to the reconciliation.
+	 * @return the plan that was applied and its outcome.
+	 */
+	public Result reconcile(Collection<ScheduleRequest> desired, ScheduleFilter scope) {
+		return apply(plan(desired, scope));
+	}
+
+	/**
+	 * Applies a previously computed plan.  The plan is not recomputed, changes made to
+	 * the scheduler since it was computed may therefore cause individual operations to
+	 * fail.  The content hashes of the schedules that were created or updated
+	 * successfully are remembered for later plans.
+	 *
+	 * @param plan the plan to be applied.
+	 * @return the outcome of the plan.
+	 */
+	public Result apply(Plan plan) {
+		Assert.notNull(plan, "plan must not be null");
+		ScheduleBatchResult deleted = run(plan.getToDelete(), this.scheduler::unscheduleAll,
+				Function.identity());
+		ScheduleBatchResult updated = run(plan.getToUpdate(), this::update,
+				ScheduleRequest::getScheduleName);
+		ScheduleBatchResult created = run(plan.getToCreate(), this.scheduler::scheduleAll,
+				ScheduleRequest::getScheduleName);
+		for (String scheduleName : deleted.getSucceeded()) {
+			this.appliedHashes.remove(scheduleName);
+		}
+		for (String scheduleName : updated.getSucceeded()) {
+			this.appliedHashes.put(scheduleName, plan.contentHashes.get(scheduleName));
+		}
+		for (String scheduleName : created.getSucceeded()) {
+			this.appliedHashes.put(scheduleName, plan.contentHashes.get(scheduleName));
+		}
+		return new Result(plan, created, updated, deleted);
+	}
+
+	private ScheduleBatchResult update(List<ScheduleRequest> scheduleRequests) {
+		ScheduleBatchResult result = new ScheduleBatchResult();
+		for (ScheduleRequest scheduleRequest : scheduleRequests) {
+			try {
+				this.scheduler.reschedule(scheduleRequest);
+				result.addSuccess(scheduleRequest.getScheduleName());
+			}
+			catch (SchedulerException e) {
+				result.addFailure(scheduleRequest.getScheduleName(), e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Splits the items into at most {@code parallelism} chunks and runs the batch
+	 * operation for each of them concurrently.
+	 */
+	private <T> ScheduleBatchResult run(List<T> items, Function<List<T>, ScheduleBatchResult> operation,
+			Function<T, String> scheduleName) {
+		ScheduleBatchResult result = new ScheduleBatchResult();
+		if (items.isEmpty()) {
+			return result;
+		}
+		int chunkSize = (items.size() + this.parallelism - 1) / this.parallelism;
+		List<List<T>> chunks = new ArrayList<>();
+		List<CompletableFuture<ScheduleBatchResult>> futures = new ArrayList<>();
+		for (int i = 0; i < items.size(); i += chunkSize) {
+			List<T> chunk = items.subList(i, Math.min(items.size(), i + chunkSize));
+			chunks.add(chunk);
+			futures.add(CompletableFuture.supplyAsync(() -> operation.apply(chunk), this.executor));
+		}
+		for (int i = 0; i < chunks.size(); i++) {
+			ScheduleBatchResult chunkResult;
+			try {
+				chunkResult = futures.get(i).join();
+			}
+			catch (RuntimeException e) {
+				Throwable cause = e.getCause() != null ? e.getCause() : e;
+				chunkResult = new ScheduleBatchResult();
+				for (T item : chunks.get(i)) {
+					String name = scheduleName.apply(item);
+					chunkResult.addFailure(name, cause instanceof SchedulerException
+							? (SchedulerException) cause
+							: new SchedulerException("Failed to reconcile schedule " + name, cause));
+				}
+			}
+			result.addAll(chunkResult);
+		}
+		return result;
+	}
+
+	private boolean hasSameContent(ScheduleRequest scheduleRequest, String contentHash,
+			ScheduleInfo scheduleInfo) {
+		if (!Objects.equals(scheduleRequest.getDefinition().getName(), scheduleInfo.getTaskDefinitionName())
+				|| !nullToEmpty(scheduleRequest.getSchedulerProperties())
+						.equals(nullToEmpty(scheduleInfo.getScheduleProperties()))) {
+			return false;
+		}
+		// the rest of the request is only known for schedules applied by this reconciler
+		String appliedHash = this.appliedHashes.get(scheduleInfo.getScheduleName());
+		return appliedHash == null || appliedHash.equals(contentHash);
+	}
+
+	/**
+	 * Computes a hash of the complete request, independent of the order of its
+	 * properties.
+	 */
+	private static String contentHash(ScheduleRequest scheduleRequest) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			writeString(output, scheduleRequest.getDefinition().getName());
+			writeProperties(output, scheduleRequest.getDefinition().getProperties());
+			writeProperties(output, scheduleRequest.getSchedulerProperties());
+			writeProperties(output, scheduleRequest.getDeploymentProperties());
+			List<String> commandlineArguments = scheduleRequest.getCommandlineArguments() != null
+					? scheduleRequest.getCommandlineArguments()
+					: Collections.emptyList();
+			output.writeInt(commandlineArguments.size());
+			for (String commandlineArgument : commandlineArguments) {
+				writeString(output, commandlineArgument);
+			}
+			writeString(output, resourceUri(scheduleRequest.getResource()));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return DigestUtils.md5DigestAsHex(bytes.toByteArray());
+	}
+
+	private static void writeProperties(DataOutputStream output, Map<String, String> properties)
+			throws IOException {
+		Map<String, String> sorted = new TreeMap<>(nullToEmpty(properties));
+		output.writeInt(sorted.size());
+		for (Map.Entry<String, String> entry : sorted.entrySet()) {
+			writeString(output, entry.getKey());
+			writeString(output, entry.getValue());
+		}
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		if (value == null) {
+			output.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String resourceUri(Resource resource) {
+		if (resource == null) {
+			return null;
+		}
+		try {
+			return resource.getURI().toString();
+		}
+		catch (IOException e) {
+			return resource.getDescription();
+		}
+	}
+
+	private static Map<String, String> nullToEmpty(Map<String, String> properties) {
+		return properties != null ? properties : Collections.emptyMap();
+	}
+
+	private static ScheduleInfo toScheduleInfo(ScheduleRequest scheduleRequest) {
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(scheduleRequest.getScheduleName());
+		scheduleInfo.setTaskDefinitionName(scheduleRequest.getDefinition().getName());
+		scheduleInfo.setScheduleProperties(scheduleRequest.getSchedulerProperties());
+		return scheduleInfo;
+	}
+
+	/**
+	 * The changes required to reconcile a scheduler with a desired state.
+	 */
+	public static class Plan {
+
+		private final List<ScheduleRequest> toCreate;
+
+		private final List<ScheduleRequest> toUpdate;
+
+		private final List<String> toDelete;
+
+		private final int unchanged;
+
+		private final Map<String, String> contentHashes;
+
+		private Plan(List<ScheduleRequest> toCreate, List<ScheduleRequest> toUpdate,
+				List<String> toDelete, int unchanged, Map<String, String> contentHashes) {
+			this.toCreate = Collections.unmodifiableList(toCreate);
+			this.toUpdate = Collections.unmodifiableList(toUpdate);
+			this.toDelete = Collections.unmodifiableList(toDelete);
+			this.unchanged = unchanged;
+			this.contentHashes = contentHashes;
+		}
+
+		public List<ScheduleRequest> getToCreate() {
+			return toCreate;
+		}
+
+		public List<ScheduleRequest> getToUpdate() {
+			return toUpdate;
+		}
+
+		public List<String> getToDelete() {
+			return toDelete;
+		}
+
+		/**
+		 * @return the number of existing schedules that already match the desired state.
+		 */
+		public int getUnchanged() {
+			return unchanged;
+		}
+
+		/**
+		 * @return {@code true} if the scheduler already matches the desired state.
+		 */
+		public boolean isEmpty() {
+			return toCreate.isEmpty() && toUpdate.isEmpty() && toDelete.isEmpty();
+		}
+
+		@Override
+		public String toString() {
+			return "Plan{" +
+					"create=" + toCreate.size() +
+					", update=" + toUpdate.size() +
+					", delete=" + toDelete.size() +
+					", unchanged=" + unchanged +
+					'}';
+		}
+	}
+
+	/**
+	 * The outcome of applying a {@link Plan}.
+	 */
+	public static class Result {
+
+		private final Plan plan;
+
+		private final ScheduleBatchResult created;
+
+		private final ScheduleBatchResult updated;
+
+		private final ScheduleBatchResult deleted;
+
+		private Result(Plan plan, ScheduleBatchResult created, ScheduleBatchResult updated,
+				ScheduleBatchResult deleted) {
+			this.plan = plan;
+			this.created = created;
+			this.updated = updated;
+			this.deleted = deleted;
+		}
+
+		public Plan getPlan() {
+			return plan;
+		}
+
+		public ScheduleBatchResult getCreated() {
+			return created;
+		}
+
+		public ScheduleBatchResult getUpdated() {
+			return updated;
+		}
+
+		public ScheduleBatchResult getDeleted() {
+			return deleted;
+		}
+
+		public boolean hasFailures() {
+			return created.hasFailures() || updated.hasFailures() || deleted.hasFailures();
+		}
+
+		@Override
+		public String toString() {
+			return "Result{" +
+					"plan=" + plan +
+					", created=" + created +
+					", updated=" + updated +
+					", deleted=" + deleted +
+					'}';
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.util.Assert;
+
+/**
+ * A thread-safe in-memory registry of schedules, indexed by schedule name and by task
+ * definition name, for use by {@link org.springframework.cloud.scheduler.spi.core.Scheduler}
+ * implementations that keep track of their schedules.
+ *
+ * Lookups by schedule name and by task definition name are constant time and do not
+ * lock, so {@code list(taskDefinitionName)} can be answered without scanning every
+ * schedule.  Registration detects duplicate schedule names atomically.  Both indexes
+ * are updated while holding the lock of the schedule name in the primary index, so
+ * concurrent modifications of the same schedule can not leave the indexes
+ * inconsistent with each other.
+ *
+ * The collections returned by {@link #getAll()} and {@link #getByTaskDefinition(String)}
+ * are unmodifiable, weakly consistent views that reflect subsequent changes.
+ *
+ * @param <S> the type of the registered schedules.
+ *
+ * @author agent
+ */
+public class ScheduleRegistry<S> {
+
+	private final Function<? super S, String> taskDefinitionNameFunction;
+
+	private final ConcurrentMap<String, S> schedulesByName = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Map<String, S>> schedulesByTaskDefinition = new ConcurrentHashMap<>();
+
+	/**
+	 * @param taskDefinitionNameFunction returns the name of the task definition of a
+	 * schedule.
+	 */
+	public ScheduleRegistry(Function<? super S, String> taskDefinitionNameFunction) {
+		Assert.notNull(taskDefinitionNameFunction, "taskDefinitionNameFunction must not be null");
+		this.taskDefinitionNameFunction = taskDefinitionNameFunction;
+	}
+
+	/**
+	 * @return a registry of {@link ScheduleRequest}s indexed by the name of their
+	 * {@link org.springframework.cloud.deployer.spi.core.AppDefinition}.
+	 */
+	public static ScheduleRegistry<ScheduleRequest> forScheduleRequests() {
+		return new ScheduleRegistry<>(scheduleRequest -> scheduleRequest.getDefinition().getName());
+	}
+
+	/**
+	 * Registers a schedule unless a schedule with the same name is already registered.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @param schedule the schedule to be registered.
+	 * @return the schedule that is already registered with the name, or {@code null} if
+	 * the schedule was registered.
+	 */
+	public S putIfAbsent(String scheduleName, S schedule) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		Assert.notNull(schedule, "schedule must not be null");
+		Object[] existing = new Object[1];
+		this.schedulesByName.compute(scheduleName, (name, current) -> {
+			if (current != null) {
+				existing[0] = current;
+				return current;
+			}
+			index(name, schedule);
+			return schedule;
+		});
+		@SuppressWarnings("unchecked")
+		S result = (S) existing[0];
+		return result;
+	}
+
+	/**
+	 * Replaces a registered schedule, re-indexing it if its task definition changed.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @param oldSchedule the schedule expected to be registered with the name.
+	 * @param newSchedule the schedule that replaces it.
+	 * @return {@code true} if the schedule was replaced, {@code false} if the name was
+	 * not registered with the expected schedule.
+	 */
+	public boolean replace(String scheduleName, S oldSchedule, S newSchedule) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		Assert.notNull(oldSchedule, "oldSchedule must not be null");
+		Assert.notNull(newSchedule, "newSchedule must not be null");
+		boolean[] replaced = new boolean[1];
+		this.schedulesByName.computeIfPresent(scheduleName, (name, current) -> {
+			if (current != oldSchedule) {
+				return current;
+			}
+			unindex(name, current);
+			index(name, newSchedule);
+			replaced[0] = true;
+			return newSchedule;
+		});
+		return replaced[0];
+	}
+
+	/**
+	 * Removes a schedule.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @return the schedule that was removed, or {@code null} if there was none.
+	 */
+	public S remove(String scheduleName) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		Object[] removed = new Object[1];
+		this.schedulesByName.computeIfPresent(scheduleName, (name, current) -> {
+			unindex(name, current);
+			removed[0] = current;
+			return null;
+		});
+		@SuppressWarnings("unchecked")
+		S result = (S) removed[0];
+		return result;
+	}
+
+	/**
+	 * Removes a schedule if it is still registered with the specified name.
+	 *
+	 * @param scheduleName the name of the schedule.
+	 * @param schedule the schedule expected to be registered with the name.
+	 * @return {@code true} if the schedule was removed.
+	 */
+	public boolean remove(String scheduleName, S schedule) {
+		Assert.notNull(scheduleName, "scheduleName must not be null");
+		boolean[] removed = new boolean[1];
+		this.schedulesByName.computeIfPresent(scheduleName, (name, current) -> {
+			if (current != schedule) {
+				return current;
+			}
+			unindex(name, current);
+			removed[0] = true;
+			return null;
+		});
+		return removed[0];
+	}
+
+	/**
+	 * @param scheduleName the name of the schedule.
+	 * @return the schedule registered with the name, or {@code null} if there is none.
+	 */
+	public S get(String scheduleName) {
+		return this.schedulesByName.get(scheduleName);
+	}
+
+	public boolean contains(String scheduleName) {
+		return this.schedulesByName.containsKey(scheduleName);
+	}
+
+	/**
+	 * @return all registered schedules.
+	 */
+	public Collection<S> getAll() {
+		return Collections.unmodifiableCollection(this.schedulesByName.values());
+	}
+
+	/**
+	 * @param taskDefinitionName the name of the task definition.
+	 * @return the registered schedules of the task definition.
+	 */
+	public Collection<S> getByTaskDefinition(String taskDefinitionName) {
+		// the index entry of a task definition is discarded once it has no schedules and
+		// recreated when it gets one again, so the view resolves it on each access
+		return new AbstractCollection<S>() {
+
+			@Override
+			public Iterator<S> iterator() {
+				Map<String, S> schedules = ScheduleRegistry.this.schedulesByTaskDefinition.get(taskDefinitionName);
+				return schedules == null
+						? Collections.<S>emptyIterator()
+						: Collections.unmodifiableCollection(schedules.values()).iterator();
+			}
+
+			@Override
+			public int size() {
+				Map<String, S> schedules = ScheduleRegistry.this.schedulesByTaskDefinition.get(taskDefinitionName);
+				return schedules == null ? 0 : schedules.size();
+			}
+		};
+	}
+
+	public int size() {
+		return this.schedulesByName.size();
+	}
+
+	/**
+	 * Adds a schedule to the task definition index, called while holding the lock of its
+	 * name in the primary index.
+	 */
+	private void index(String scheduleName, S schedule) {
+		String taskDefinitionName = this.taskDefinitionNameFunction.apply(schedule);
+		Assert.notNull(taskDefinitionName, "taskDefinitionName must not be null");
+		this.schedulesByTaskDefinition.compute(taskDefinitionName, (key, schedules) -> {
+			Map<String, S> result = schedules != null ? schedules : new ConcurrentHashMap<>();
+			result.put(scheduleName, schedule);
+			return result;
+		});
+	}
+
+	/**
+	 * Removes a schedule from the task definition index, discarding the entry of the
+	 * task definition once it has no schedules.
+	 */
+	private void unindex(String scheduleName, S schedule) {
+		String taskDefinitionName = this.taskDefinitionNameFunction.apply(schedule);
+		this.schedulesByTaskDefinition.computeIfPresent(taskDefinitionName, (key, schedules) -> {
+			schedules.remove(scheduleName, schedule);
+			return schedules.isEmpty() ? null : schedules;
+		});
+	}
+}
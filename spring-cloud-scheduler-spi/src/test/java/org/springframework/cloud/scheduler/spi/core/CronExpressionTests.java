@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.core.io.FileSystemResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CronExpression}.
+ *
+ * @author agent
+ */
+public class CronExpressionTests {
+
+	private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+	@Test
+	public void testSingleValuesRangesAndSteps() {
+		assertNext("*/15 * * * *", "2019-01-01T00:07:00Z", "2019-01-01T00:15:00Z");
+		assertNext("*/15 * * * *", "2019-01-01T00:45:00Z", "2019-01-01T01:00:00Z");
+		assertNext("0 9-17/4 * * *", "2019-01-01T10:00:00Z", "2019-01-01T13:00:00Z");
+		assertNext("0 9-17/4 * * *", "2019-01-01T17:00:00Z", "2019-01-02T09:00:00Z");
+		assertNext("5,10,50 * * * *", "2019-01-01T00:10:00Z", "2019-01-01T00:50:00Z");
+		assertNext("30/10 * * * *", "2019-01-01T00:55:00Z", "2019-01-01T01:30:00Z");
+		assertNext("0 0 1 * *", "2019-01-31T23:59:59Z", "2019-02-01T00:00:00Z");
+		assertNext("59 23 31 12 *", "2019-06-01T00:00:00Z", "2019-12-31T23:59:00Z");
+	}
+
+	@Test
+	public void testSecondsField() {
+		assertNext("*/10 * * * * *", "2019-01-01T00:00:05Z", "2019-01-01T00:00:10Z");
+		assertNext("30 0 12 * * *", "2019-01-01T12:00:30Z", "2019-01-02T12:00:30Z");
+	}
+
+	@Test
+	public void testMonthAndDayOfWeekNames() {
+		// 2019-01-31 is a Thursday, February is skipped and 2019-03-01 is a Friday
+		assertNext("0 0 * JAN,MAR MON-FRI", "2019-01-31T12:00:00Z", "2019-03-01T00:00:00Z");
+		assertNext("0 0 * * sat", "2019-01-01T00:00:00Z", "2019-01-05T00:00:00Z");
+	}
+
+	@Test
+	public void testSundayIsZeroOrSeven() {
+		assertNext("0 0 * * 0", "2019-01-01T00:00:00Z", "2019-01-06T00:00:00Z");
+		assertNext("0 0 * * 7", "2019-01-01T00:00:00Z", "2019-01-06T00:00:00Z");
+		assertNext("0 0 * * 5-7", "2019-01-05T12:00:00Z", "2019-01-06T00:00:00Z");
+	}
+
+	@Test
+	public void testRestrictedDayOfMonthOrDayOfWeek() {
+		// the 13th, or any Friday
+		assertNext("0 0 13 * 5", "2019-01-01T00:00:00Z", "2019-01-04T00:00:00Z");
+		assertNext("0 0 13 * 5", "2019-01-12T00:00:00Z", "2019-01-13T00:00:00Z");
+		// an unrestricted day-of-week does not widen the day-of-month
+		assertNext("0 0 13 * *", "2019-01-01T00:00:00Z", "2019-01-13T00:00:00Z");
+		assertNext("0 0 ? * MON", "2019-01-01T00:00:00Z", "2019-01-07T00:00:00Z");
+		assertNext("0 0 13 * ?", "2019-01-01T00:00:00Z", "2019-01-13T00:00:00Z");
+	}
+
+	@Test
+	public void testLeapDays() {
+		assertNext("0 0 29 2 *", "2019-01-01T00:00:00Z", "2020-02-29T00:00:00Z");
+		// 2100 is not a leap year
+		assertNext("0 0 29 2 *", "2096-03-01T00:00:00Z", "2104-02-29T00:00:00Z");
+		assertThat(CronExpression.compile("0 0 30 2 *").nextFireTime(millis("2019-01-01T00:00:00Z"))).isEqualTo(-1);
+		assertThat(CronExpression.compile("0 0 31 4 *").previousFireTime(millis("2019-01-01T00:00:00Z"))).isEqualTo(-1);
+	}
+
+	@Test
+	public void testMacros() {
+		assertNext("@hourly", "2019-01-01T00:30:00Z", "2019-01-01T01:00:00Z");
+		assertNext("@daily", "2019-01-01T00:30:00Z", "2019-01-02T00:00:00Z");
+		assertNext("@midnight", "2019-01-01T00:30:00Z", "2019-01-02T00:00:00Z");
+		assertNext("@weekly", "2019-01-01T00:30:00Z", "2019-01-06T00:00:00Z");
+		assertNext("@monthly", "2019-01-01T00:30:00Z", "2019-02-01T00:00:00Z");
+		assertNext("@yearly", "2019-01-01T00:30:00Z", "2020-01-01T00:00:00Z");
+		assertNext("@ANNUALLY", "2019-01-01T00:30:00Z", "2020-01-01T00:00:00Z");
+	}
+
+	@Test
+	public void testPreviousFireTime() {
+		assertPrevious("0 12 * * *", "2019-01-02T11:00:00Z", "2019-01-01T12:00:00Z");
+		assertPrevious("0 12 * * *", "2019-01-02T12:00:00Z", "2019-01-01T12:00:00Z");
+		assertPrevious("0 12 * * *", "2019-01-02T12:00:00.001Z", "2019-01-02T12:00:00Z");
+		assertPrevious("0 0 1 * *", "2019-03-01T00:00:00Z", "2019-02-01T00:00:00Z");
+		assertPrevious("0 0 29 2 *", "2104-01-01T00:00:00Z", "2096-02-29T00:00:00Z");
+	}
+
+	@Test
+	public void testFixedOffsetZone() {
+		CronExpression expression = CronExpression.compile("0 9 * * *");
+		assertThat(Instant.ofEpochMilli(expression.nextFireTime(millis("2019-01-01T00:00:00Z"), ZoneId.of("+05:30"))))
+				.isEqualTo(Instant.parse("2019-01-01T03:30:00Z"));
+		assertThat(Instant.ofEpochMilli(expression.previousFireTime(millis("2019-01-01T00:00:00Z"), ZoneId.of("-08:00"))))
+				.isEqualTo(Instant.parse("2018-12-31T17:00:00Z"));
+	}
+
+	@Test
+	public void testDaylightSavingTimeGap() {
+		// on 2019-03-10 the clocks in New York go from 02:00 EST to 03:00 EDT
+		CronExpression expression = CronExpression.compile("30 2 * * *");
+		assertThat(expression.next(zoned("2019-03-10T00:00", NEW_YORK)))
+				.isEqualTo(ZonedDateTime.parse("2019-03-10T03:30-04:00[America/New_York]"));
+		assertThat(expression.next(zoned("2019-03-10T03:30", NEW_YORK)))
+				.isEqualTo(ZonedDateTime.parse("2019-03-11T02:30-04:00[America/New_York]"));
+		assertThat(Instant.ofEpochMilli(CronExpression.compile("0 * * * *")
+				.nextFireTime(millis("2019-03-10T06:30:00Z"), NEW_YORK)))
+				.isEqualTo(Instant.parse("2019-03-10T07:00:00Z"));
+		assertThat(Instant.ofEpochMilli(CronExpression.compile("0 * * * *")
+				.previousFireTime(millis("2019-03-10T07:30:00Z"), NEW_YORK)))
+				.isEqualTo(Instant.parse("2019-03-10T07:00:00Z"));
+	}
+
+	@Test
+	public void testDaylightSavingTimeOverlap() {
+		// on 2019-11-03 the clocks in New York go back from 02:00 EDT to 01:00 EST, so
+		// 01:30 occurs at both offsets but only fires at the first
+		CronExpression expression = CronExpression.compile("30 1 * * *");
+		long first = expression.nextFireTime(millis("2019-11-03T04:00:00Z"), NEW_YORK);
+		long second = expression.nextFireTime(first, NEW_YORK);
+		assertThat(Instant.ofEpochMilli(first)).isEqualTo(Instant.parse("2019-11-03T05:30:00Z"));
+		assertThat(Instant.ofEpochMilli(second)).isEqualTo(Instant.parse("2019-11-04T06:30:00Z"));
+		assertThat(expression.nextFireTime(millis("2019-11-03T06:15:00Z"), NEW_YORK)).isEqualTo(second);
+
+		assertThat(expression.previousFireTime(second, NEW_YORK)).isEqualTo(first);
+		assertThat(expression.previousFireTime(millis("2019-11-03T06:15:00Z"), NEW_YORK)).isEqualTo(first);
+		assertThat(Instant.ofEpochMilli(expression.previousFireTime(first, NEW_YORK)))
+				.isEqualTo(Instant.parse("2019-11-02T05:30:00Z"));
+
+		// every hour, the repeated hour is not fired again
+		CronExpression hourly = CronExpression.compile("0 * * * *");
+		assertThat(Instant.ofEpochMilli(hourly.nextFireTime(millis("2019-11-03T05:00:00Z"), NEW_YORK)))
+				.isEqualTo(Instant.parse("2019-11-03T07:00:00Z"));
+		assertThat(Instant.ofEpochMilli(hourly.previousFireTime(millis("2019-11-03T07:00:00Z"), NEW_YORK)))
+				.isEqualTo(Instant.parse("2019-11-03T05:00:00Z"));
+	}
+
+	@Test
+	public void testInvalidExpressions() {
+		assertInvalid("BAD", "invalid cron expression 'BAD': expected 5 or 6 fields but found 1");
+		assertInvalid("* * * *", "expected 5 or 6 fields but found 4");
+		assertInvalid("60 * * * *", "value 60 is out of range 0-59 in minute field '60'");
+		assertInvalid("0 24 * * *", "value 24 is out of range 0-23 in hour field '24'");
+		assertInvalid("0 0 0 * *", "value 0 is out of range 1-31 in day-of-month field '0'");
+		assertInvalid("5-1 * * * *", "range 5-1 is reversed in minute field '5-1'");
+		assertInvalid("*/0 * * * *", "step must be greater than zero in minute field '*/0'");
+		assertInvalid("0 0 * FOO *", "'FOO' is not a valid value in month field 'FOO'");
+		assertInvalid("1,,2 * * * *", "empty list element in minute field '1,,2'");
+		assertInvalid("? * * * *", "'?' is not a valid value in minute field '?'");
+		assertThat(CronExpression.isValid("0 0 * * *")).isTrue();
+	}
+
+	@Test
+	public void testInvalidExpressionOfScheduleRequest() {
+		ScheduleRequest request = new ScheduleRequest(new AppDefinition("task", null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "BAD"),
+				null, "schedule", new FileSystemResource("timestamp-task.jar"));
+		assertThatThrownBy(() -> CronExpression.compile(request))
+				.isInstanceOf(CreateScheduleException.class)
+				.hasMessageContaining("schedule")
+				.hasMessageContaining("invalid cron expression 'BAD'");
+		ScheduleRequest missing = new ScheduleRequest(new AppDefinition("task", null),
+				Collections.emptyMap(), null, "schedule", new FileSystemResource("timestamp-task.jar"));
+		assertThatThrownBy(() -> CronExpression.compile(missing))
+				.isInstanceOf(CreateScheduleException.class)
+				.hasMessageContaining(SchedulerPropertyKeys.CRON_EXPRESSION);
+	}
+
+	@Test
+	public void testCompiledExpressionsAreShared() {
+		assertThat(CronExpression.compile("0 0 * * *")).isSameAs(CronExpression.compile("0 0 * * *"));
+		assertThat(CronExpression.compile("0 0 * * *")).isEqualTo(CronExpression.compile("0 0 ? * ?"));
+	}
+
+	private static void assertNext(String expression, String from, String expected) {
+		long next = CronExpression.compile(expression).nextFireTime(millis(from));
+		assertThat(Instant.ofEpochMilli(next)).as("%s after %s", expression, from).isEqualTo(Instant.parse(expected));
+	}
+
+	private static void assertPrevious(String expression, String from, String expected) {
+		long previous = CronExpression.compile(expression).previousFireTime(millis(from));
+		assertThat(Instant.ofEpochMilli(previous)).as("%s before %s", expression, from)
+				.isEqualTo(Instant.parse(expected));
+	}
+
+	private static void assertInvalid(String expression, String message) {
+		assertThat(CronExpression.isValid(expression)).isFalse();
+		assertThatThrownBy(() -> CronExpression.compile(expression))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining(message);
+	}
+
+	private static long millis(String instant) {
+		return Instant.parse(instant).toEpochMilli();
+	}
+
+	private static ZonedDateTime zoned(String localDateTime, ZoneId zone) {
+		return LocalDateTime.parse(localDateTime).atZone(zone);
+	}
+}
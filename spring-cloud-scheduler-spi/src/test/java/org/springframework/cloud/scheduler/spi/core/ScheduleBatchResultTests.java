@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.core.io.FileSystemResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ScheduleBatchResult} and the default batch operations of
+ * {@link Scheduler}.
+ *
+ * @author agent
+ */
+public class ScheduleBatchResultTests {
+
+	@Test
+	public void testOutcomesAreRecordedOncePerSchedule() {
+		ScheduleBatchResult result = new ScheduleBatchResult();
+		result.addSuccess("schedule-1");
+		result.addFailure("schedule-2", new UnScheduleException("schedule-2"));
+		assertThat(result.hasFailures()).isTrue();
+		assertThatThrownBy(() -> result.addSuccess("schedule-2")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> result.addFailure("schedule-1", new UnScheduleException("schedule-1")))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		ScheduleBatchResult other = new ScheduleBatchResult();
+		other.addSuccess("schedule-3");
+		result.addAll(other);
+		assertThat(result.getSucceeded()).containsExactly("schedule-1", "schedule-3");
+		assertThatThrownBy(() -> result.addAll(other)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testBatchWithDuplicateNamesIsRejectedUpFront() {
+		List<String> calls = new ArrayList<>();
+		Scheduler scheduler = new Scheduler() {
+
+			@Override
+			public void schedule(ScheduleRequest scheduleRequest) {
+				calls.add(scheduleRequest.getScheduleName());
+			}
+
+			@Override
+			public void unschedule(String scheduleName) {
+				calls.add(scheduleName);
+			}
+
+			@Override
+			public List<ScheduleInfo> list(String taskDefinitionName) {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public List<ScheduleInfo> list() {
+				return Collections.emptyList();
+			}
+		};
+		assertThatThrownBy(() -> scheduler.scheduleAll(Arrays.asList(request("schedule-1"), request("schedule-2"),
+				request("schedule-1")))).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("schedule-1");
+		assertThatThrownBy(() -> scheduler.unscheduleAll(Arrays.asList("schedule-1", "schedule-1")))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(calls).isEmpty();
+
+		assertThat(scheduler.scheduleAll(Arrays.asList(request("schedule-1"), request("schedule-2")))
+				.getSucceeded()).containsExactly("schedule-1", "schedule-2");
+	}
+
+	private static ScheduleRequest request(String scheduleName) {
+		return new ScheduleRequest(new AppDefinition("task", null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+				null, scheduleName, new FileSystemResource("timestamp-task.jar"));
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.core.io.FileSystemResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ScheduleSpread}.
+ *
+ * @author agent
+ */
+public class ScheduleSpreadTests {
+
+	@Test
+	public void testWindowFormats() {
+		assertThat(offsetWithin("0")).isZero();
+		assertThat(offsetWithin("90")).isBetween(0L, 89000L);
+		assertThat(offsetWithin("90s")).isEqualTo(offsetWithin("90"));
+		assertThat(offsetWithin("15m")).isEqualTo(ScheduleSpread.offsetMillis("schedule", 900000));
+		assertThat(offsetWithin(" 1H ")).isEqualTo(ScheduleSpread.offsetMillis("schedule", 3600000));
+		assertThat(ScheduleSpread.offsetMillis(scheduleRequest(Collections.emptyMap()))).isZero();
+	}
+
+	@Test
+	public void testInvalidWindows() {
+		for (String window : new String[] { "abc", "-5", "10d", "m", "1.5h" }) {
+			assertThatThrownBy(() -> offsetWithin(window))
+					.isInstanceOf(CreateScheduleException.class)
+					.hasMessageContaining(SchedulerPropertyKeys.CRON_SPREAD_WINDOW)
+					.hasMessageContaining("'" + window + "'");
+		}
+	}
+
+	@Test
+	public void testOffsetsAreWholeSecondsWithinTheWindow() {
+		int[] buckets = new int[60];
+		for (int i = 0; i < 6000; i++) {
+			long offset = ScheduleSpread.offsetMillis("schedule-" + i, 60000);
+			assertThat(offset).isBetween(0L, 59000L);
+			assertThat(offset % 1000).isZero();
+			buckets[(int) (offset / 1000)]++;
+		}
+		// names that only differ in a suffix are spread over the whole window
+		for (int bucket : buckets) {
+			assertThat(bucket).isBetween(50, 150);
+		}
+		assertThat(ScheduleSpread.offsetMillis("schedule", 999)).isZero();
+		assertThat(ScheduleSpread.offsetMillis("schedule", 0)).isZero();
+		assertThat(ScheduleSpread.offsetMillis("schedule", 1999)).isZero();
+	}
+
+	@Test
+	public void testOffsetIsStable() {
+		// the offsets must not change between releases or nodes, or every schedule would
+		// move within its window after an upgrade
+		assertThat(ScheduleSpread.offsetMillis("nightly-report", 3600000)).isEqualTo(3154000);
+		assertThat(ScheduleSpread.offsetMillis("hourly-sync", 3600000)).isEqualTo(2678000);
+		assertThat(ScheduleSpread.offsetMillis(new String("nightly-report"), 3600000)).isEqualTo(3154000);
+	}
+
+	private static long offsetWithin(String window) {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(SchedulerPropertyKeys.CRON_EXPRESSION, "0 * * * *");
+		properties.put(SchedulerPropertyKeys.CRON_SPREAD_WINDOW, window);
+		return ScheduleSpread.offsetMillis(scheduleRequest(properties));
+	}
+
+	private static ScheduleRequest scheduleRequest(Map<String, String> properties) {
+		return new ScheduleRequest(new AppDefinition("task", null), properties, null, "schedule",
+				new FileSystemResource("timestamp-task.jar"));
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.AsyncScheduler;
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.scheduler.spi.support.InMemoryScheduler.scheduleRequest;
+
+/**
+ * Tests for {@link AsyncSchedulerAdapter}.
+ *
+ * @author agent
+ */
+public class AsyncSchedulerAdapterTests {
+
+	private final InMemoryScheduler delegate = new InMemoryScheduler();
+
+	private final AsyncSchedulerAdapter adapter = new AsyncSchedulerAdapter(this.delegate, 1, 1);
+
+	@After
+	public void tearDown() {
+		this.adapter.close();
+	}
+
+	@Test
+	public void testOperationsAreDelegated() {
+		this.adapter.schedule(scheduleRequest("schedule", "task")).join();
+		assertThat(this.adapter.list().join()).hasSize(1);
+		assertThat(this.adapter.list("task").join()).hasSize(1);
+		assertThat(this.adapter.list("other").join()).isEmpty();
+		this.adapter.unschedule("schedule").join();
+		assertThat(this.delegate.schedules).isEmpty();
+	}
+
+	@Test
+	public void testFutureIsCompletedWithTheSchedulerException() {
+		this.adapter.schedule(scheduleRequest("schedule", "task")).join();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		this.adapter.schedule(scheduleRequest("schedule", "task"))
+				.whenComplete((ignored, throwable) -> failure.set(throwable))
+				.exceptionally(throwable -> null)
+				.join();
+		assertThat(failure.get()).isInstanceOf(CreateScheduleException.class);
+		assertThatThrownBy(() -> this.adapter.unschedule("missing").join())
+				.isInstanceOf(CompletionException.class)
+				.hasCauseInstanceOf(UnScheduleException.class);
+	}
+
+	@Test
+	public void testDefaultRescheduleIsCompletedWithTheSchedulerException() {
+		AsyncScheduler asyncScheduler = new AsyncScheduler() {
+
+			@Override
+			public CompletableFuture<Void> schedule(ScheduleRequest scheduleRequest) {
+				return AsyncSchedulerAdapterTests.this.adapter.schedule(scheduleRequest);
+			}
+
+			@Override
+			public CompletableFuture<Void> unschedule(String scheduleName) {
+				return AsyncSchedulerAdapterTests.this.adapter.unschedule(scheduleName);
+			}
+
+			@Override
+			public CompletableFuture<List<ScheduleInfo>> list(String taskDefinitionName) {
+				return AsyncSchedulerAdapterTests.this.adapter.list(taskDefinitionName);
+			}
+
+			@Override
+			public CompletableFuture<List<ScheduleInfo>> list() {
+				return AsyncSchedulerAdapterTests.this.adapter.list();
+			}
+		};
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		asyncScheduler.reschedule(scheduleRequest("missing", "task"))
+				.whenComplete((ignored, throwable) -> failure.set(throwable))
+				.exceptionally(throwable -> null)
+				.join();
+		assertThat(failure.get()).isInstanceOf(UnScheduleException.class);
+	}
+
+	@Test
+	public void testOperationsAreRejectedWhenTheQueueIsFull() throws Exception {
+		CountDownLatch listing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		this.delegate.listHook = () -> {
+			listing.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		CompletableFuture<?> running = this.adapter.list();
+		assertThat(listing.await(10, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<?> queued = this.adapter.list();
+		CompletableFuture<Void> rejected = this.adapter.schedule(scheduleRequest("schedule", "task"));
+
+		assertThat(rejected).isCompletedExceptionally();
+		assertThatThrownBy(rejected::join).hasCauseExactlyInstanceOf(SchedulerException.class);
+		release.countDown();
+		running.join();
+		queued.join();
+		assertThat(this.delegate.scheduleCalls.get()).isZero();
+	}
+}
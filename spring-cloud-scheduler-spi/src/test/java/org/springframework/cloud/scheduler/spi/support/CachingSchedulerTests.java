@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.scheduler.spi.support.InMemoryScheduler.scheduleRequest;
+
+/**
+ * Tests for {@link CachingScheduler}.
+ *
+ * @author agent
+ */
+public class CachingSchedulerTests {
+
+	private final InMemoryScheduler delegate = new InMemoryScheduler();
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testListingsAreCachedUntilTheyExpire() throws Exception {
+		CachingScheduler scheduler = new CachingScheduler(this.delegate, Duration.ofMillis(200), 10);
+		this.delegate.schedule(scheduleRequest("schedule", "task"));
+
+		assertThat(scheduler.list()).hasSize(1);
+		assertThat(scheduler.list("task")).hasSize(1);
+		this.delegate.schedules.clear();
+		assertThat(scheduler.list()).hasSize(1);
+		assertThat(scheduler.list("task")).hasSize(1);
+		assertThat(this.delegate.listCalls.get()).isEqualTo(2);
+
+		Thread.sleep(300);
+		assertThat(scheduler.list()).isEmpty();
+		assertThat(scheduler.list("task")).isEmpty();
+		assertThat(this.delegate.listCalls.get()).isEqualTo(4);
+	}
+
+	@Test
+	public void testWritesInvalidateTheAffectedListings() {
+		CachingScheduler scheduler = new CachingScheduler(this.delegate, Duration.ofMinutes(1), 10);
+		scheduler.schedule(scheduleRequest("schedule1", "task1"));
+		scheduler.schedule(scheduleRequest("schedule2", "task2"));
+		assertThat(scheduler.list("task1")).hasSize(1);
+		assertThat(scheduler.list("task2")).hasSize(1);
+
+		scheduler.schedule(scheduleRequest("schedule3", "task1"));
+		assertThat(scheduler.list("task1")).hasSize(2);
+		assertThat(scheduler.list()).hasSize(3);
+		int listCalls = this.delegate.listCalls.get();
+		assertThat(scheduler.list("task2")).hasSize(1);
+		assertThat(this.delegate.listCalls.get()).isEqualTo(listCalls);
+
+		scheduler.unschedule("schedule2");
+		assertThat(scheduler.list("task2")).isEmpty();
+		assertThat(scheduler.list()).hasSize(2);
+
+		scheduler.reschedule(scheduleRequest("schedule1", "task1", "0 0 2 1 *"));
+		assertThat(scheduler.list("task1"))
+				.extracting(scheduleInfo -> scheduleInfo.getScheduleProperties().values().iterator().next())
+				.contains("0 0 2 1 *");
+	}
+
+	@Test
+	public void testCachedListingsAreReturnedAsCopies() {
+		CachingScheduler scheduler = new CachingScheduler(this.delegate, Duration.ofMinutes(1), 10);
+		this.delegate.schedule(scheduleRequest("schedule", "task"));
+		List<ScheduleInfo> listed = scheduler.list();
+		listed.get(0).setTaskDefinitionName("modified");
+		listed.get(0).getScheduleProperties().clear();
+		listed.clear();
+
+		assertThat(scheduler.list()).hasSize(1);
+		assertThat(scheduler.list().get(0).getTaskDefinitionName()).isEqualTo("task");
+		assertThat(scheduler.list().get(0).getScheduleProperties()).isNotEmpty();
+		assertThat(this.delegate.listCalls.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testConcurrentMissesAreCoalesced() throws Exception {
+		CachingScheduler scheduler = new CachingScheduler(this.delegate, Duration.ofMinutes(1), 10);
+		this.delegate.schedule(scheduleRequest("schedule", "task"));
+		CountDownLatch release = blockListings();
+		List<Future<List<ScheduleInfo>>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(this.executor.submit(() -> scheduler.list()));
+		}
+		Thread.sleep(100);
+		release.countDown();
+		for (Future<List<ScheduleInfo>> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS)).hasSize(1);
+		}
+		assertThat(this.delegate.listCalls.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testWaitingCallersAreReleasedWhenTheLoaderThrowsAnError() throws Exception {
+		CachingScheduler scheduler = new CachingScheduler(this.delegate, Duration.ofMinutes(1), 10);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		this.delegate.listHook = () -> {
+			loading.countDown();
+			awaitQuietly(release);
+			throw new StackOverflowError("simulated");
+		};
+		Future<List<ScheduleInfo>> loader = this.executor.submit(() -> scheduler.list());
+		assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+		Future<List<ScheduleInfo>> waiter = this.executor.submit(() -> scheduler.list());
+		Thread.sleep(100);
+		release.countDown();
+
+		assertThatThrownBy(() -> loader.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+		assertThatThrownBy(() -> waiter.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+		this.delegate.listHook = () -> { };
+		assertThat(scheduler.list()).isEmpty();
+	}
+
+	@Test
+	public void testLeastRecentlyLoadedListingIsEvicted() {
+		CachingScheduler scheduler = new CachingScheduler(this.delegate, Duration.ofMinutes(1), 2);
+		scheduler.list("task1");
+		scheduler.list("task2");
+		scheduler.list("task3");
+		int listCalls = this.delegate.listCalls.get();
+		scheduler.list("task3");
+		scheduler.list("task2");
+		assertThat(this.delegate.listCalls.get()).isEqualTo(listCalls);
+		scheduler.list("task1");
+		assertThat(this.delegate.listCalls.get()).isEqualTo(listCalls + 1);
+	}
+
+	private CountDownLatch blockListings() {
+		CountDownLatch release = new CountDownLatch(1);
+		this.delegate.listHook = () -> awaitQuietly(release);
+		return release;
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for {@link ImmutableScheduleInfo}.
+ *
+ * @author agent
+ */
+public class ImmutableScheduleInfoTests {
+
+	@Test
+	public void testBuilder() {
+		ImmutableScheduleInfo scheduleInfo = ImmutableScheduleInfo.builder()
+				.scheduleName("schedule")
+				.taskDefinitionName("task")
+				.scheduleProperty(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *")
+				.build();
+		assertThat(scheduleInfo.getScheduleName()).isEqualTo("schedule");
+		assertThat(scheduleInfo.getTaskDefinitionName()).isEqualTo("task");
+		assertThat(scheduleInfo.getScheduleProperties())
+				.isInstanceOf(CompactPropertyMap.class)
+				.containsOnly(entry(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"));
+		ImmutableScheduleInfo modified = scheduleInfo.toBuilder().scheduleProperty("other", "value").build();
+		assertThat(modified.getScheduleProperties()).hasSize(2);
+		assertThat(scheduleInfo.getScheduleProperties()).hasSize(1);
+	}
+
+	@Test
+	public void testIsImmutable() {
+		ImmutableScheduleInfo scheduleInfo = ImmutableScheduleInfo.builder()
+				.scheduleName("schedule")
+				.scheduleProperty(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *")
+				.build();
+		assertThatThrownBy(() -> scheduleInfo.getScheduleProperties().put("other", "value"))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testCopiesAreIndependent() {
+		ScheduleInfo mutable = new ScheduleInfo();
+		mutable.setScheduleName("schedule");
+		mutable.setTaskDefinitionName("task");
+		mutable.setScheduleProperties(new HashMap<>());
+		mutable.getScheduleProperties().put(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *");
+		ImmutableScheduleInfo immutable = ImmutableScheduleInfo.of(mutable);
+		mutable.getScheduleProperties().put("other", "value");
+		assertThat(immutable.getScheduleProperties()).hasSize(1);
+
+		ScheduleInfo copy = immutable.toScheduleInfo();
+		assertThat(copy).isEqualTo(mutable);
+		assertThat(copy.getTaskDefinitionName()).isEqualTo("task");
+		copy.setTaskDefinitionName("other");
+		copy.getScheduleProperties().put("other", "value");
+		assertThat(immutable.getTaskDefinitionName()).isEqualTo("task");
+		assertThat(immutable.getScheduleProperties()).hasSize(1);
+		assertThat(immutable.toScheduleInfo()).isNotSameAs(copy);
+	}
+
+	@Test
+	public void testEqualityIsBasedOnTheScheduleName() {
+		ImmutableScheduleInfo scheduleInfo = ImmutableScheduleInfo.builder()
+				.scheduleName("schedule")
+				.taskDefinitionName("task")
+				.build();
+		ImmutableScheduleInfo other = scheduleInfo.toBuilder().taskDefinitionName("other").build();
+		assertThat(other).isEqualTo(scheduleInfo);
+		assertThat(other.hashCode()).isEqualTo(scheduleInfo.hashCode());
+		Set<ImmutableScheduleInfo> set = new HashSet<>();
+		set.add(scheduleInfo);
+		assertThat(set).contains(other);
+		assertThat(scheduleInfo.toBuilder().scheduleName("renamed").build()).isNotEqualTo(scheduleInfo);
+	}
+}
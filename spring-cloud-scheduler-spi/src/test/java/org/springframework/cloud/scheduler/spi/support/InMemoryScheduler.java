@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * A {@link Scheduler} that keeps its schedules in memory, ordered by name, and counts the
+ * calls made to it.  A hook run at the start of each listing allows tests to block or
+ * fail listings.
+ *
+ * @author agent
+ */
+class InMemoryScheduler implements Scheduler {
+
+	final Map<String, ScheduleRequest> schedules = new ConcurrentSkipListMap<>();
+
+	final AtomicInteger scheduleCalls = new AtomicInteger();
+
+	final AtomicInteger unscheduleCalls = new AtomicInteger();
+
+	final AtomicInteger listCalls = new AtomicInteger();
+
+	volatile Runnable listHook = () -> { };
+
+	@Override
+	public void schedule(ScheduleRequest scheduleRequest) {
+		this.scheduleCalls.incrementAndGet();
+		if (this.schedules.putIfAbsent(scheduleRequest.getScheduleName(), scheduleRequest) != null) {
+			throw new CreateScheduleException(scheduleRequest.getScheduleName(),
+					new IllegalStateException("already exists"));
+		}
+	}
+
+	@Override
+	public void unschedule(String scheduleName) {
+		this.unscheduleCalls.incrementAndGet();
+		if (this.schedules.remove(scheduleName) == null) {
+			throw new UnScheduleException(scheduleName);
+		}
+	}
+
+	@Override
+	public void reschedule(ScheduleRequest scheduleRequest) {
+		if (this.schedules.replace(scheduleRequest.getScheduleName(), scheduleRequest) == null) {
+			throw new UnScheduleException(scheduleRequest.getScheduleName());
+		}
+	}
+
+	@Override
+	public List<ScheduleInfo> list(String taskDefinitionName) {
+		return list().stream()
+				.filter(scheduleInfo -> taskDefinitionName.equals(scheduleInfo.getTaskDefinitionName()))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public List<ScheduleInfo> list() {
+		this.listCalls.incrementAndGet();
+		this.listHook.run();
+		List<ScheduleInfo> result = new ArrayList<>();
+		for (ScheduleRequest scheduleRequest : this.schedules.values()) {
+			ScheduleInfo scheduleInfo = new ScheduleInfo();
+			scheduleInfo.setScheduleName(scheduleRequest.getScheduleName());
+			scheduleInfo.setTaskDefinitionName(scheduleRequest.getDefinition().getName());
+			scheduleInfo.setScheduleProperties(scheduleRequest.getSchedulerProperties());
+			result.add(scheduleInfo);
+		}
+		return result;
+	}
+
+	static ScheduleRequest scheduleRequest(String scheduleName, String taskDefinitionName) {
+		return scheduleRequest(scheduleName, taskDefinitionName, "0 0 1 1 *");
+	}
+
+	static ScheduleRequest scheduleRequest(String scheduleName, String taskDefinitionName, String cronExpression) {
+		return new ScheduleRequest(new AppDefinition(taskDefinitionName, null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, cronExpression),
+				null, scheduleName, new FileSystemResource("timestamp-task.jar"));
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.scheduler.spi.support.InMemoryScheduler.scheduleRequest;
+
+/**
+ * Tests for {@link InstrumentedScheduler}.
+ *
+ * @author agent
+ */
+public class InstrumentedSchedulerTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final InMemoryScheduler delegate = new InMemoryScheduler();
+
+	@Test
+	public void testOperationsAreTimed() {
+		InstrumentedScheduler scheduler = new InstrumentedScheduler(this.delegate, this.meterRegistry);
+		scheduler.schedule(scheduleRequest("schedule-1", "task"));
+		scheduler.schedule(scheduleRequest("schedule-2", "task"));
+		scheduler.list("task");
+
+		assertThat(this.meterRegistry.get(InstrumentedScheduler.OPERATIONS_METRIC)
+				.tag("scheduler", InstrumentedScheduler.DEFAULT_SCHEDULER_NAME)
+				.tag("operation", "schedule")
+				.tag("taskDefinitionName", "task")
+				.tag("outcome", "success")
+				.timer().count()).isEqualTo(2);
+		assertThat(this.meterRegistry.get(InstrumentedScheduler.OPERATIONS_METRIC)
+				.tag("operation", "list")
+				.tag("outcome", "success")
+				.timer().count()).isEqualTo(1);
+		assertThat(this.meterRegistry.get(InstrumentedScheduler.LIST_SIZE_METRIC)
+				.tag("operation", "list")
+				.tag("taskDefinitionName", "task")
+				.summary().totalAmount()).isEqualTo(2);
+	}
+
+	@Test
+	public void testFailuresAreTaggedWithTheExceptionType() {
+		InstrumentedScheduler scheduler = new InstrumentedScheduler(this.delegate, this.meterRegistry);
+		scheduler.schedule(scheduleRequest("schedule", "task"));
+		assertThatThrownBy(() -> scheduler.schedule(scheduleRequest("schedule", "task")))
+				.isInstanceOf(CreateScheduleException.class);
+		assertThatThrownBy(() -> scheduler.unschedule("missing"))
+				.isInstanceOf(UnScheduleException.class);
+
+		assertThat(this.meterRegistry.get(InstrumentedScheduler.OPERATIONS_METRIC)
+				.tag("operation", "schedule")
+				.tag("outcome", "failure")
+				.timer().count()).isEqualTo(1);
+		assertThat(this.meterRegistry.get(InstrumentedScheduler.ERRORS_METRIC)
+				.tag("operation", "schedule")
+				.tag("taskDefinitionName", "task")
+				.tag("exception", "CreateScheduleException")
+				.counter().count()).isEqualTo(1);
+		assertThat(this.meterRegistry.get(InstrumentedScheduler.ERRORS_METRIC)
+				.tag("operation", "unschedule")
+				.tag("taskDefinitionName", InstrumentedScheduler.NONE_TAG_VALUE)
+				.tag("exception", "UnScheduleException")
+				.counter().count()).isEqualTo(1);
+		assertThat(gauge(InstrumentedScheduler.DEFAULT_SCHEDULER_NAME)).isEqualTo(1);
+	}
+
+	@Test
+	public void testTaskDefinitionTagsAreCapped() {
+		InstrumentedScheduler scheduler = new InstrumentedScheduler(this.delegate, this.meterRegistry, 2);
+		scheduler.schedule(scheduleRequest("schedule-1", "task-1"));
+		scheduler.schedule(scheduleRequest("schedule-2", "task-2"));
+		scheduler.schedule(scheduleRequest("schedule-3", "task-3"));
+		scheduler.schedule(scheduleRequest("schedule-4", "task-1"));
+
+		assertThat(this.meterRegistry.get(InstrumentedScheduler.OPERATIONS_METRIC)
+				.tag("operation", "schedule")
+				.timers()).extracting(timer -> timer.getId().getTag("taskDefinitionName"))
+				.containsExactlyInAnyOrder("task-1", "task-2", InstrumentedScheduler.OTHER_TAG_VALUE);
+		assertThat(this.meterRegistry.get(InstrumentedScheduler.OPERATIONS_METRIC)
+				.tag("taskDefinitionName", "task-1")
+				.timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	public void testGaugeOfEachSchedulerSharingARegistry() {
+		InMemoryScheduler otherDelegate = new InMemoryScheduler();
+		InstrumentedScheduler first = new InstrumentedScheduler(this.delegate, this.meterRegistry, "first");
+		InstrumentedScheduler second = new InstrumentedScheduler(otherDelegate, this.meterRegistry, "second");
+		first.schedule(scheduleRequest("schedule-1", "task"));
+		first.schedule(scheduleRequest("schedule-2", "task"));
+		second.schedule(scheduleRequest("schedule-1", "task"));
+		assertThat(gauge("first")).isEqualTo(2);
+		assertThat(gauge("second")).isEqualTo(1);
+
+		first.unschedule("schedule-1");
+		assertThat(gauge("first")).isEqualTo(1);
+		otherDelegate.schedule(scheduleRequest("schedule-2", "task"));
+		second.list();
+		assertThat(gauge("second")).isEqualTo(2);
+	}
+
+	private double gauge(String schedulerName) {
+		return this.meterRegistry.get(InstrumentedScheduler.SCHEDULES_METRIC)
+				.tag("scheduler", schedulerName)
+				.gauge().value();
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleEvent;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.scheduler.spi.support.InMemoryScheduler.scheduleRequest;
+
+/**
+ * Tests for {@link PollingScheduleWatcher}.
+ *
+ * @author agent
+ */
+public class PollingScheduleWatcherTests {
+
+	private final InMemoryScheduler scheduler = new InMemoryScheduler();
+
+	private final BlockingQueue<ScheduleEvent> events = new LinkedBlockingQueue<>();
+
+	private PollingScheduleWatcher watcher;
+
+	@Before
+	public void setUp() {
+		this.scheduler.schedule(scheduleRequest("existing", "task"));
+		// only the initial poll runs on the watcher thread, the tests poll explicitly
+		this.watcher = new PollingScheduleWatcher(this.scheduler, Duration.ofHours(1), 16);
+		this.watcher.poll();
+		this.watcher.watch(this.events::add);
+	}
+
+	@After
+	public void tearDown() {
+		this.watcher.close();
+	}
+
+	@Test
+	public void testBaselineDoesNotProduceEvents() throws InterruptedException {
+		this.watcher.poll();
+		assertThat(this.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(this.watcher.getLatestSequence()).isEqualTo(0);
+	}
+
+	@Test
+	public void testChangesAreDerivedFromListings() throws InterruptedException {
+		this.scheduler.schedule(scheduleRequest("created", "task"));
+		this.scheduler.reschedule(scheduleRequest("existing", "task", "0 0 2 1 *"));
+		this.watcher.poll();
+		List<ScheduleEvent> received = take(2);
+		assertThat(received).extracting(ScheduleEvent::getType)
+				.containsExactlyInAnyOrder(ScheduleEvent.Type.CREATED, ScheduleEvent.Type.UPDATED);
+		assertThat(received).extracting(event -> event.getScheduleInfo().getScheduleName())
+				.containsExactlyInAnyOrder("created", "existing");
+
+		this.scheduler.unschedule("created");
+		// replaced with the same content, not observable by listing
+		this.scheduler.reschedule(scheduleRequest("existing", "task", "0 0 2 1 *"));
+		this.watcher.poll();
+		ScheduleEvent deleted = take(1).get(0);
+		assertThat(deleted.getType()).isEqualTo(ScheduleEvent.Type.DELETED);
+		assertThat(deleted.getScheduleInfo().getScheduleName()).isEqualTo("created");
+		// each listener receives its own copy of the schedule
+		deleted.getScheduleInfo().setScheduleName("modified");
+		assertThat(deleted.getScheduleInfo().getScheduleName()).isEqualTo("created");
+		assertThat(this.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	public void testListingFailureKeepsPreviousListing() throws InterruptedException {
+		this.scheduler.schedule(scheduleRequest("created", "task"));
+		this.scheduler.listHook = () -> {
+			throw new SchedulerException("listing failed");
+		};
+		assertThatThrownBy(this.watcher::poll).isInstanceOf(SchedulerException.class);
+		this.scheduler.listHook = () -> { };
+		this.watcher.poll();
+		ScheduleEvent created = take(1).get(0);
+		assertThat(created.getType()).isEqualTo(ScheduleEvent.Type.CREATED);
+		assertThat(created.getScheduleInfo().getScheduleName()).isEqualTo("created");
+		assertThat(this.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	private List<ScheduleEvent> take(int count) throws InterruptedException {
+		List<ScheduleEvent> received = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ScheduleEvent event = this.events.poll(10, TimeUnit.SECONDS);
+			assertThat(event).as("event %d of %d", i + 1, count).isNotNull();
+			received.add(event);
+		}
+		return received;
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.core.io.FileSystemResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PropertyMapInterner} and {@link CompactPropertyMap}.
+ *
+ * @author agent
+ */
+public class PropertyMapInternerTests {
+
+	private final PropertyMapInterner interner = new PropertyMapInterner();
+
+	@Test
+	public void testCompactPropertyMapBehavesLikeMap() {
+		Map<String, String> properties = new HashMap<>();
+		properties.put("b", "2");
+		properties.put("a", "1");
+		properties.put("c", null);
+		CompactPropertyMap compact = CompactPropertyMap.of(properties);
+		assertThat(compact).isEqualTo(properties);
+		assertThat(properties).isEqualTo(compact);
+		assertThat(compact.hashCode()).isEqualTo(properties.hashCode());
+		assertThat(compact.get("a")).isEqualTo("1");
+		assertThat(compact.get("d")).isNull();
+		assertThat(compact.get(1)).isNull();
+		assertThat(compact.containsKey("c")).isTrue();
+		assertThat(compact.keySet()).containsExactly("a", "b", "c");
+		assertThatThrownBy(() -> compact.put("d", "4")).isInstanceOf(UnsupportedOperationException.class);
+		assertThat(CompactPropertyMap.of(Collections.emptyMap())).isEmpty();
+	}
+
+	@Test
+	public void testEqualMapsAreShared() {
+		Map<String, String> first = new HashMap<>();
+		first.put(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *");
+		Map<String, String> second = new HashMap<>(first);
+		Map<String, String> interned = this.interner.intern(first);
+		assertThat(interned).isEqualTo(first);
+		assertThat(this.interner.intern(second)).isSameAs(interned);
+		assertThat(this.interner.intern(interned)).isSameAs(interned);
+		assertThat(this.interner.intern(Collections.singletonMap("other", "value"))).isNotSameAs(interned);
+		assertThat(this.interner.intern((Map<String, String>) null)).isNull();
+	}
+
+	@Test
+	public void testEqualRequestsShareDefinitionAndProperties() {
+		ScheduleRequest first = this.interner.intern(scheduleRequest("schedule-1"));
+		ScheduleRequest second = this.interner.intern(scheduleRequest("schedule-2"));
+		assertThat(second.getScheduleName()).isEqualTo("schedule-2");
+		assertThat(second.getDefinition()).isSameAs(first.getDefinition());
+		assertThat(second.getDefinition().getProperties()).containsEntry("spring.datasource.url", "jdbc:h2:mem");
+		// the request wraps the shared maps in unmodifiable views
+		assertThat(second.getSchedulerProperties()).isEqualTo(first.getSchedulerProperties());
+		assertThat(second.getDeploymentProperties()).isEqualTo(first.getDeploymentProperties());
+	}
+
+	@Test
+	public void testSchedulesAreInterned() {
+		ScheduleInfo mutable = new ScheduleInfo();
+		mutable.setScheduleName("schedule-1");
+		mutable.setTaskDefinitionName(new String("task"));
+		mutable.setScheduleProperties(new HashMap<>(
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *")));
+		ScheduleInfo interned = this.interner.intern(mutable);
+		assertThat(interned).isSameAs(mutable);
+
+		ScheduleInfo other = new ScheduleInfo();
+		other.setScheduleName("schedule-2");
+		other.setTaskDefinitionName(new String("task"));
+		other.setScheduleProperties(Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"));
+		this.interner.intern(other);
+		assertThat(other.getTaskDefinitionName()).isSameAs(interned.getTaskDefinitionName());
+		assertThat(other.getScheduleProperties()).isSameAs(interned.getScheduleProperties());
+	}
+
+	private static ScheduleRequest scheduleRequest(String scheduleName) {
+		Map<String, String> appProperties = new HashMap<>();
+		appProperties.put("spring.datasource.url", "jdbc:h2:mem");
+		return new ScheduleRequest(new AppDefinition("task", appProperties),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+				Collections.singletonMap("spring.cloud.deployer.memory", "1g"), scheduleName,
+				new FileSystemResource("timestamp-task.jar"));
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.CreateScheduleException;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.scheduler.spi.support.InMemoryScheduler.scheduleRequest;
+
+/**
+ * Tests for {@link RateLimitedScheduler}.
+ *
+ * @author agent
+ */
+public class RateLimitedSchedulerTests {
+
+	private final ThrottlingScheduler delegate = new ThrottlingScheduler();
+
+	@Test
+	public void testThrottledCallsAreRetriedAtAReducedRate() {
+		RateLimitedScheduler scheduler = RateLimitedScheduler.builder(this.delegate)
+				.rateLimit(RateLimitedScheduler.Operation.SCHEDULE, 1000, 10)
+				.backoff(Duration.ofMillis(1), Duration.ofMillis(10))
+				.build();
+		this.delegate.throttledCalls.set(2);
+		scheduler.schedule(scheduleRequest("schedule", "task"));
+		assertThat(this.delegate.calls.get()).isEqualTo(3);
+		assertThat(scheduler.getCurrentRate(RateLimitedScheduler.Operation.SCHEDULE)).isLessThan(1000);
+		assertThat(scheduler.getCurrentRate(RateLimitedScheduler.Operation.LIST)).isEqualTo(-1);
+	}
+
+	@Test
+	public void testRetriesAreBounded() {
+		RateLimitedScheduler scheduler = RateLimitedScheduler.builder(this.delegate)
+				.maxRetries(1)
+				.backoff(Duration.ofMillis(1), Duration.ofMillis(10))
+				.build();
+		this.delegate.throttledCalls.set(5);
+		assertThatThrownBy(() -> scheduler.schedule(scheduleRequest("schedule", "task")))
+				.isInstanceOf(CreateScheduleException.class);
+		assertThat(this.delegate.calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void testReschedulesAreNotRetried() {
+		RateLimitedScheduler scheduler = RateLimitedScheduler.builder(this.delegate)
+				.rateLimit(RateLimitedScheduler.Operation.RESCHEDULE, 1000, 10)
+				.backoff(Duration.ofMillis(1), Duration.ofMillis(10))
+				.build();
+		this.delegate.throttledCalls.set(1);
+		assertThatThrownBy(() -> scheduler.reschedule(scheduleRequest("schedule", "task")))
+				.isInstanceOf(CreateScheduleException.class);
+		assertThat(this.delegate.calls.get()).isEqualTo(1);
+		assertThat(scheduler.getCurrentRate(RateLimitedScheduler.Operation.RESCHEDULE)).isLessThan(1000);
+	}
+
+	@Test
+	public void testBulkheadLimitsConcurrentCalls() throws Exception {
+		RateLimitedScheduler scheduler = RateLimitedScheduler.builder(this.delegate)
+				.maxConcurrency(2)
+				.maxWait(Duration.ofMillis(100))
+				.build();
+		this.delegate.release = new CountDownLatch(1);
+		CompletableFuture<Void> first = CompletableFuture.runAsync(
+				() -> scheduler.schedule(scheduleRequest("first", "task")));
+		CompletableFuture<Void> second = CompletableFuture.runAsync(
+				() -> scheduler.schedule(scheduleRequest("second", "task")));
+		assertThat(this.delegate.started.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThatThrownBy(() -> scheduler.schedule(scheduleRequest("third", "task")))
+				.isInstanceOf(CreateScheduleException.class)
+				.hasMessageContaining("third");
+		this.delegate.release.countDown();
+		first.get(10, TimeUnit.SECONDS);
+		second.get(10, TimeUnit.SECONDS);
+		assertThat(this.delegate.calls.get()).isEqualTo(2);
+		assertThat(this.delegate.maxInProgress.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void testThrottlingErrors() {
+		assertThat(RateLimitedScheduler.isThrottlingError(
+				new SchedulerException("failed", new IllegalStateException("Too Many Requests")))).isTrue();
+		assertThat(RateLimitedScheduler.isThrottlingError(new SchedulerException("HTTP 429"))).isTrue();
+		assertThat(RateLimitedScheduler.isThrottlingError(
+				new SchedulerException("Failed to schedule task-4291"))).isFalse();
+	}
+
+	@Test
+	public void testRejectedWhenNoPermitIsAvailableWithinMaxWait() {
+		RateLimitedScheduler scheduler = RateLimitedScheduler.builder(this.delegate)
+				.rateLimit(RateLimitedScheduler.Operation.SCHEDULE, 0.1, 1)
+				.maxWait(Duration.ofMillis(100))
+				.build();
+		scheduler.schedule(scheduleRequest("first", "task"));
+		assertThatThrownBy(() -> scheduler.schedule(scheduleRequest("second", "task")))
+				.isInstanceOf(CreateScheduleException.class)
+				.hasMessageContaining("second");
+		assertThat(this.delegate.calls.get()).isEqualTo(1);
+	}
+
+	/**
+	 * A scheduler that rejects a configured number of calls as throttled and holds the
+	 * calls it accepts until released.
+	 */
+	private static class ThrottlingScheduler implements Scheduler {
+
+		private final AtomicInteger throttledCalls = new AtomicInteger();
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private final AtomicInteger inProgress = new AtomicInteger();
+
+		private final AtomicInteger maxInProgress = new AtomicInteger();
+
+		private final CountDownLatch started = new CountDownLatch(2);
+
+		private volatile CountDownLatch release = new CountDownLatch(0);
+
+		@Override
+		public void schedule(ScheduleRequest scheduleRequest) {
+			this.calls.incrementAndGet();
+			if (this.throttledCalls.getAndDecrement() > 0) {
+				throw new CreateScheduleException(scheduleRequest.getScheduleName(),
+						new IllegalStateException("HTTP 429: Too Many Requests"));
+			}
+			this.maxInProgress.accumulateAndGet(this.inProgress.incrementAndGet(), Math::max);
+			this.started.countDown();
+			try {
+				this.release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				this.inProgress.decrementAndGet();
+			}
+		}
+
+		@Override
+		public void unschedule(String scheduleName) {
+		}
+
+		@Override
+		public List<ScheduleInfo> list(String taskDefinitionName) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<ScheduleInfo> list() {
+			return Collections.emptyList();
+		}
+	}
+}
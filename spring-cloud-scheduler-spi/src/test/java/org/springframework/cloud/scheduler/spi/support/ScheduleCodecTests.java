@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.app.AppDeployer;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ScheduleCodec}.
+ *
+ * @author agent
+ */
+public class ScheduleCodecTests {
+
+	private final ScheduleCodec codec = new ScheduleCodec();
+
+	@Test
+	public void testScheduleRequestRoundTrip() throws Exception {
+		ScheduleRequest scheduleRequest = scheduleRequest("schedule-1");
+		ScheduleRequest decoded = this.codec.decodeScheduleRequest(this.codec.encode(scheduleRequest));
+		assertThat(decoded.getScheduleName()).isEqualTo("schedule-1");
+		assertThat(decoded.getDefinition().getName()).isEqualTo("timestamp-task");
+		assertThat(decoded.getDefinition().getProperties()).isEqualTo(scheduleRequest.getDefinition().getProperties());
+		assertThat(decoded.getSchedulerProperties()).isEqualTo(scheduleRequest.getSchedulerProperties());
+		assertThat(decoded.getDeploymentProperties()).isEqualTo(scheduleRequest.getDeploymentProperties());
+		assertThat(decoded.getCommandlineArguments()).containsExactly("--timestamp.format=yyyy", "--verbose", "");
+		assertThat(decoded.getResource().getURI()).isEqualTo(scheduleRequest.getResource().getURI());
+	}
+
+	@Test
+	public void testScheduleRequestWithoutOptionalValues() {
+		ScheduleRequest scheduleRequest = new ScheduleRequest(new AppDefinition("task", null), null, null,
+				"schedule", new FileSystemResource("timestamp-task.jar"));
+		ScheduleRequest decoded = this.codec.decodeScheduleRequest(this.codec.encode(scheduleRequest));
+		assertThat(decoded.getDefinition().getProperties()).isEmpty();
+		assertThat(decoded.getSchedulerProperties()).isEmpty();
+		assertThat(decoded.getDeploymentProperties()).isEmpty();
+		assertThat(decoded.getCommandlineArguments()).isEmpty();
+	}
+
+	@Test
+	public void testScheduleInfoRoundTrip() {
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName("schedule-é日");
+		scheduleInfo.setTaskDefinitionName("task");
+		Map<String, String> properties = new HashMap<>();
+		properties.put(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *");
+		properties.put("empty", "");
+		properties.put("null", null);
+		scheduleInfo.setScheduleProperties(properties);
+		ScheduleInfo decoded = this.codec.decodeScheduleInfo(this.codec.encode(scheduleInfo));
+		assertThat(decoded.getScheduleName()).isEqualTo(scheduleInfo.getScheduleName());
+		assertThat(decoded.getTaskDefinitionName()).isEqualTo("task");
+		assertThat(decoded.getScheduleProperties()).isEqualTo(properties);
+
+		ScheduleInfo empty = this.codec.decodeScheduleInfo(this.codec.encode(new ScheduleInfo()));
+		assertThat(empty.getScheduleName()).isNull();
+		assertThat(empty.getScheduleProperties()).isNull();
+	}
+
+	@Test
+	public void testLargeValuesRoundTrip() {
+		Map<String, String> appProperties = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			appProperties.put("property." + i, String.valueOf(new char[i]).replace('\0', 'x'));
+		}
+		ScheduleRequest scheduleRequest = new ScheduleRequest(new AppDefinition("task", appProperties), null, null,
+				"schedule", new FileSystemResource("timestamp-task.jar"));
+		ScheduleRequest decoded = this.codec.decodeScheduleRequest(this.codec.encode(scheduleRequest));
+		assertThat(decoded.getDefinition().getProperties()).isEqualTo(appProperties);
+	}
+
+	@Test
+	public void testWellKnownAndRepeatedStringsAreReferenced() {
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName("value");
+		scheduleInfo.setScheduleProperties(Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "value"));
+		// version, kind, literal tag, length, "value", null tag, map size, key, value reference
+		assertThat(this.codec.encode(scheduleInfo)).hasSize(2 + 2 + 5 + 1 + 1 + 1 + 1);
+	}
+
+	@Test
+	public void testEncodingIsSmallerThanJson() throws Exception {
+		ScheduleRequest scheduleRequest = scheduleRequest("schedule-1");
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("scheduleName", scheduleRequest.getScheduleName());
+		json.put("taskDefinitionName", scheduleRequest.getDefinition().getName());
+		json.put("appProperties", scheduleRequest.getDefinition().getProperties());
+		json.put("schedulerProperties", scheduleRequest.getSchedulerProperties());
+		json.put("deploymentProperties", scheduleRequest.getDeploymentProperties());
+		json.put("commandlineArguments", scheduleRequest.getCommandlineArguments());
+		json.put("resource", scheduleRequest.getResource().getURI().toString());
+		int jsonSize = new ObjectMapper().writeValueAsBytes(json).length;
+		int encodedSize = this.codec.encode(scheduleRequest).length;
+		assertThat(encodedSize).isLessThan(jsonSize * 2 / 3);
+	}
+
+	@Test
+	public void testRejectsUnsupportedVersion() {
+		byte[] bytes = this.codec.encode(scheduleRequest("schedule-1"));
+		bytes[0] = (byte) (ScheduleCodec.VERSION + 1);
+		assertThatThrownBy(() -> this.codec.decodeScheduleRequest(bytes))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Unsupported schedule format version");
+	}
+
+	@Test
+	public void testRejectsWrongKindAndTruncatedValues() {
+		byte[] bytes = this.codec.encode(scheduleRequest("schedule-1"));
+		assertThatThrownBy(() -> this.codec.decodeScheduleInfo(bytes))
+				.isInstanceOf(IllegalArgumentException.class);
+		for (int length = 0; length < bytes.length; length++) {
+			int truncated = length;
+			assertThatThrownBy(() -> this.codec.decodeScheduleRequest(bytes, 0, truncated))
+					.isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	public void testRejectsResourceWithoutUri() {
+		ScheduleRequest scheduleRequest = new ScheduleRequest(new AppDefinition("task", null), null, null,
+				"schedule", new ByteArrayResource(new byte[0]));
+		assertThatThrownBy(() -> this.codec.encode(scheduleRequest))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("has no URI");
+	}
+
+	private static ScheduleRequest scheduleRequest(String scheduleName) {
+		Map<String, String> appProperties = new HashMap<>();
+		appProperties.put("spring.datasource.url", "jdbc:mysql://localhost:3306/task");
+		appProperties.put("spring.datasource.username", "root");
+		appProperties.put("spring.datasource.driverClassName", "org.mariadb.jdbc.Driver");
+		Map<String, String> schedulerProperties = new HashMap<>();
+		schedulerProperties.put(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0/5 * * *");
+		schedulerProperties.put(SchedulerPropertyKeys.CRON_SPREAD_WINDOW, "5m");
+		Map<String, String> deploymentProperties = new HashMap<>();
+		deploymentProperties.put(AppDeployer.MEMORY_PROPERTY_KEY, "1024m");
+		deploymentProperties.put(AppDeployer.DISK_PROPERTY_KEY, "2048m");
+		deploymentProperties.put(AppDeployer.COUNT_PROPERTY_KEY, "1");
+		return new ScheduleRequest(new AppDefinition("timestamp-task", appProperties), schedulerProperties,
+				deploymentProperties, Arrays.asList("--timestamp.format=yyyy", "--verbose", ""), scheduleName,
+				new FileSystemResource("timestamp-task.jar"));
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.cloud.scheduler.spi.core.ScheduleEvent;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleSubscription;
+import org.springframework.cloud.scheduler.spi.core.SchedulerException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ScheduleEventPublisher}.
+ *
+ * @author agent
+ */
+public class ScheduleEventPublisherTests {
+
+	private final ScheduleEventPublisher publisher = new ScheduleEventPublisher(3, Runnable::run);
+
+	@Test
+	public void testWatchFromNow() {
+		publish(ScheduleEvent.Type.CREATED, "before");
+		List<ScheduleEvent> received = new ArrayList<>();
+		ScheduleSubscription subscription = this.publisher.watch(received::add);
+		publish(ScheduleEvent.Type.CREATED, "first");
+		publish(ScheduleEvent.Type.DELETED, "first");
+		subscription.close();
+		publish(ScheduleEvent.Type.CREATED, "after");
+		assertThat(received).extracting(ScheduleEvent::getSequence).containsExactly(2L, 3L);
+		assertThat(received).extracting(ScheduleEvent::getType)
+				.containsExactly(ScheduleEvent.Type.CREATED, ScheduleEvent.Type.DELETED);
+		assertThat(this.publisher.getLatestSequence()).isEqualTo(4);
+	}
+
+	@Test
+	public void testResume() {
+		for (int i = 0; i < 5; i++) {
+			publish(ScheduleEvent.Type.CREATED, "schedule" + i);
+		}
+		List<ScheduleEvent> received = new ArrayList<>();
+		this.publisher.watch(3, received::add);
+		assertThat(received).extracting(event -> event.getScheduleInfo().getScheduleName())
+				.containsExactly("schedule3", "schedule4");
+		assertThatThrownBy(() -> this.publisher.watch(1, event -> { }))
+				.isInstanceOf(SchedulerException.class);
+		assertThatThrownBy(() -> this.publisher.watch(6, event -> { }))
+				.isInstanceOf(SchedulerException.class);
+	}
+
+	@Test
+	public void testListenerFailureDoesNotStopDelivery() {
+		List<ScheduleEvent> received = new ArrayList<>();
+		this.publisher.watch(event -> {
+			received.add(event);
+			throw new IllegalStateException("listener failure");
+		});
+		publish(ScheduleEvent.Type.CREATED, "first");
+		publish(ScheduleEvent.Type.UPDATED, "first");
+		assertThat(received).hasSize(2);
+	}
+
+	private void publish(ScheduleEvent.Type type, String scheduleName) {
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(scheduleName);
+		this.publisher.publish(type, scheduleInfo);
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.scheduler.spi.core.ScheduleFilter;
+import org.springframework.cloud.scheduler.spi.core.ScheduleInfo;
+import org.springframework.cloud.scheduler.spi.core.ScheduleRequest;
+import org.springframework.cloud.scheduler.spi.core.Scheduler;
+import org.springframework.cloud.scheduler.spi.core.SchedulerPropertyKeys;
+import org.springframework.cloud.scheduler.spi.core.UnScheduleException;
+import org.springframework.core.io.FileSystemResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.scheduler.spi.support.InMemoryScheduler.scheduleRequest;
+
+/**
+ * Tests for {@link ScheduleReconciler}.
+ *
+ * @author agent
+ */
+public class ScheduleReconcilerTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+	private final MapScheduler scheduler = new MapScheduler();
+
+	private final ScheduleReconciler reconciler = new ScheduleReconciler(this.scheduler, this.executor, 3);
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testReconcile() {
+		this.scheduler.schedule(scheduleRequest("unchanged", "task"));
+		this.scheduler.schedule(scheduleRequest("changed", "task"));
+		this.scheduler.schedule(scheduleRequest("removed", "task"));
+		ScheduleReconciler.Result result = this.reconciler.reconcile(Arrays.asList(
+				scheduleRequest("unchanged", "task"),
+				scheduleRequest("changed", "task", "0 0 2 1 *"),
+				scheduleRequest("added", "other")));
+		ScheduleReconciler.Plan plan = result.getPlan();
+		assertThat(plan.getToCreate()).extracting(ScheduleRequest::getScheduleName).containsExactly("added");
+		assertThat(plan.getToUpdate()).extracting(ScheduleRequest::getScheduleName).containsExactly("changed");
+		assertThat(plan.getToDelete()).containsExactly("removed");
+		assertThat(plan.getUnchanged()).isEqualTo(1);
+		assertThat(result.hasFailures()).isFalse();
+		assertThat(this.scheduler.schedules.keySet()).containsOnly("unchanged", "changed", "added");
+		assertThat(this.scheduler.schedules.get("changed").getSchedulerProperties())
+				.containsEntry(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 2 1 *");
+		assertThat(this.reconciler.plan(Arrays.asList(
+				scheduleRequest("unchanged", "task"),
+				scheduleRequest("changed", "task", "0 0 2 1 *"),
+				scheduleRequest("added", "other"))).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testReconcileWithinScope() {
+		this.scheduler.schedule(scheduleRequest("team-a-1", "task"));
+		this.scheduler.schedule(scheduleRequest("team-b-1", "task"));
+		ScheduleFilter scope = ScheduleFilter.builder().scheduleNamePrefix("team-a-").build();
+		ScheduleReconciler.Result result = this.reconciler.reconcile(
+				Collections.singletonList(scheduleRequest("team-a-2", "task")), scope);
+		assertThat(result.getDeleted().getSucceeded()).containsExactly("team-a-1");
+		assertThat(result.getCreated().getSucceeded()).containsExactly("team-a-2");
+		assertThat(this.scheduler.schedules.keySet()).containsOnly("team-a-2", "team-b-1");
+		assertThatThrownBy(() -> this.reconciler.plan(
+				Collections.singletonList(scheduleRequest("team-b-2", "task")), scope))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testFailuresAreReportedPerSchedule() {
+		this.scheduler.schedule(scheduleRequest("removed", "task"));
+		ScheduleReconciler.Plan plan = this.reconciler.plan(Collections.emptyList());
+		this.scheduler.unschedule("removed");
+		ScheduleReconciler.Result result = this.reconciler.apply(plan);
+		assertThat(result.hasFailures()).isTrue();
+		assertThat(result.getDeleted().getFailed()).containsOnlyKeys("removed");
+	}
+
+	@Test
+	public void testChangesOutsideScheduleProperties() {
+		this.reconciler.reconcile(Collections.singletonList(scheduleRequest("schedule", "task")));
+		assertThat(this.scheduler.schedules.get("schedule").getSchedulerProperties())
+				.containsOnlyKeys(SchedulerPropertyKeys.CRON_EXPRESSION);
+		assertThat(this.reconciler.plan(Collections.singletonList(scheduleRequest("schedule", "task")))
+				.isEmpty()).isTrue();
+
+		ScheduleRequest changedArguments = new ScheduleRequest(new AppDefinition("task", null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+				null, Collections.singletonList("--mode=full"), "schedule", new FileSystemResource("timestamp-task.jar"));
+		ScheduleRequest changedResource = new ScheduleRequest(new AppDefinition("task", null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+				null, "schedule", new FileSystemResource("timestamp-task-2.jar"));
+		ScheduleRequest changedDeployment = new ScheduleRequest(new AppDefinition("task", null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+				Collections.singletonMap("spring.cloud.deployer.memory", "2g"), "schedule",
+				new FileSystemResource("timestamp-task.jar"));
+		ScheduleRequest changedApplication = new ScheduleRequest(
+				new AppDefinition("task", Collections.singletonMap("logging.level.root", "debug")),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+				null, "schedule", new FileSystemResource("timestamp-task.jar"));
+		for (ScheduleRequest changed : Arrays.asList(changedArguments, changedResource, changedDeployment,
+				changedApplication)) {
+			assertThat(this.reconciler.plan(Collections.singletonList(changed)).getToUpdate())
+					.extracting(ScheduleRequest::getScheduleName).containsExactly("schedule");
+		}
+
+		this.reconciler.reconcile(Collections.singletonList(changedArguments));
+		assertThat(this.scheduler.schedules.get("schedule").getCommandlineArguments()).containsExactly("--mode=full");
+		assertThat(this.reconciler.plan(Collections.singletonList(changedArguments)).isEmpty()).isTrue();
+
+		this.reconciler.reconcile(Collections.emptyList());
+		this.scheduler.schedule(changedArguments);
+		// deleted by the reconciler, created elsewhere
+		assertThat(this.reconciler.plan(Collections.singletonList(changedResource)).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testChangesOutsideSchedulePropertiesOfFailedUpdateAreRetried() {
+		this.reconciler.reconcile(Collections.singletonList(scheduleRequest("schedule", "task")));
+		ScheduleRequest changedArguments = new ScheduleRequest(new AppDefinition("task", null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+				null, Collections.singletonList("--mode=full"), "schedule", new FileSystemResource("timestamp-task.jar"));
+		ScheduleReconciler.Plan plan = this.reconciler.plan(Collections.singletonList(changedArguments));
+		this.scheduler.unschedule("schedule");
+		assertThat(this.reconciler.apply(plan).getUpdated().getFailed()).containsOnlyKeys("schedule");
+		this.scheduler.schedule(scheduleRequest("schedule", "task"));
+		assertThat(this.reconciler.plan(Collections.singletonList(changedArguments)).getToUpdate())
+				.extracting(ScheduleRequest::getScheduleName).containsExactly("schedule");
+	}
+
+	@Test
+	public void testScheduleNotAppliedByTheReconcilerIsComparedBySchedulePropertiesOnly() {
+		this.scheduler.schedule(scheduleRequest("schedule", "task"));
+		ScheduleRequest changedArguments = new ScheduleRequest(new AppDefinition("task", null),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 0 1 1 *"),
+				null, Collections.singletonList("--mode=full"), "schedule", new FileSystemResource("timestamp-task.jar"));
+		// documented limitation, the scheduler does not return the arguments
+		assertThat(this.reconciler.plan(Collections.singletonList(changedArguments)).isEmpty()).isTrue();
+		assertThat(this.reconciler.plan(Collections.singletonList(scheduleRequest("schedule", "task", "0 0 2 1 *")))
+				.getToUpdate()).hasSize(1);
+	}
+
+	private static class MapScheduler implements Scheduler {
+
+		private final Map<String, ScheduleRequest> schedules = new ConcurrentHashMap<>();
+
+		@Override
+		public void schedule(ScheduleRequest scheduleRequest) {
+			this.schedules.put(scheduleRequest.getScheduleName(), scheduleRequest);
+		}
+
+		@Override
+		public void unschedule(String scheduleName) {
+			if (this.schedules.remove(scheduleName) == null) {
+				throw new UnScheduleException(scheduleName);
+			}
+		}
+
+		@Override
+		public List<ScheduleInfo> list(String taskDefinitionName) {
+			return list().stream()
+					.filter(scheduleInfo -> taskDefinitionName.equals(scheduleInfo.getTaskDefinitionName()))
+					.collect(Collectors.toList());
+		}
+
+		@Override
+		public List<ScheduleInfo> list() {
+			return this.schedules.values().stream()
+					.map(scheduleRequest -> {
+						ScheduleInfo scheduleInfo = new ScheduleInfo();
+						scheduleInfo.setScheduleName(scheduleRequest.getScheduleName());
+						scheduleInfo.setTaskDefinitionName(scheduleRequest.getDefinition().getName());
+						scheduleInfo.setScheduleProperties(new HashMap<>(scheduleRequest.getSchedulerProperties()));
+						return scheduleInfo;
+					})
+					.collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.scheduler.spi.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ScheduleRegistry}.
+ *
+ * @author agent
+ */
+public class ScheduleRegistryTests {
+
+	private static final int THREADS = 8;
+
+	private final ScheduleRegistry<TestSchedule> registry = new ScheduleRegistry<>(schedule -> schedule.taskDefinitionName);
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testDuplicatesAreDetected() {
+		TestSchedule first = new TestSchedule("task");
+		TestSchedule second = new TestSchedule("task");
+		assertThat(this.registry.putIfAbsent("schedule", first)).isNull();
+		assertThat(this.registry.putIfAbsent("schedule", second)).isSameAs(first);
+		assertThat(this.registry.get("schedule")).isSameAs(first);
+		assertThat(this.registry.getByTaskDefinition("task")).containsExactly(first);
+		assertThat(this.registry.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void testReplaceAndRemoveKeepTheIndexConsistent() {
+		TestSchedule original = new TestSchedule("task-1");
+		TestSchedule moved = new TestSchedule("task-2");
+		this.registry.putIfAbsent("schedule", original);
+
+		assertThat(this.registry.replace("schedule", moved, original)).isFalse();
+		assertThat(this.registry.replace("schedule", original, moved)).isTrue();
+		assertThat(this.registry.getByTaskDefinition("task-1")).isEmpty();
+		assertThat(this.registry.getByTaskDefinition("task-2")).containsExactly(moved);
+
+		assertThat(this.registry.remove("schedule", original)).isFalse();
+		assertThat(this.registry.remove("schedule", moved)).isTrue();
+		assertThat(this.registry.getByTaskDefinition("task-2")).isEmpty();
+		assertThat(this.registry.remove("schedule")).isNull();
+		assertThat(this.registry.contains("schedule")).isFalse();
+	}
+
+	@Test
+	public void testViewsReflectSubsequentChanges() {
+		Collection<TestSchedule> all = this.registry.getAll();
+		Collection<TestSchedule> byTaskDefinition = this.registry.getByTaskDefinition("task");
+		TestSchedule first = new TestSchedule("task");
+		this.registry.putIfAbsent("schedule-1", first);
+		assertThat(all).containsExactly(first);
+		assertThat(byTaskDefinition).containsExactly(first);
+
+		// the index entry of the task definition is discarded and recreated
+		this.registry.remove("schedule-1");
+		assertThat(byTaskDefinition).isEmpty();
+		TestSchedule second = new TestSchedule("task");
+		this.registry.putIfAbsent("schedule-2", second);
+		assertThat(byTaskDefinition).containsExactly(second);
+		assertThat(all).containsExactly(second);
+	}
+
+	@Test
+	public void testConcurrentPutIfAbsentRegistersOneSchedule() throws Exception {
+		for (int round = 0; round < 100; round++) {
+			String scheduleName = "schedule-" + round;
+			CyclicBarrier start = new CyclicBarrier(THREADS);
+			List<Future<TestSchedule>> results = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				results.add(this.executor.submit(() -> {
+					start.await();
+					return this.registry.putIfAbsent(scheduleName, new TestSchedule("task-" + ThreadLocalRandom.current().nextInt(3)));
+				}));
+			}
+			int registered = 0;
+			for (Future<TestSchedule> result : results) {
+				if (result.get(10, TimeUnit.SECONDS) == null) {
+					registered++;
+				}
+			}
+			assertThat(registered).isEqualTo(1);
+		}
+		assertIndexConsistent();
+	}
+
+	@Test
+	public void testIndexIsConsistentUnderConcurrentModifications() throws Exception {
+		CyclicBarrier start = new CyclicBarrier(THREADS);
+		List<Future<?>> workers = new ArrayList<>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			workers.add(this.executor.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < 20000; i++) {
+					String scheduleName = "schedule-" + random.nextInt(16);
+					TestSchedule schedule = new TestSchedule("task-" + random.nextInt(3));
+					int operation = random.nextInt(3);
+					if (operation == 0) {
+						this.registry.putIfAbsent(scheduleName, schedule);
+					}
+					else if (operation == 1) {
+						this.registry.remove(scheduleName);
+					}
+					else {
+						TestSchedule current = this.registry.get(scheduleName);
+						if (current != null) {
+							this.registry.replace(scheduleName, current, schedule);
+						}
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> worker : workers) {
+			worker.get(60, TimeUnit.SECONDS);
+		}
+		assertIndexConsistent();
+	}
+
+	/**
+	 * Verifies that each registered schedule is indexed under its own task definition
+	 * only, and that the index holds no other schedule.
+	 */
+	private void assertIndexConsistent() {
+		Set<TestSchedule> indexed = new HashSet<>();
+		for (int i = 0; i < 3; i++) {
+			String taskDefinitionName = "task-" + i;
+			for (TestSchedule schedule : this.registry.getByTaskDefinition(taskDefinitionName)) {
+				assertThat(schedule.taskDefinitionName).isEqualTo(taskDefinitionName);
+				assertThat(indexed.add(schedule)).isTrue();
+			}
+		}
+		assertThat(indexed).containsExactlyInAnyOrderElementsOf(this.registry.getAll());
+		assertThat(indexed).hasSize(this.registry.size());
+	}
+
+	/**
+	 * A schedule compared by identity, as the registry does.
+	 */
+	private static class TestSchedule {
+
+		private final String taskDefinitionName;
+
+		TestSchedule(String taskDefinitionName) {
+			this.taskDefinitionName = taskDefinitionName;
+		}
+	}
+}